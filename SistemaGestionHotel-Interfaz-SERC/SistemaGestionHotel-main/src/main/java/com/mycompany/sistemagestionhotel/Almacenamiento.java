@@ -0,0 +1,40 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Backend de persistencia: un repositorio por agregado más el hotel. 
+ * Se elige al arrancar con -Dhotel.backend=csv (por defecto) o jdbc.
+ */
+public interface Almacenamiento extends Closeable {
+
+    /** @return el hotel guardado, o null si no hay ninguno. */
+    Hotel cargarHotel() throws IOException;
+
+    void guardarHotel(Hotel hotel) throws IOException;
+
+    RepositorioHabitaciones habitaciones();
+
+    RepositorioClientes clientes();
+
+    RepositorioReservas reservas();
+
+    RepositorioFacturas facturas();
+
+    /**
+     * Ejecuta varios guardados como una sola unidad: o se confirman todos 
+     * o ninguno. Las llamadas anidadas se suman a la exterior.
+     */
+    void enGrupo(PersistenciaDatos.OperacionGuardado operacion) throws IOException;
+
+    /** Marca alta guardada de cada secuencia de ids (clientes, reservas...). */
+    Map<String, Integer> cargarMarcasIds() throws IOException;
+
+    /**
+     * Guarda la marca de una secuencia. Se escribe al momento, fuera de la 
+     * escritura diferida: ningún id por encima se entrega antes.
+     */
+    void guardarMarcaIds(String secuencia, int marca) throws IOException;
+}
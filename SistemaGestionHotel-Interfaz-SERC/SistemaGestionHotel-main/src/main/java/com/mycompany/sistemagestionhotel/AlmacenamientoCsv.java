@@ -0,0 +1,119 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Backend por defecto: los CSV de la carpeta datos, a través de 
+ * PersistenciaDatos. Un grupo es una escritura atómica de varios archivos.
+ */
+class AlmacenamientoCsv implements Almacenamiento {
+    private final PersistenciaDatos persistencia;
+
+    private final RepositorioHabitaciones habitaciones = new RepositorioHabitaciones() {
+        @Override
+        public List<Habitacion> cargar() throws IOException {
+            return persistencia.cargarHabitaciones();
+        }
+
+        @Override
+        public void guardar(List<Habitacion> lista, CambiosPendientes cambios) 
+                throws IOException {
+            persistencia.guardarHabitaciones(lista, cambios);
+        }
+    };
+
+    private final RepositorioClientes clientes = new RepositorioClientes() {
+        @Override
+        public List<Cliente> cargar() throws IOException {
+            return persistencia.cargarClientes();
+        }
+
+        @Override
+        public void guardar(List<Cliente> lista, CambiosPendientes cambios) 
+                throws IOException {
+            persistencia.guardarClientes(lista, cambios);
+        }
+    };
+
+    private final RepositorioReservas reservas = new RepositorioReservas() {
+        @Override
+        public List<Reserva> cargar(List<Habitacion> habitaciones, 
+                List<Cliente> clientes) throws IOException {
+            return persistencia.cargarReservas(habitaciones, clientes);
+        }
+
+        @Override
+        public void guardar(List<Cliente> clientes, List<Reserva> lista, 
+                CambiosPendientes cambios) throws IOException {
+            persistencia.guardarReservasUnificado(clientes, lista, cambios);
+        }
+    };
+
+    private final RepositorioFacturas facturas = new RepositorioFacturas() {
+        @Override
+        public List<Factura> cargar(List<Reserva> reservas) throws IOException {
+            return persistencia.cargarFacturas(reservas);
+        }
+
+        @Override
+        public void guardar(List<Factura> lista, CambiosPendientes cambios) 
+                throws IOException {
+            persistencia.guardarFacturas(lista, cambios);
+        }
+    };
+
+    // Las marcas de las tres secuencias van juntas en un archivo
+    private final Map<String, Integer> marcasIds = new TreeMap<>();
+
+    AlmacenamientoCsv(PersistenciaDatos persistencia) {
+        this.persistencia = persistencia;
+    }
+
+    @Override
+    public Hotel cargarHotel() throws IOException {
+        return persistencia.cargarHotel();
+    }
+
+    @Override
+    public void guardarHotel(Hotel hotel) throws IOException {
+        persistencia.guardarHotel(hotel);
+    }
+
+    @Override
+    public RepositorioHabitaciones habitaciones() { return habitaciones; }
+
+    @Override
+    public RepositorioClientes clientes() { return clientes; }
+
+    @Override
+    public RepositorioReservas reservas() { return reservas; }
+
+    @Override
+    public RepositorioFacturas facturas() { return facturas; }
+
+    @Override
+    public void enGrupo(PersistenciaDatos.OperacionGuardado operacion) throws IOException {
+        persistencia.guardarEnGrupo(operacion);
+    }
+
+    @Override
+    public synchronized Map<String, Integer> cargarMarcasIds() throws IOException {
+        marcasIds.putAll(persistencia.cargarMarcasIds());
+        return new TreeMap<>(marcasIds);
+    }
+
+    @Override
+    public synchronized void guardarMarcaIds(String secuencia, int marca) 
+            throws IOException {
+        marcasIds.put(secuencia, marca);
+        persistencia.guardarMarcasIds(marcasIds);
+    }
+
+    @Override
+    public void close() {
+        // Los CSV no mantienen recursos abiertos (el diario lo cierra el sistema)
+    }
+}
@@ -0,0 +1,437 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Backend sobre una base de datos embebida (por defecto un archivo H2 en
+ * datos/hotel). Cada agregado es una tabla indexada por su id y los
+ * guardados incrementales solo tocan las filas marcadas, enviadas en lotes
+ * de sentencias preparadas. Un grupo es una transacción.
+ */
+class AlmacenamientoJdbc implements Almacenamiento {
+    private static final int TAM_LOTE = 1000;
+
+    private static final String[] ESQUEMA = {
+        "CREATE TABLE IF NOT EXISTS hotel (id INT PRIMARY KEY, nombre VARCHAR(255), "
+                + "direccion VARCHAR(255), telefono VARCHAR(255))",
+        "CREATE TABLE IF NOT EXISTS habitaciones (numero INT PRIMARY KEY, "
+                + "tipo VARCHAR(255), precio DOUBLE PRECISION, estado VARCHAR(32))",
+        "CREATE TABLE IF NOT EXISTS clientes (id INT PRIMARY KEY, nombre VARCHAR(255), "
+                + "cedula VARCHAR(255), email VARCHAR(255), telefono VARCHAR(255))",
+        "CREATE INDEX IF NOT EXISTS idx_clientes_cedula ON clientes (cedula)",
+        "CREATE TABLE IF NOT EXISTS reservas (id INT PRIMARY KEY, fecha_inicio DATE, "
+                + "fecha_fin DATE, estado VARCHAR(32), numero_habitacion INT, "
+                + "cedula VARCHAR(255), metodo_pago VARCHAR(255))",
+        "CREATE INDEX IF NOT EXISTS idx_reservas_habitacion ON reservas (numero_habitacion)",
+        "CREATE INDEX IF NOT EXISTS idx_reservas_cedula ON reservas (cedula)",
+        "CREATE TABLE IF NOT EXISTS facturas (id INT PRIMARY KEY, fecha DATE, "
+                + "subtotal DOUBLE PRECISION, iva DOUBLE PRECISION, total DOUBLE PRECISION, "
+                + "metodo_pago VARCHAR(255), reserva_id INT, pagada BOOLEAN)",
+        "CREATE INDEX IF NOT EXISTS idx_facturas_reserva ON facturas (reserva_id)",
+        "CREATE TABLE IF NOT EXISTS marcas_ids (secuencia VARCHAR(32) PRIMARY KEY, "
+                + "marca INT)"
+    };
+
+    // Rellena los parámetros de un INSERT con los campos de la entidad
+    private interface Vinculador<T> {
+        void vincular(PreparedStatement sentencia, T entidad) throws SQLException;
+    }
+
+    private final Connection conexion;
+    private boolean enGrupo;
+    private final List<Runnable> trasConfirmar = new ArrayList<>();
+
+    private final RepositorioHabitaciones habitaciones = new RepositorioHabitaciones() {
+        @Override
+        public List<Habitacion> cargar() throws IOException {
+            return cargarHabitaciones();
+        }
+
+        @Override
+        public void guardar(List<Habitacion> lista, CambiosPendientes cambios)
+                throws IOException {
+            guardarTabla("habitaciones", "numero",
+                    "INSERT INTO habitaciones (numero, tipo, precio, estado) "
+                    + "VALUES (?, ?, ?, ?)",
+                    lista, Habitacion::getNumero, (ps, h) -> {
+                        ps.setInt(1, h.getNumero());
+                        ps.setString(2, h.getTipo());
+                        ps.setDouble(3, h.getPrecio());
+                        ps.setString(4, h.getEstado().name());
+                    }, cambios);
+        }
+    };
+
+    private final RepositorioClientes clientes = new RepositorioClientes() {
+        @Override
+        public List<Cliente> cargar() throws IOException {
+            return cargarClientes();
+        }
+
+        @Override
+        public void guardar(List<Cliente> lista, CambiosPendientes cambios)
+                throws IOException {
+            guardarTabla("clientes", "id",
+                    "INSERT INTO clientes (id, nombre, cedula, email, telefono) "
+                    + "VALUES (?, ?, ?, ?, ?)",
+                    lista, Cliente::getId, (ps, c) -> {
+                        ps.setInt(1, c.getId());
+                        ps.setString(2, c.getNombre());
+                        ps.setString(3, c.getCedula());
+                        ps.setString(4, c.getEmail());
+                        ps.setString(5, c.getTelefono());
+                    }, cambios);
+        }
+    };
+
+    private final RepositorioReservas reservas = new RepositorioReservas() {
+        @Override
+        public List<Reserva> cargar(List<Habitacion> habitaciones,
+                List<Cliente> clientes) throws IOException {
+            return cargarReservas(habitaciones, clientes);
+        }
+
+        @Override
+        public void guardar(List<Cliente> clientes, List<Reserva> lista,
+                CambiosPendientes cambios) throws IOException {
+            // El titular se guarda por cédula; los datos del cliente ya
+            // están en su propia tabla
+            guardarTabla("reservas", "id",
+                    "INSERT INTO reservas (id, fecha_inicio, fecha_fin, estado, "
+                    + "numero_habitacion, cedula, metodo_pago) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    lista, Reserva::getId, (ps, r) -> {
+                        ps.setInt(1, r.getId());
+                        ps.setObject(2, r.getFechaInicio());
+                        ps.setObject(3, r.getFechaFin());
+                        ps.setString(4, r.getEstado().name());
+                        ps.setInt(5, r.getHabitacion().getNumero());
+                        ps.setString(6, r.getCedulaCheckIn());
+                        ps.setString(7, r.getMetodoPago());
+                    }, cambios);
+        }
+    };
+
+    private final RepositorioFacturas facturas = new RepositorioFacturas() {
+        @Override
+        public List<Factura> cargar(List<Reserva> reservas) throws IOException {
+            return cargarFacturas(reservas);
+        }
+
+        @Override
+        public void guardar(List<Factura> lista, CambiosPendientes cambios)
+                throws IOException {
+            guardarTabla("facturas", "id",
+                    "INSERT INTO facturas (id, fecha, subtotal, iva, total, "
+                    + "metodo_pago, reserva_id, pagada) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    lista, Factura::getId, (ps, f) -> {
+                        ps.setInt(1, f.getId());
+                        ps.setObject(2, f.getFecha());
+                        ps.setDouble(3, f.getSubtotal());
+                        ps.setDouble(4, f.getIva());
+                        ps.setDouble(5, f.getTotal());
+                        ps.setString(6, f.getMetodoPago());
+                        ps.setInt(7, f.getReserva().getId());
+                        ps.setBoolean(8, f.estaPagada());
+                    }, cambios);
+        }
+    };
+
+    /**
+     * Abre (o crea) la base de datos y su esquema.
+     * @param url URL JDBC, p. ej. jdbc:h2:./datos/hotel
+     */
+    AlmacenamientoJdbc(String url, String usuario, String clave) throws IOException {
+        try {
+            conexion = DriverManager.getConnection(url, usuario, clave);
+            conexion.setAutoCommit(false);
+            try (Statement st = conexion.createStatement()) {
+                for (String ddl : ESQUEMA) st.executeUpdate(ddl);
+            }
+            conexion.commit();
+        } catch (SQLException e) {
+            throw new IOException("No se pudo abrir la base de datos " + url
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ================= CARGA =================
+
+    @Override
+    public synchronized Hotel cargarHotel() throws IOException {
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT nombre, direccion, telefono FROM hotel WHERE id = 1")) {
+            return rs.next() ? new Hotel(rs.getString(1), rs.getString(2),
+                    rs.getString(3)) : null;
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo hotel: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized List<Habitacion> cargarHabitaciones() throws IOException {
+        List<Habitacion> lista = new ArrayList<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT numero, tipo, precio, estado "
+                     + "FROM habitaciones ORDER BY numero")) {
+            while (rs.next()) {
+                try {
+                    lista.add(new Habitacion(rs.getInt(1), rs.getString(2),
+                            rs.getDouble(3), EstadoHabitacion.valueOf(rs.getString(4))));
+                } catch (IllegalArgumentException e) { System.err.println("Error hab: "
+                        + e.getMessage()); }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo habitaciones: " + e.getMessage(), e);
+        }
+        return lista;
+    }
+
+    private synchronized List<Cliente> cargarClientes() throws IOException {
+        List<Cliente> lista = new ArrayList<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, nombre, cedula, email, "
+                     + "telefono FROM clientes ORDER BY id")) {
+            while (rs.next()) {
+                lista.add(new Cliente(rs.getInt(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo clientes: " + e.getMessage(), e);
+        }
+        return lista;
+    }
+
+    // Igual que con los CSV, solo se cargan reservas con habitación y
+    // cliente existentes
+    private synchronized List<Reserva> cargarReservas(List<Habitacion> habitaciones,
+            List<Cliente> clientes) throws IOException {
+        Map<Integer, Habitacion> habitacionesPorNumero = new HashMap<>();
+        for (Habitacion h : habitaciones) habitacionesPorNumero.put(h.getNumero(), h);
+        Set<String> cedulas = new HashSet<>();
+        for (Cliente c : clientes) cedulas.add(claveCedula(c.getCedula()));
+
+        List<Reserva> lista = new ArrayList<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, fecha_inicio, fecha_fin, "
+                     + "estado, numero_habitacion, cedula, metodo_pago "
+                     + "FROM reservas ORDER BY id")) {
+            while (rs.next()) {
+                Habitacion h = habitacionesPorNumero.get(rs.getInt(5));
+                String cedula = rs.getString(6);
+                if (h == null || cedula == null || !cedulas.contains(claveCedula(cedula))) {
+                    continue;
+                }
+                try {
+                    lista.add(new Reserva(rs.getInt(1),
+                            rs.getObject(2, LocalDate.class),
+                            rs.getObject(3, LocalDate.class),
+                            EstadoReserva.valueOf(rs.getString(4)), h, cedula.trim(),
+                            rs.getString(7)));
+                } catch (IllegalArgumentException e) { System.err.println("Error reserva: "
+                        + e.getMessage()); }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo reservas: " + e.getMessage(), e);
+        }
+        return lista;
+    }
+
+    private synchronized List<Factura> cargarFacturas(List<Reserva> reservas)
+            throws IOException {
+        Map<Integer, Reserva> reservasPorId = new HashMap<>();
+        for (Reserva r : reservas) reservasPorId.put(r.getId(), r);
+
+        List<Factura> lista = new ArrayList<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id, fecha, subtotal, iva, total, "
+                     + "metodo_pago, reserva_id, pagada FROM facturas ORDER BY id")) {
+            while (rs.next()) {
+                Reserva reserva = reservasPorId.get(rs.getInt(7));
+                if (reserva == null) continue;
+                Factura f = new Factura(rs.getInt(1), rs.getObject(2, LocalDate.class),
+                        rs.getDouble(3), rs.getDouble(4), rs.getDouble(5),
+                        rs.getString(6), reserva);
+                if (rs.getBoolean(8)) f.pagar();
+                lista.add(f);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo facturas: " + e.getMessage(), e);
+        }
+        return lista;
+    }
+
+    private String claveCedula(String cedula) {
+        return cedula.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ================= GUARDADO =================
+
+    @Override
+    public void guardarHotel(Hotel hotel) throws IOException {
+        enGrupo(() -> {
+            try (Statement st = conexion.createStatement();
+                 PreparedStatement ps = conexion.prepareStatement(
+                         "INSERT INTO hotel (id, nombre, direccion, telefono) "
+                         + "VALUES (1, ?, ?, ?)")) {
+                st.executeUpdate("DELETE FROM hotel");
+                ps.setString(1, hotel.getNombre());
+                ps.setString(2, hotel.getDireccion());
+                ps.setString(3, hotel.getTelefono());
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                throw new IOException("Error guardando hotel: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Guardado completo: vacía la tabla e inserta todo. Incremental: borra
+     * las filas de los ids marcados y vuelve a insertar las que siguen
+     * existiendo. En ambos casos las sentencias van en lotes.
+     */
+    private <T> void guardarTabla(String tabla, String columnaId, String insercion,
+            List<T> entidades, ToIntFunction<T> clave, Vinculador<T> vinculador,
+            CambiosPendientes cambios) throws IOException {
+        enGrupo(() -> {
+            CambiosPendientes.Lote lote = cambios != null ? cambios.tomar() : null;
+            boolean completo = lote == null || lote.esTodo();
+            try {
+                if (completo) {
+                    try (Statement st = conexion.createStatement()) {
+                        st.executeUpdate("DELETE FROM " + tabla);
+                    }
+                } else {
+                    try (PreparedStatement ps = conexion.prepareStatement(
+                            "DELETE FROM " + tabla + " WHERE " + columnaId + " = ?")) {
+                        int pendientes = 0;
+                        for (int id : lote.ids.keySet()) {
+                            ps.setInt(1, id);
+                            ps.addBatch();
+                            if (++pendientes % TAM_LOTE == 0) ps.executeBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                try (PreparedStatement ps = conexion.prepareStatement(insercion)) {
+                    int pendientes = 0;
+                    for (T e : entidades) {
+                        if (!completo && !lote.ids.containsKey(clave.applyAsInt(e))) continue;
+                        vinculador.vincular(ps, e);
+                        ps.addBatch();
+                        if (++pendientes % TAM_LOTE == 0) ps.executeBatch();
+                    }
+                    ps.executeBatch();
+                }
+            } catch (SQLException e) {
+                throw new IOException("Error guardando " + tabla + ": "
+                        + e.getMessage(), e);
+            }
+            if (lote != null) trasConfirmar.add(() -> cambios.confirmar(lote));
+        });
+    }
+
+    @Override
+    public synchronized void enGrupo(PersistenciaDatos.OperacionGuardado operacion)
+            throws IOException {
+        if (enGrupo) {
+            operacion.ejecutar();
+            return;
+        }
+        enGrupo = true;
+        try {
+            operacion.ejecutar();
+            conexion.commit();
+            for (Runnable accion : trasConfirmar) accion.run();
+        } catch (SQLException e) {
+            deshacer();
+            throw new IOException("Error confirmando transacción: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            deshacer();
+            throw e;
+        } finally {
+            enGrupo = false;
+            trasConfirmar.clear();
+        }
+    }
+
+    // ================= MARCAS DE IDS =================
+
+    @Override
+    public synchronized Map<String, Integer> cargarMarcasIds() throws IOException {
+        Map<String, Integer> marcas = new HashMap<>();
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT secuencia, marca FROM marcas_ids")) {
+            while (rs.next()) marcas.put(rs.getString(1), rs.getInt(2));
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo marcas de ids: " + e.getMessage(), e);
+        }
+        return marcas;
+    }
+
+    @Override
+    public void guardarMarcaIds(String secuencia, int marca) throws IOException {
+        enGrupo(() -> {
+            try {
+                try (PreparedStatement ps = conexion.prepareStatement(
+                        "UPDATE marcas_ids SET marca = ? WHERE secuencia = ?")) {
+                    ps.setInt(1, marca);
+                    ps.setString(2, secuencia);
+                    if (ps.executeUpdate() > 0) return;
+                }
+                try (PreparedStatement ps = conexion.prepareStatement(
+                        "INSERT INTO marcas_ids (secuencia, marca) VALUES (?, ?)")) {
+                    ps.setString(1, secuencia);
+                    ps.setInt(2, marca);
+                    ps.executeUpdate();
+                }
+            } catch (SQLException e) {
+                throw new IOException("Error guardando marca de ids: " 
+                        + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void deshacer() {
+        try {
+            conexion.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error deshaciendo transacción: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public RepositorioHabitaciones habitaciones() { return habitaciones; }
+
+    @Override
+    public RepositorioClientes clientes() { return clientes; }
+
+    @Override
+    public RepositorioReservas reservas() { return reservas; }
+
+    @Override
+    public RepositorioFacturas facturas() { return facturas; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            throw new IOException("Error cerrando la base de datos: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Propuesta que se ofrece cuando la reserva pedida no está disponible:
+ * una habitación libre en [fechaInicio, fechaFin) y su distancia en días
+ * a la fecha de inicio pedida.
+ */
+public class AlternativaReserva {
+    private final Habitacion habitacion;
+    private final LocalDate fechaInicio;
+    private final LocalDate fechaFin;
+    private final long desplazamientoDias;
+
+    public AlternativaReserva(Habitacion habitacion, LocalDate fechaInicio,
+            LocalDate fechaFin, LocalDate inicioPedido) {
+        this.habitacion = habitacion;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.desplazamientoDias = ChronoUnit.DAYS.between(inicioPedido, fechaInicio);
+    }
+
+    public Habitacion getHabitacion() { return habitacion; }
+    public LocalDate getFechaInicio() { return fechaInicio; }
+    public LocalDate getFechaFin() { return fechaFin; }
+    /** Días de adelanto (negativo) o retraso (positivo) respecto a lo pedido. */
+    public long getDesplazamientoDias() { return desplazamientoDias; }
+
+    @Override
+    public String toString() {
+        String desplazamiento = desplazamientoDias == 0 ? "mismas fechas"
+                : String.format("%+d días", desplazamientoDias);
+        return String.format("Hab %d (%s, %.0f): %s -> %s (%s)", habitacion.getNumero(),
+                habitacion.getTipo(), habitacion.getPrecio(), fechaInicio, fechaFin,
+                desplazamiento);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Conjunto de datos repartido en segmentos de tamaño fijo por id
+ * (clientes-0001.csv guarda los ids 1..1000, clientes-0002.csv los
+ * 1001..2000, ...). Así un guardado solo reescribe los segmentos que
+ * contienen filas modificadas.
+ *
+ * Mientras no exista ningún segmento se sigue leyendo el archivo único
+ * anterior (clientes.csv); el primer guardado lo reparte y lo elimina.
+ */
+class ArchivoSegmentado {
+    static final int TAM_SEGMENTO = 1000;
+
+    private final Path directorio;
+    private final String nombre;
+    private final Path legado;
+
+    ArchivoSegmentado(Path directorio, String nombre) {
+        this.directorio = directorio;
+        this.nombre = nombre;
+        this.legado = directorio.resolve(nombre + ".csv");
+    }
+
+    /** Archivo único del formato anterior. */
+    Path legado() {
+        return legado;
+    }
+
+    // Los ids menores que 1 comparten el segmento 0
+    int segmentoDe(int id) {
+        return Math.max(0, Math.floorDiv(id - 1, TAM_SEGMENTO) + 1);
+    }
+
+    Path segmento(int numero) {
+        return directorio.resolve(String.format("%s-%04d.csv", nombre, numero));
+    }
+
+    /** Segmentos presentes en disco, ordenados por número. */
+    Map<Integer, Path> existentes() throws IOException {
+        Map<Integer, Path> segmentos = new TreeMap<>();
+        if (!Files.isDirectory(directorio)) return segmentos;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio,
+                nombre + "-*.csv")) {
+            for (Path archivo : archivos) {
+                int numero = numeroDe(archivo.getFileName().toString());
+                if (numero >= 0) segmentos.put(numero, archivo);
+            }
+        }
+        return segmentos;
+    }
+
+    /** Archivos a leer: los segmentos si hay alguno; si no, el archivo único. */
+    List<Path> archivosDeLectura() throws IOException {
+        List<Path> archivos = new ArrayList<>(existentes().values());
+        if (archivos.isEmpty() && Files.exists(legado)) archivos.add(legado);
+        return archivos;
+    }
+
+    // "clientes-0012.csv" -> 12; -1 si el nombre no es de un segmento
+    private int numeroDe(String archivo) {
+        String medio = archivo.substring(nombre.length() + 1, archivo.length() - 4);
+        if (medio.isEmpty()) return -1;
+        for (int i = 0; i < medio.length(); i++) {
+            if (medio.charAt(i) < '0' || medio.charAt(i) > '9') return -1;
+        }
+        try {
+            return Integer.parseInt(medio);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos por franjas para las operaciones de reserva: la habitación n usa
+ * el cerrojo n mod franjas (hotel.bloqueos.franjas), así que dos recepciones
+ * que reservan habitaciones distintas no se esperan entre sí salvo que
+ * coincidan de franja, y no hace falta un cerrojo global.
+ *
+ * Para un grupo de habitaciones los cerrojos se toman siempre en orden de
+ * franja, de modo que dos grupos no pueden interbloquearse.
+ */
+class BloqueosHabitacion {
+    private final ReentrantLock[] franjas;
+
+    BloqueosHabitacion(int cantidad) {
+        franjas = new ReentrantLock[Math.max(1, cantidad)];
+        for (int i = 0; i < franjas.length; i++) franjas[i] = new ReentrantLock();
+    }
+
+    private int franja(int numeroHabitacion) {
+        return Math.floorMod(numeroHabitacion, franjas.length);
+    }
+
+    /** Cerrojo de la habitación (sin tomar). */
+    Lock de(int numeroHabitacion) {
+        return franjas[franja(numeroHabitacion)];
+    }
+
+    /** Toma, en orden, los cerrojos de todas las habitaciones. */
+    List<Lock> tomar(Collection<Integer> numerosHabitacion) {
+        TreeSet<Integer> orden = new TreeSet<>();
+        for (int numero : numerosHabitacion) orden.add(franja(numero));
+        List<Lock> tomados = new ArrayList<>(orden.size());
+        try {
+            for (int f : orden) {
+                franjas[f].lock();
+                tomados.add(franjas[f]);
+            }
+        } catch (RuntimeException e) {
+            soltar(tomados);
+            throw e;
+        }
+        return tomados;
+    }
+
+    static void soltar(List<Lock> tomados) {
+        for (int i = tomados.size() - 1; i >= 0; i--) tomados.get(i).unlock();
+    }
+}
@@ -0,0 +1,119 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bus de eventos de cambio con un anillo de tamaño fijo (hotel.eventos.capacidad)
+ * y un único hilo despachador que entrega a los suscriptores en orden.
+ *
+ * Publicar no toma cerrojos: se reclama una secuencia con un contador
+ * atómico y se deja el evento en su casilla, así que quien reserva o factura
+ * no espera a los suscriptores salvo que el anillo esté lleno. Sin
+ * suscriptores publicar no cuesta nada.
+ *
+ * Los suscriptores corren en el hilo despachador y deben ser rápidos (la GUI
+ * pasa el trabajo a Swing). Lo que publiquen ellos mismos se entrega en el
+ * momento, sin pasar por el anillo, para no esperarse a sí mismo.
+ */
+public final class BusEventos {
+
+    public interface Suscriptor {
+        void alEvento(EventoHotel evento);
+    }
+
+    private final AtomicReferenceArray<EventoHotel> anillo;
+    private final int mascara;
+    private final AtomicLong siguiente = new AtomicLong();
+    private volatile long entregados;
+    private final List<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+    private final Thread despachador;
+    private volatile boolean dormido;
+    private volatile boolean cerrado;
+
+    public BusEventos(int capacidad) {
+        int tamanio = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.anillo = new AtomicReferenceArray<>(tamanio);
+        this.mascara = tamanio - 1;
+        this.despachador = Thread.ofPlatform().daemon().name("bus-eventos")
+                .start(this::despachar);
+    }
+
+    public void suscribir(Suscriptor suscriptor) {
+        suscriptores.add(suscriptor);
+    }
+
+    public void cancelarSuscripcion(Suscriptor suscriptor) {
+        suscriptores.remove(suscriptor);
+    }
+
+    /** Publica un cambio; solo espera si el anillo está lleno. */
+    public void publicar(EventoHotel.Tipo tipo, Object entidad) {
+        if (cerrado || suscriptores.isEmpty()) return;
+        if (Thread.currentThread() == despachador) {
+            entregar(new EventoHotel(-1, tipo, entidad));
+            return;
+        }
+        long secuencia = siguiente.getAndIncrement();
+        while (secuencia - entregados >= anillo.length()) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        anillo.set((int) (secuencia & mascara), new EventoHotel(secuencia, tipo, entidad));
+        if (dormido) LockSupport.unpark(despachador);
+    }
+
+    /** Espera a que se entregue todo lo publicado hasta ahora. */
+    public void esperarEntrega() {
+        long hasta = siguiente.get();
+        while (entregados < hasta && despachador.isAlive()) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /** Entrega lo pendiente y detiene el despachador. */
+    public void cerrar() {
+        cerrado = true;
+        LockSupport.unpark(despachador);
+        try {
+            despachador.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void despachar() {
+        long secuencia = 0;
+        while (true) {
+            int casilla = (int) (secuencia & mascara);
+            EventoHotel evento = anillo.get(casilla);
+            if (evento == null) {
+                if (cerrado && siguiente.get() == secuencia) return;
+                // Se marca dormido y se vuelve a mirar para no perder el aviso
+                dormido = true;
+                if (anillo.get(casilla) == null) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                dormido = false;
+                continue;
+            }
+            anillo.set(casilla, null);
+            entregar(evento);
+            entregados = ++secuencia;
+        }
+    }
+
+    private void entregar(EventoHotel evento) {
+        for (Suscriptor s : suscriptores) {
+            try {
+                s.alEvento(evento);
+            } catch (RuntimeException e) {
+                System.err.println("Error en suscriptor de eventos (" + evento + "): "
+                        + e.getMessage());
+            }
+        }
+    }
+}
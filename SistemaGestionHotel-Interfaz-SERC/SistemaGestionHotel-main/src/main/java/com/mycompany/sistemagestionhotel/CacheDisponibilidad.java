@@ -0,0 +1,104 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Caché LRU de consultas de disponibilidad, por rango de fechas y filtro.
+ * No caduca por tiempo: GestionHabitaciones invalida solo las entradas a las
+ * que afecta cada cambio (una estancia que solapa su rango o una habitación
+ * cuyo estado o precio cambia su resultado).
+ *
+ * Cada invalidación sube la generación; un resultado calculado antes de la
+ * última invalidación no se guarda, para no dejar en caché algo ya viejo.
+ */
+class CacheDisponibilidad {
+
+    /** Rango consultado (null si la búsqueda no tiene fechas) y filtro. */
+    record Clave(LocalDate inicio, LocalDate fin, String filtro) {}
+
+    static final class Entrada {
+        final Clave clave;
+        final CriteriosBusqueda criterios;  // null = buscarHabitacionesDisponibles
+        final List<Habitacion> resultado;
+        private final Set<Integer> numeros = new HashSet<>();
+
+        private Entrada(Clave clave, CriteriosBusqueda criterios, List<Habitacion> resultado) {
+            this.clave = clave;
+            this.criterios = criterios;
+            this.resultado = List.copyOf(resultado);
+            for (Habitacion h : resultado) numeros.add(h.getNumero());
+        }
+
+        boolean contiene(Habitacion h) {
+            return numeros.contains(h.getNumero());
+        }
+    }
+
+    private final int capacidad;
+    private final LinkedHashMap<Clave, Entrada> entradas;
+    private long generacion;
+    private long aciertos;
+    private long fallos;
+
+    CacheDisponibilidad(int capacidad) {
+        this.capacidad = Math.max(0, capacidad);
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> mayor) {
+                return size() > CacheDisponibilidad.this.capacidad;
+            }
+        };
+    }
+
+    /** Resultado guardado para la clave, o null (y cuenta un fallo). */
+    synchronized List<Habitacion> buscar(Clave clave) {
+        Entrada e = capacidad > 0 ? entradas.get(clave) : null;
+        if (e == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return e.resultado;
+    }
+
+    /** Generación actual; se pasa a guardar junto con el resultado. */
+    synchronized long generacion() {
+        return generacion;
+    }
+
+    synchronized void guardar(Clave clave, CriteriosBusqueda criterios,
+            List<Habitacion> resultado, long calculadoEn) {
+        if (capacidad == 0 || calculadoEn != generacion) return;
+        entradas.put(clave, new Entrada(clave, criterios, resultado));
+    }
+
+    /**
+     * Quita las búsquedas con fechas cuyo rango solapa [inicio, fin), con el
+     * mismo criterio que IndiceEstancias.
+     */
+    synchronized void invalidarFechas(LocalDate inicio, LocalDate fin) {
+        generacion++;
+        entradas.values().removeIf(e -> e.clave.inicio() != null
+                && e.clave.inicio().isBefore(fin) && inicio.isBefore(e.clave.fin()));
+    }
+
+    synchronized void invalidarSi(Predicate<Entrada> afectada) {
+        generacion++;
+        entradas.values().removeIf(afectada);
+    }
+
+    synchronized void vaciar() {
+        generacion++;
+        entradas.clear();
+    }
+
+    synchronized long getAciertos() { return aciertos; }
+    synchronized long getFallos() { return fallos; }
+    synchronized int getTamanio() { return entradas.size(); }
+}
@@ -0,0 +1,159 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Calendario de ocupación por noches sobre un horizonte móvil (desde un mes
+ * atrás hasta hotel.calendario.dias por delante). Se guarda dos veces:
+ *  - un BitSet por habitación indexado por día, para consultas de una sola
+ *    habitación;
+ *  - un BitSet por día indexado por habitación, de modo que "qué habitaciones
+ *    están libres todas las noches de X a Y" es un OR palabra a palabra de
+ *    esas noches y "cuántas hay libres cada día" es un popcount.
+ *
+ * Una reserva [inicio, fin) ocupa las noches inicio .. fin-1. Las consultas
+ * fuera del horizonte las resuelve el llamador con IndiceEstancias.
+ */
+class CalendarioOcupacion {
+    static final int MARGEN_PASADO = 31;
+
+    private final int dias;
+    private long origen;                    // epochDay de la posición 0
+    private final Map<Integer, Integer> posiciones = new HashMap<>();
+    private final List<BitSet> porHabitacion = new ArrayList<>();
+    private BitSet[] porDia;
+
+    CalendarioOcupacion(int dias) {
+        this.dias = dias;
+        reiniciar(hoy());
+    }
+
+    private static long hoy() {
+        return LocalDate.now().toEpochDay();
+    }
+
+    private void reiniciar(long diaActual) {
+        origen = diaActual - MARGEN_PASADO;
+        porDia = new BitSet[dias];
+        for (int i = 0; i < dias; i++) porDia[i] = new BitSet();
+        for (BitSet b : porHabitacion) b.clear();
+    }
+
+    /**
+     * Con el paso del tiempo el horizonte se queda atrás; cuando ha avanzado
+     * más de un margen se recoloca y se vuelve a llenar con las estancias
+     * activas.
+     */
+    synchronized boolean avanzarSiHaceFalta(Supplier<Collection<Reserva>> activas) {
+        long diaActual = hoy();
+        if (diaActual - origen <= 2L * MARGEN_PASADO) return false;
+        reiniciar(diaActual);
+        for (Reserva r : activas.get()) ocupar(r);
+        return true;
+    }
+
+    /**
+     * Indica si todas las noches de [inicio, fin) caen dentro del horizonte.
+     * Los rangos sin noches se dejan al índice, que conserva el criterio de
+     * solapamiento de siempre.
+     */
+    synchronized boolean cubre(LocalDate inicio, LocalDate fin) {
+        long a = inicio.toEpochDay();
+        long b = fin.toEpochDay();
+        return a < b && a >= origen && b <= origen + dias;
+    }
+
+    private int posicion(int numeroHabitacion) {
+        Integer pos = posiciones.get(numeroHabitacion);
+        if (pos == null) {
+            pos = porHabitacion.size();
+            posiciones.put(numeroHabitacion, pos);
+            porHabitacion.add(new BitSet(dias));
+        }
+        return pos;
+    }
+
+    // Noches de la estancia recortadas al horizonte: {desde, hasta}
+    private int[] rango(LocalDate inicio, LocalDate fin) {
+        long a = Math.max(inicio.toEpochDay() - origen, 0);
+        long b = Math.min(fin.toEpochDay() - origen, dias);
+        return new int[]{(int) a, (int) Math.max(a, b)};
+    }
+
+    synchronized void ocupar(Reserva r) {
+        marcar(r, true);
+    }
+
+    /**
+     * Borra las noches de la reserva. Si otras estancias activas de la misma
+     * habitación compartían noches, el llamador las vuelve a ocupar.
+     */
+    synchronized void liberar(Reserva r) {
+        marcar(r, false);
+    }
+
+    private void marcar(Reserva r, boolean ocupada) {
+        int[] noches = rango(r.getFechaInicio(), r.getFechaFin());
+        if (noches[0] >= noches[1]) return;
+        int pos = posicion(r.getHabitacion().getNumero());
+        porHabitacion.get(pos).set(noches[0], noches[1], ocupada);
+        for (int d = noches[0]; d < noches[1]; d++) porDia[d].set(pos, ocupada);
+    }
+
+    /** Consulta de una habitación: algún bit encendido en [inicio, fin). */
+    synchronized boolean estaOcupada(int numeroHabitacion, LocalDate inicio, LocalDate fin) {
+        Integer pos = posiciones.get(numeroHabitacion);
+        if (pos == null) return false;
+        int[] noches = rango(inicio, fin);
+        int primera = porHabitacion.get(pos).nextSetBit(noches[0]);
+        return primera >= 0 && primera < noches[1];
+    }
+
+    /**
+     * Filtra las habitaciones libres todas las noches de [inicio, fin):
+     * un OR de los bitsets de esas noches da las ocupadas en alguna.
+     */
+    synchronized List<Habitacion> libres(List<Habitacion> candidatas, LocalDate inicio,
+            LocalDate fin) {
+        int[] noches = rango(inicio, fin);
+        BitSet ocupadas = new BitSet(porHabitacion.size());
+        for (int d = noches[0]; d < noches[1]; d++) ocupadas.or(porDia[d]);
+
+        List<Habitacion> resultado = new ArrayList<>();
+        for (Habitacion h : candidatas) {
+            Integer pos = posiciones.get(h.getNumero());
+            if (pos == null || !ocupadas.get(pos)) resultado.add(h);
+        }
+        return resultado;
+    }
+
+    /**
+     * Habitaciones del conjunto dado ocupadas cada noche de [desde, hasta),
+     * contadas con popcount.
+     */
+    synchronized int[] ocupadasPorDia(List<Habitacion> habitaciones, LocalDate desde,
+            LocalDate hasta) {
+        BitSet mascara = new BitSet(porHabitacion.size());
+        for (Habitacion h : habitaciones) {
+            Integer pos = posiciones.get(h.getNumero());
+            if (pos != null) mascara.set(pos);
+        }
+        int[] noches = rango(desde, hasta);
+        int[] ocupadas = new int[noches[1] - noches[0]];
+        BitSet dia = new BitSet(porHabitacion.size());
+        for (int d = noches[0]; d < noches[1]; d++) {
+            dia.clear();
+            dia.or(porDia[d]);
+            dia.and(mascara);
+            ocupadas[d - noches[0]] = dia.cardinality();
+        }
+        return ocupadas;
+    }
+}
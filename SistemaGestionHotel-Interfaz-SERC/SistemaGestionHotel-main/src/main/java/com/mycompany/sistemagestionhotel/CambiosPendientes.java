@@ -0,0 +1,58 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro de las entidades modificadas desde el último guardado (por id, o
+ * por número en el caso de las habitaciones). Cada marca lleva una
+ * generación: al confirmar un guardado solo se descartan las marcas que no
+ * han vuelto a cambiar mientras se escribía.
+ */
+public class CambiosPendientes {
+
+    /** Marcas tomadas para un guardado concreto. */
+    static final class Lote {
+        final long todoDesde;
+        final Map<Integer, Long> ids;
+
+        private Lote(long todoDesde, Map<Integer, Long> ids) {
+            this.todoDesde = todoDesde;
+            this.ids = ids;
+        }
+
+        boolean esTodo() {
+            return todoDesde != 0;
+        }
+    }
+
+    private final Map<Integer, Long> ids = new HashMap<>();
+    private long todoDesde;     // generación de la última marca completa, 0 = ninguna
+    private long generacion;
+
+    public synchronized void marcar(int id) {
+        ids.put(id, ++generacion);
+    }
+
+    /** Obliga a reescribir el conjunto completo en el próximo guardado. */
+    public synchronized void marcarTodo() {
+        todoDesde = ++generacion;
+    }
+
+    /** Si el próximo guardado tiene que reescribir el conjunto completo. */
+    synchronized boolean pideTodo() {
+        return todoDesde != 0;
+    }
+
+    synchronized Lote tomar() {
+        return new Lote(todoDesde, new HashMap<>(ids));
+    }
+
+    /** Descarta las marcas ya persistidas que no cambiaron desde tomar(). */
+    synchronized void confirmar(Lote lote) {
+        for (Map.Entry<Integer, Long> e : lote.ids.entrySet()) {
+            ids.remove(e.getKey(), e.getValue());
+        }
+        if (lote.esTodo() && todoDesde == lote.todoDesde) todoDesde = 0;
+    }
+}
@@ -1,11 +1,12 @@
 package com.mycompany.sistemagestionhotel;
 
 public class Cliente {
-    private int id;
-    private String nombre;
-    private String cedula;
-    private String email;
-    private String telefono;
+    private volatile int id;
+    private volatile String nombre;
+    private volatile String cedula;
+    private volatile String email;
+    private volatile String telefono;
+    private final Version version = new Version();
 
     public Cliente(int id, String nombre, String cedula, 
             String email, String telefono) {
@@ -21,7 +22,7 @@ public class Cliente {
     }
 
     public void setId(int id) {
-        this.id = id;
+        version.escribir(() -> this.id = id);
     }
 
     public String getNombre() {
@@ -29,7 +30,7 @@ public class Cliente {
     }
 
     public void setNombre(String nombre) {
-        this.nombre = nombre;
+        version.escribir(() -> this.nombre = nombre);
     }
 
     public String getCedula() {
@@ -37,7 +38,7 @@ public class Cliente {
     }
 
     public void setCedula(String cedula) {
-        this.cedula = cedula;
+        version.escribir(() -> this.cedula = cedula);
     }
 
     public String getEmail() {
@@ -45,7 +46,7 @@ public class Cliente {
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        version.escribir(() -> this.email = email);
     }
 
     public String getTelefono() {
@@ -53,12 +54,46 @@ public class Cliente {
     }
 
     public void setTelefono(String telefono) {
-        this.telefono = telefono;
+        version.escribir(() -> this.telefono = telefono);
+    }
+
+    /** Versión para ediciones optimistas; sube con cada cambio. */
+    public long getVersion() {
+        return version.actual();
+    }
+
+    /** Copia suelta con los valores de un mismo instante y su misma versión. */
+    Cliente copia() {
+        return version.leer(sello -> {
+            Cliente c = new Cliente(id, nombre, cedula, email, telefono);
+            c.version.igualar(sello);
+            return c;
+        });
+    }
+
+    long sello() {
+        return version.sello();
+    }
+
+    /**
+     * Cambia los datos de contacto (null = sin cambios) solo si nadie ha
+     * modificado el cliente desde que se leyó su versión.
+     */
+    void actualizar(long versionEsperada, String nombre, String email,
+            String telefono) {
+        version.actualizar(versionEsperada, () -> {
+            if (nombre != null) this.nombre = nombre;
+            if (email != null) this.email = email;
+            if (telefono != null) this.telefono = telefono;
+        });
     }
 
     // Persistencia sencilla a CSV
     public String toCsv() {
-        return id + ";" + nombre + ";" + cedula + ";" + email + ";" + telefono;
+        return id + ";" + PersistenciaDatos.escapeCsv(nombre) + ";" 
+                + PersistenciaDatos.escapeCsv(cedula) + ";" 
+                + PersistenciaDatos.escapeCsv(email) + ";" 
+                + PersistenciaDatos.escapeCsv(telefono);
     }
 
     public static Cliente fromCsv(String linea) {
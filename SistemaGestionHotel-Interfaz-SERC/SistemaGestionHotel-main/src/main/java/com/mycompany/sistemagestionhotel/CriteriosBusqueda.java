@@ -0,0 +1,88 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDate;
+
+/**
+ * Criterios para GestionHabitaciones.buscarHabitaciones. Todos son 
+ * opcionales: un criterio en null (o un límite de 0) no filtra.
+ */
+public class CriteriosBusqueda {
+
+    public enum Orden {
+        NUMERO,
+        PRECIO_ASCENDENTE,
+        PRECIO_DESCENDENTE
+    }
+
+    private String tipo;
+    private Double precioMinimo;
+    private Double precioMaximo;
+    private EstadoHabitacion estado;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private Orden orden = Orden.NUMERO;
+    private int limite;
+
+    public String getTipo() { return tipo; }
+    /** Tipo de habitación, sin distinguir mayúsculas. */
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public Double getPrecioMinimo() { return precioMinimo; }
+    public void setPrecioMinimo(Double precioMinimo) { this.precioMinimo 
+            = precioMinimo; }
+
+    public Double getPrecioMaximo() { return precioMaximo; }
+    public void setPrecioMaximo(Double precioMaximo) { this.precioMaximo 
+            = precioMaximo; }
+
+    public EstadoHabitacion getEstado() { return estado; }
+    public void setEstado(EstadoHabitacion estado) { this.estado = estado; }
+
+    public LocalDate getFechaInicio() { return fechaInicio; }
+    public LocalDate getFechaFin() { return fechaFin; }
+    /** Noches en las que la habitación debe estar libre: [inicio, fin). */
+    public void setFechas(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("Indique ambas fechas.");
+        }
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede "
+                    + "ser anterior a la de inicio.");
+        }
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+    }
+
+    public Orden getOrden() { return orden; }
+    public void setOrden(Orden orden) { this.orden = orden == null 
+            ? Orden.NUMERO : orden; }
+
+    public int getLimite() { return limite; }
+    /** Máximo de resultados; 0 = sin límite. */
+    public void setLimite(int limite) {
+        if (limite < 0) throw new IllegalArgumentException("El límite no puede "
+                + "ser negativo.");
+        this.limite = limite;
+    }
+
+    // Copia para guardar en caché sin que cambios posteriores la alteren
+    CriteriosBusqueda copia() {
+        CriteriosBusqueda c = new CriteriosBusqueda();
+        c.tipo = tipo;
+        c.precioMinimo = precioMinimo;
+        c.precioMaximo = precioMaximo;
+        c.estado = estado;
+        c.fechaInicio = fechaInicio;
+        c.fechaFin = fechaFin;
+        c.orden = orden;
+        c.limite = limite;
+        return c;
+    }
+
+    // Criterios que no son fechas, como clave de caché
+    String filtro() {
+        return (tipo == null ? "*" : IndiceHabitaciones.claveTipo(tipo)) + "|" 
+                + precioMinimo + "|" + precioMaximo + "|" + estado + "|" 
+                + orden + "|" + limite;
+    }
+}
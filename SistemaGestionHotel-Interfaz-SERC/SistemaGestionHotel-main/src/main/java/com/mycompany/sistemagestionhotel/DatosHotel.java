@@ -1,23 +1,54 @@
 package com.mycompany.sistemagestionhotel;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Datos en memoria. Habitaciones y clientes (pocos y casi fijos) se guardan 
+ * como CopyOnWriteArrayList; reservas y facturas, que crecen con cada 
+ * operación, en un RegistroPorId: agregar no copia la lista y se buscan por
+ * id sin recorrerla. En todos los casos varias recepciones pueden agregar 
+ * mientras otras (y el hilo escritor) las recorren sin bloquear; los setters
+ * envuelven la lista recibida.
+ */
 public class DatosHotel {
     private Hotel hotel;
     private List<Habitacion> habitaciones;
     private List<Cliente> clientes;
-    private List<Reserva> reservas;
-    private List<Factura> facturas;
-    private int nextClienteId = 1;
-    private int nextReservaId = 1;
-    private int nextFacturaId = 1;
+    private RegistroPorId<Reserva> reservas;
+    // Facturas por id y por la reserva que facturan
+    private RegistroPorId<Factura> facturas;
+    // Secuencias de ids: atómicas, por bloques y con marca persistida
+    private final GeneradorIds idsClientes = new GeneradorIds("clientes");
+    private final GeneradorIds idsReservas = new GeneradorIds("reservas");
+    private final GeneradorIds idsFacturas = new GeneradorIds("facturas");
+
+    // Entidades modificadas desde el último guardado (guardado incremental)
+    private final CambiosPendientes cambiosClientes = new CambiosPendientes();
+    private final CambiosPendientes cambiosHabitaciones = new CambiosPendientes();
+    private final CambiosPendientes cambiosReservas = new CambiosPendientes();
+    private final CambiosPendientes cambiosFacturas = new CambiosPendientes();
 
     public DatosHotel() {
-        this.habitaciones = new ArrayList<>();
-        this.clientes = new ArrayList<>();
-        this.reservas = new ArrayList<>();
-        this.facturas = new ArrayList<>();
+        this.habitaciones = new CopyOnWriteArrayList<>();
+        this.clientes = new CopyOnWriteArrayList<>();
+        this.reservas = registroReservas(List.of());
+        this.facturas = registroFacturas(List.of());
+    }
+
+    private static RegistroPorId<Reserva> registroReservas(List<Reserva> reservas) {
+        if (reservas instanceof RegistroPorId<Reserva> registro) return registro;
+        return new RegistroPorId<>(Reserva::getId, null, reservas);
+    }
+
+    private static RegistroPorId<Factura> registroFacturas(List<Factura> facturas) {
+        if (facturas instanceof RegistroPorId<Factura> registro) return registro;
+        return new RegistroPorId<>(Factura::getId, f -> f.getReserva().getId(), facturas);
+    }
+
+    private static <T> List<T> concurrente(List<T> lista) {
+        if (lista == null || lista instanceof CopyOnWriteArrayList) return lista;
+        return new CopyOnWriteArrayList<>(lista);
     }
 
     // Getters y Setters
@@ -27,29 +58,50 @@ public class DatosHotel {
 
     public List<Habitacion> getHabitaciones() { return habitaciones; }
     public void setHabitaciones(List<Habitacion> habitaciones) 
-    { this.habitaciones = habitaciones; }
+    { this.habitaciones = concurrente(habitaciones); }
 
     public List<Cliente> getClientes() { return clientes; }
     public void setClientes(List<Cliente> clientes) { this.clientes 
-            = clientes; }
+            = concurrente(clientes); }
 
     public List<Reserva> getReservas() { return reservas; }
     public void setReservas(List<Reserva> reservas) { this.reservas 
-            = reservas; }
+            = reservas == null ? null : registroReservas(reservas); }
 
     public List<Factura> getFacturas() { return facturas; }
     public void setFacturas(List<Factura> facturas) { this.facturas 
-            = facturas; }
+            = facturas == null ? null : registroFacturas(facturas); }
+
+    /** Reserva o factura por id, o null; sin recorrer la lista. */
+    public Reserva buscarReserva(int id) { return reservas.buscar(id); }
+    public Factura buscarFactura(int id) { return facturas.buscar(id); }
+
+    /** Factura de la reserva, o null si aún no se ha facturado. */
+    public Factura getFacturaDeReserva(int reservaId) {
+        return facturas.buscarPorSecundaria(reservaId);
+    }
+
+    /** Siguiente id sin entregar (informativo: puede haber bloques repartidos). */
+    public int getNextClienteId() { return idsClientes.consultar(); }
+    public int getNextReservaId() { return idsReservas.consultar(); }
+    public int getNextFacturaId() { return idsFacturas.consultar(); }
+
+    public int tomarIdCliente() { return idsClientes.tomar(); }
+    public int tomarIdReserva() { return idsReservas.tomar(); }
+    public int tomarIdFactura() { return idsFacturas.tomar(); }
 
-    public int getNextClienteId() { return nextClienteId; }
-    public void setNextClienteId(int nextClienteId) { this.nextClienteId 
-            = nextClienteId; }
+    /**
+     * Reserva de una vez cantidad ids consecutivos de reserva.
+     * @return el primero de ellos.
+     */
+    public int tomarIdsReserva(int cantidad) { return idsReservas.tomar(cantidad); }
 
-    public int getNextReservaId() { return nextReservaId; }
-    public void setNextReservaId(int nextReservaId) { this.nextReservaId 
-            = nextReservaId; }
+    GeneradorIds getIdsClientes() { return idsClientes; }
+    GeneradorIds getIdsReservas() { return idsReservas; }
+    GeneradorIds getIdsFacturas() { return idsFacturas; }
 
-    public int getNextFacturaId() { return nextFacturaId; }
-    public void setNextFacturaId(int nextFacturaId) { this.nextFacturaId 
-            = nextFacturaId; }
+    public CambiosPendientes getCambiosClientes() { return cambiosClientes; }
+    public CambiosPendientes getCambiosHabitaciones() { return cambiosHabitaciones; }
+    public CambiosPendientes getCambiosReservas() { return cambiosReservas; }
+    public CambiosPendientes getCambiosFacturas() { return cambiosFacturas; }
 }
\ No newline at end of file
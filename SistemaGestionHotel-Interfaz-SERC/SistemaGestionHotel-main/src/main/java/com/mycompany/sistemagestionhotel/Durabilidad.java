@@ -0,0 +1,9 @@
+package com.mycompany.sistemagestionhotel;
+
+/**
+ * Cuándo debe llegar a disco un cambio pedido con guardar*.
+ */
+public enum Durabilidad {
+    DIFERIDA,   // se agrupa con otros cambios y lo escribe el hilo escritor
+    INMEDIATA   // se escribe (junto con lo pendiente) antes de volver
+}
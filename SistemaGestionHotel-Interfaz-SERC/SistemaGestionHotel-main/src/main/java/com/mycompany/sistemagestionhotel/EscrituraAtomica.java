@@ -0,0 +1,204 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reemplazo de archivos a prueba de caídas. Cada archivo se escribe primero
+ * en un temporal del mismo directorio y solo al confirmar se sincroniza y se
+ * mueve de forma atómica sobre el destino, así que un corte a mitad de
+ * escritura deja el archivo anterior intacto en lugar de uno truncado.
+ *
+ * Un mismo grupo puede contener varios archivos: al confirmar se fuerzan
+ * todos a disco en una sola barrera, se renombran y se sincroniza el
+ * directorio una única vez. Los renombrados de varios archivos no son un
+ * único paso atómico, así que antes de hacerlos se deja un manifiesto con
+ * la lista: si el proceso cae o un renombrado falla a medias, recuperar()
+ * termina el grupo en la siguiente carga y no quedan archivos de momentos
+ * distintos.
+ */
+class EscrituraAtomica implements Closeable {
+
+    interface Contenido {
+        void escribir(Writer salida) throws IOException;
+    }
+
+    private static class Pendiente {
+        final Path temporal;
+        final Path destino;
+        final FileChannel canal;
+
+        Pendiente(Path temporal, Path destino, FileChannel canal) {
+            this.temporal = temporal;
+            this.destino = destino;
+            this.canal = canal;
+        }
+    }
+
+    // Grupo confirmado cuyos renombrados pueden estar a medias
+    static final String MANIFIESTO = ".grupo-confirmado";
+
+    private final List<Pendiente> pendientes = new ArrayList<>();
+    private boolean confirmado;
+
+    /** Reemplaza un solo archivo (grupo de uno). */
+    static void escribir(Path destino, List<String> lineas) throws IOException {
+        try (EscrituraAtomica grupo = new EscrituraAtomica()) {
+            grupo.agregar(destino, lineas);
+            grupo.confirmar();
+        }
+    }
+
+    static void escribir(Path destino, Contenido contenido) throws IOException {
+        try (EscrituraAtomica grupo = new EscrituraAtomica()) {
+            grupo.agregar(destino, contenido);
+            grupo.confirmar();
+        }
+    }
+
+    void agregar(Path destino, List<String> lineas) throws IOException {
+        agregar(destino, salida -> {
+            for (String linea : lineas) {
+                salida.write(linea);
+                salida.write(System.lineSeparator());
+            }
+        });
+    }
+
+    /**
+     * Escribe el contenido en un temporal junto al destino. Si la escritura
+     * falla, el temporal se borra y el grupo no lo incluye.
+     */
+    void agregar(Path destino, Contenido contenido) throws IOException {
+        Path dir = destino.toAbsolutePath().getParent();
+        // Se crea con los permisos por defecto (createTempFile los restringe)
+        Path temporal = dir.resolve("." + destino.getFileName() + "." 
+                + Long.toHexString(System.nanoTime()) + ".tmp");
+        FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        try {
+            // No se cierra el Writer: cerraría el canal antes de forzarlo
+            Writer salida = new BufferedWriter(Channels.newWriter(canal,
+                    StandardCharsets.UTF_8.newEncoder(), 1 << 16), 1 << 16);
+            contenido.escribir(salida);
+            salida.flush();
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        pendientes.add(new Pendiente(temporal, destino, canal));
+    }
+
+    /**
+     * Barrera de durabilidad del grupo: fsync de todos los temporales,
+     * manifiesto (si hay más de un archivo), renombrado atómico de cada uno 
+     * y un fsync final por directorio. Una vez escrito el manifiesto el 
+     * grupo cuenta como confirmado: si después falla un renombrado, los 
+     * temporales se conservan para que recuperar() lo complete.
+     */
+    void confirmar() throws IOException {
+        for (Pendiente p : pendientes) p.canal.force(true);
+        for (Pendiente p : pendientes) p.canal.close();
+        Path manifiesto = null;
+        if (pendientes.size() > 1) {
+            manifiesto = escribirManifiesto(
+                    pendientes.get(0).destino.toAbsolutePath().getParent());
+        }
+        confirmado = true;
+        for (Pendiente p : pendientes) {
+            Files.move(p.temporal, p.destino, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        Set<Path> directorios = new LinkedHashSet<>();
+        for (Pendiente p : pendientes) directorios.add(p.destino.toAbsolutePath().getParent());
+        for (Path dir : directorios) sincronizarDirectorio(dir);
+        if (manifiesto != null) {
+            Files.delete(manifiesto);
+            sincronizarDirectorio(manifiesto.getParent());
+        }
+    }
+
+    // Una línea "temporal<TAB>destino" por archivo, relativas al directorio 
+    // del manifiesto. Se escribe en un temporal y se renombra, así que o 
+    // está entero o no está. Un grupo anterior sin terminar se completa antes
+    private Path escribirManifiesto(Path dir) throws IOException {
+        recuperar(dir);
+        StringBuilder texto = new StringBuilder();
+        for (Pendiente p : pendientes) {
+            texto.append(dir.relativize(p.temporal.toAbsolutePath())).append('\t')
+                    .append(dir.relativize(p.destino.toAbsolutePath())).append('\n');
+        }
+        Path manifiesto = dir.resolve(MANIFIESTO);
+        Path temporal = dir.resolve(MANIFIESTO + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            canal.write(StandardCharsets.UTF_8.encode(texto.toString()));
+            canal.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, manifiesto, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        sincronizarDirectorio(dir);
+        return manifiesto;
+    }
+
+    /**
+     * Termina el grupo confirmado que quedó a medias en dir (caída o fallo 
+     * durante los renombrados): mueve los temporales que aún existan sobre 
+     * sus destinos y borra el manifiesto. Sin manifiesto no hace nada.
+     */
+    static void recuperar(Path dir) throws IOException {
+        Path manifiesto = dir.resolve(MANIFIESTO);
+        if (!Files.exists(manifiesto)) return;
+        for (String linea : Files.readAllLines(manifiesto, StandardCharsets.UTF_8)) {
+            int separador = linea.indexOf('\t');
+            if (separador < 0) continue;
+            Path temporal = dir.resolve(linea.substring(0, separador));
+            Path destino = dir.resolve(linea.substring(separador + 1));
+            // Si ya no está, ese renombrado se hizo antes del corte
+            if (Files.exists(temporal)) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        sincronizarDirectorio(dir);
+        Files.delete(manifiesto);
+        sincronizarDirectorio(dir);
+    }
+
+    // Hace durable el renombrado; en sistemas que no lo permiten se ignora
+    private static void sincronizarDirectorio(Path dir) {
+        try (FileChannel canal = FileChannel.open(dir, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // p. ej. Windows no permite abrir directorios como canal
+        }
+    }
+
+    /** Si el grupo no se confirmó, descarta los temporales. */
+    @Override
+    public void close() throws IOException {
+        if (confirmado) return;
+        for (Pendiente p : pendientes) {
+            if (p.canal.isOpen()) p.canal.close();
+            Files.deleteIfExists(p.temporal);
+        }
+        pendientes.clear();
+    }
+}
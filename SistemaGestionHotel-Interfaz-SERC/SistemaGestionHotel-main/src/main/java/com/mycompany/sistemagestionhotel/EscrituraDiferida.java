@@ -0,0 +1,188 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura diferida de los archivos de datos. Cada guardar* solo marca su 
+ * conjunto como sucio; un único hilo escritor vuelca los conjuntos sucios 
+ * cuando pasa el intervalo o se acumulan tamLote cambios, de modo que muchas
+ * peticiones seguidas se convierten en una sola reescritura por archivo.
+ */
+class EscrituraDiferida {
+
+    enum Conjunto { HABITACIONES, CLIENTES, RESERVAS, FACTURAS }
+
+    interface Escritor {
+        void escribir() throws IOException;
+    }
+
+    /** Envuelve un volcado para que todos sus archivos se confirmen juntos. */
+    interface Agrupador {
+        void enGrupo(Escritor volcado) throws IOException;
+    }
+
+    private final Map<Conjunto, Escritor> escritores;
+    private final Agrupador agrupador;
+    private final long intervaloMs;
+    private final int tamLote;
+    private final ScheduledExecutorService hilo;
+
+    private final EnumSet<Conjunto> sucios = EnumSet.noneOf(Conjunto.class);
+    private int cambiosPendientes;
+    private boolean programado;
+
+    /**
+     * @param intervaloMs espera máxima antes de escribir; 0 o menos desactiva 
+     * la escritura diferida y cada cambio se escribe en el momento.
+     */
+    EscrituraDiferida(Map<Conjunto, Escritor> escritores, Agrupador agrupador,
+            long intervaloMs, int tamLote) {
+        this.escritores = new EnumMap<>(escritores);
+        this.agrupador = agrupador;
+        this.intervaloMs = intervaloMs;
+        this.tamLote = Math.max(1, tamLote);
+        if (intervaloMs > 0) {
+            this.hilo = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "escritor-diferido");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.hilo = null;
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException si la durabilidad es INMEDIATA y el 
+     * cambio no llegó a disco (queda marcado para el próximo volcado).
+     */
+    void marcar(Conjunto conjunto, Durabilidad durabilidad) {
+        if (hilo == null || hilo.isShutdown()) {
+            if (durabilidad == Durabilidad.INMEDIATA) {
+                try {
+                    escritores.get(conjunto).escribir();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error guardar " 
+                            + conjunto.name().toLowerCase() + ": " + e.getMessage(), e);
+                }
+            } else {
+                escribirAhora(conjunto);
+            }
+            return;
+        }
+        synchronized (this) {
+            sucios.add(conjunto);
+            cambiosPendientes++;
+            if (cambiosPendientes >= tamLote) {
+                hilo.execute(this::escribirPendientes);
+            } else if (!programado) {
+                programado = true;
+                hilo.schedule(this::escribirPendientes, intervaloMs, 
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        if (durabilidad == Durabilidad.INMEDIATA) flush();
+    }
+
+    /**
+     * Escribe todo lo pendiente y espera a que termine. Se ejecuta en el 
+     * hilo escritor para no solaparse con un volcado en curso.
+     * @throws UncheckedIOException si el volcado falló; lo pendiente queda 
+     * marcado para reintentarlo.
+     */
+    void flush() {
+        try {
+            if (hilo == null || hilo.isShutdown()) {
+                volcarPendientes();
+                return;
+            }
+            hilo.submit(() -> { volcarPendientes(); return null; }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException r) throw r;
+            if (causa instanceof Error err) throw err;
+            throw new UncheckedIOException(causa.getMessage(), (IOException) causa);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Vuelca lo pendiente y detiene el hilo escritor; los cambios 
+     * posteriores se escriben de forma inmediata.
+     */
+    void cerrar() {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            System.err.println("Error escritura diferida: " + e.getMessage());
+        }
+        if (hilo != null) hilo.shutdown();
+    }
+
+    // Volcado programado: nadie espera el resultado, así que solo se informa
+    private void escribirPendientes() {
+        try {
+            volcarPendientes();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error escritura diferida: " + e.getMessage());
+        }
+    }
+
+    private void volcarPendientes() throws IOException {
+        EnumSet<Conjunto> aEscribir;
+        synchronized (this) {
+            aEscribir = EnumSet.copyOf(sucios);
+            sucios.clear();
+            cambiosPendientes = 0;
+            programado = false;
+        }
+        if (aEscribir.isEmpty()) return;
+
+        // Todos los archivos del volcado comparten una confirmación: el error
+        // de cualquiera sale del grupo para que se deshaga entero (si no, la 
+        // base confirmaría una tabla a medio escribir)
+        try {
+            agrupador.enGrupo(() -> {
+                for (Conjunto c : aEscribir) escribirEnGrupo(c);
+            });
+        } catch (IOException | RuntimeException e) {
+            // No se confirmó nada del volcado: se reintenta entero en el 
+            // próximo ciclo (p. ej. la lista cambió mientras se escribía)
+            if (hilo != null && !hilo.isShutdown()) {
+                for (Conjunto c : aEscribir) marcar(c, Durabilidad.DIFERIDA);
+            }
+            throw e;
+        }
+    }
+
+    private void escribirEnGrupo(Conjunto conjunto) throws IOException {
+        try {
+            escritores.get(conjunto).escribir();
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Error guardar " + conjunto.name().toLowerCase() 
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    private boolean escribirAhora(Conjunto conjunto) {
+        try {
+            escritores.get(conjunto).escribir();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error guardar " + conjunto.name().toLowerCase() 
+                    + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
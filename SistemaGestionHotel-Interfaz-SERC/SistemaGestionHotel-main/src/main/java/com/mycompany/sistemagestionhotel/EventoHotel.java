@@ -0,0 +1,58 @@
+package com.mycompany.sistemagestionhotel;
+
+/**
+ * Cambio en una entidad del hotel, tal como lo entrega BusEventos: qué pasó
+ * y a qué reserva, habitación, cliente o factura. La entidad es la viva, no
+ * una copia, así que al consumir el evento se leen sus valores actuales.
+ */
+public final class EventoHotel {
+
+    public enum Tipo {
+        RESERVA_CREADA,
+        RESERVA_MODIFICADA,
+        RESERVA_BORRADA,
+        HABITACION_AGREGADA,
+        HABITACION_MODIFICADA,
+        CLIENTE_REGISTRADO,
+        CLIENTE_MODIFICADO,
+        CLIENTE_BORRADO,
+        FACTURA_CREADA,
+        FACTURA_MODIFICADA,
+        FACTURA_BORRADA
+    }
+
+    private final long secuencia;
+    private final Tipo tipo;
+    private final Object entidad;
+
+    EventoHotel(long secuencia, Tipo tipo, Object entidad) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.entidad = entidad;
+    }
+
+    /** Orden de publicación, creciente y sin huecos mientras haya suscriptores. */
+    public long getSecuencia() { return secuencia; }
+    public Tipo getTipo() { return tipo; }
+
+    public Reserva getReserva() {
+        return entidad instanceof Reserva r ? r : null;
+    }
+
+    public Habitacion getHabitacion() {
+        return entidad instanceof Habitacion h ? h : null;
+    }
+
+    public Cliente getCliente() {
+        return entidad instanceof Cliente c ? c : null;
+    }
+
+    public Factura getFactura() {
+        return entidad instanceof Factura f ? f : null;
+    }
+
+    @Override
+    public String toString() {
+        return secuencia + " " + tipo;
+    }
+}
@@ -8,9 +8,10 @@ public class Factura {
     private double subtotal;
     private double iva;
     private double total;
-    private String metodoPago;
+    private volatile String metodoPago;
     private Reserva reserva;
-    private boolean pagada;
+    private volatile boolean pagada;
+    private final Version version = new Version();
 
     public Factura(int id,
                    LocalDate fecha,
@@ -63,7 +64,7 @@ public class Factura {
     }
 
     public void pagar() {
-        this.pagada = true;
+        version.escribir(() -> this.pagada = true);
     }
 
     // ===== Getters =====
@@ -93,7 +94,7 @@ public class Factura {
     }
 
     public void setMetodoPago(String metodoPago) {
-        this.metodoPago = metodoPago;
+        version.escribir(() -> this.metodoPago = metodoPago);
     }
 
     public Reserva getReserva() {
@@ -101,14 +102,45 @@ public class Factura {
     }
 
     public void setPagada(boolean pagada) {
-        this.pagada = pagada;
+        version.escribir(() -> this.pagada = pagada);
+    }
+
+    /** Versión para ediciones optimistas; sube con cada cambio. */
+    public long getVersion() {
+        return version.actual();
+    }
+
+    /** Copia suelta (misma versión) que apunta a la copia de su reserva. */
+    Factura copia(Reserva copiaReserva) {
+        return version.leer(sello -> {
+            Factura c = new Factura(id, fecha, subtotal, iva, total, metodoPago, 
+                    copiaReserva);
+            c.pagada = pagada;
+            c.version.igualar(sello);
+            return c;
+        });
+    }
+
+    long sello() {
+        return version.sello();
+    }
+
+    /**
+     * Cambia método y/o estado de pago (null = sin cambios) solo si nadie ha
+     * modificado la factura desde que se leyó su versión.
+     */
+    void actualizar(long versionEsperada, String metodoPago, Boolean pagada) {
+        version.actualizar(versionEsperada, () -> {
+            if (metodoPago != null) this.metodoPago = metodoPago;
+            if (pagada != null) this.pagada = pagada;
+        });
     }
 
     // Persistencia sencilla a CSV
     // Formato: id;fecha;subtotal;iva;total;metodoPago;idReserva;pagada
     public String toCsv() {
         return id + ";" + fecha + ";" + subtotal + ";" + iva + ";" + 
-                total + ";" + metodoPago + ";" + reserva.getId() + 
+                total + ";" + PersistenciaDatos.escapeCsv(metodoPago) + ";" + reserva.getId() + 
                 ";" + pagada;
     }
 
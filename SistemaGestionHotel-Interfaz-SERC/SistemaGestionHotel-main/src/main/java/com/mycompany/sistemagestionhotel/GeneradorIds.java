@@ -0,0 +1,128 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Secuencia de ids (clientes, reservas o facturas) sin cerrojos: el
+ * siguiente id es un contador atómico y cada hilo de plataforma (consola,
+ * GUI, hilos de trabajo) se reserva bloques de hotel.ids.bloque ids para no
+ * competir por él en cada alta. Los hilos virtuales, que suelen atender una
+ * sola petición, toman del contador directamente para no dejar huecos.
+ *
+ * Para no repetir ids tras reiniciar, antes de entregar uno por encima de la
+ * marca guardada se persiste una nueva marca hotel.ids.margen ids más allá;
+ * al arrancar se continúa desde la marca (o desde el mayor id cargado, si es
+ * mayor). Una caída solo deja un hueco, nunca un id repetido. Si la marca
+ * no se puede guardar no se entrega ningún id por encima de la anterior:
+ * tomar() falla hasta que se pueda.
+ */
+class GeneradorIds {
+
+    /** Persiste la marca: ningún id entregado es mayor o igual que ella. */
+    interface Marca {
+        void guardar(int marca) throws IOException;
+    }
+
+    private static final int BLOQUE = Math.max(1, Integer.getInteger("hotel.ids.bloque", 16));
+    private static final int MARGEN = Math.max(1, Integer.getInteger("hotel.ids.margen", 1000));
+
+    private final String nombre;
+    private final AtomicInteger siguiente = new AtomicInteger(1);
+    private volatile int limite = Integer.MAX_VALUE;
+    private Marca marca;
+    // Bloque del hilo: {siguiente, fin, generación}; fin = 0 si no tiene
+    private final ThreadLocal<int[]> bloques = ThreadLocal.withInitial(() -> new int[3]);
+    // Sube al reiniciar la secuencia para descartar los bloques anteriores
+    private volatile int generacion;
+
+    GeneradorIds(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Fija el primer id a entregar y cómo persistir la marca (null = no se
+     * persiste). Solo al cargar los datos.
+     */
+    synchronized void iniciar(int primero, Marca marca) {
+        this.marca = marca;
+        siguiente.set(Math.max(1, primero));
+        limite = marca == null ? Integer.MAX_VALUE : siguiente.get();
+        generacion++;
+    }
+
+    /**
+     * Un id nuevo.
+     * @throws UncheckedIOException si hacía falta guardar una marca nueva y falló.
+     */
+    int tomar() {
+        if (Thread.currentThread().isVirtual()) return tomar(1);
+        int[] bloque = bloques.get();
+        if (bloque[0] >= bloque[1] || bloque[2] != generacion) {
+            bloque[2] = generacion;
+            bloque[0] = tomar(BLOQUE);
+            bloque[1] = bloque[0] + BLOQUE;
+        }
+        return bloque[0]++;
+    }
+
+    /**
+     * Reserva cantidad ids consecutivos del contador común.
+     * @return el primero de ellos.
+     */
+    int tomar(int cantidad) {
+        if (cantidad < 1) throw new IllegalArgumentException("Cantidad de ids inválida.");
+        while (true) {
+            int actual = siguiente.get();
+            int fin = Math.addExact(actual, cantidad);
+            if (fin > limite) {
+                ampliar(fin);
+            } else if (siguiente.compareAndSet(actual, fin)) {
+                return actual;
+            }
+        }
+    }
+
+    // Solo se entra al agotar la marca guardada (una vez cada MARGEN ids).
+    // El límite solo sube cuando la nueva marca ya está guardada
+    private synchronized void ampliar(int necesario) {
+        if (necesario <= limite) return;
+        int nueva = (int) Math.min(Integer.MAX_VALUE, (long) necesario + MARGEN);
+        try {
+            marca.guardar(nueva);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la marca de ids de " 
+                    + nombre + "; no se entregan más ids: " + e.getMessage(), e);
+        }
+        limite = nueva;
+    }
+
+    /** Siguiente id del contador común (sin tomarlo). */
+    int consultar() {
+        return siguiente.get();
+    }
+
+    /**
+     * Al cerrar, deja la marca en el contador común en lugar de en el margen
+     * reservado, para que el próximo arranque no salte ids sin necesidad.
+     * Los restos de bloques ya repartidos quedan por debajo, así que no se
+     * reutilizan.
+     */
+    synchronized void cerrar() {
+        if (marca == null) return;
+        int actual = siguiente.get();
+        guardarMarca(actual);
+        limite = actual;
+    }
+
+    private void guardarMarca(int valor) {
+        if (marca == null) return;
+        try {
+            marca.guardar(valor);
+        } catch (IOException e) {
+            System.err.println("Error guardando marca de ids de " + nombre + ": "
+                    + e.getMessage());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Optional;
 public class GestionClientes {
     private List<Cliente> clientes;
     private DatosHotel datos; // Necesitamos el acceso a DatosHotel para gestionar el ID.
+    private BusEventos bus;
 
     public GestionClientes(List<Cliente> clientes, DatosHotel datos) {
         this.clientes = clientes;
@@ -30,7 +31,7 @@ public void borrarCliente(String cedula) throws IllegalArgumentException {
     }
 
     if (clientes.remove(clienteABorrar)) {
-
+        publicar(EventoHotel.Tipo.CLIENTE_BORRADO, clienteABorrar);
     } else {
         throw new IllegalArgumentException("❌ Error interno: No se pudo "
                 + "eliminar el cliente de la lista.");
@@ -50,11 +51,11 @@ public void borrarCliente(String cedula) throws IllegalArgumentException {
                     + "la cédula " + nuevoCliente.getCedula());
         }
         
-        // Asignar y actualizar el ID.
-        nuevoCliente.setId(datos.getNextClienteId());
-        datos.setNextClienteId(datos.getNextClienteId() + 1);
+        // Asignar el siguiente ID (atómico: dos altas a la vez no lo repiten)
+        nuevoCliente.setId(datos.tomarIdCliente());
         
         clientes.add(nuevoCliente);
+        publicar(EventoHotel.Tipo.CLIENTE_REGISTRADO, nuevoCliente);
         return nuevoCliente;
     }
 
@@ -85,6 +86,32 @@ public void borrarCliente(String cedula) throws IllegalArgumentException {
         return clienteEncontrado.orElse(null);
     }
     
+    /**
+     * Edición optimista de los datos de contacto (null = sin cambios): se
+     * aplica solo si el cliente sigue en la versión que se leyó.
+     * @throws IllegalStateException si otra edición llegó antes.
+     */
+    public Cliente actualizarCliente(String cedula, long versionEsperada,
+            String nombre, String email, String telefono) {
+        Cliente cliente = buscarClientePorCedula(cedula);
+        if (cliente == null) {
+            throw new IllegalArgumentException("Cliente con cédula " + cedula 
+                    + " no encontrado.");
+        }
+        cliente.actualizar(versionEsperada, nombre, email, telefono);
+        publicar(EventoHotel.Tipo.CLIENTE_MODIFICADO, cliente);
+        return cliente;
+    }
+
+    /** Bus al que se publican las altas, ediciones y bajas (null = ninguno). */
+    void setBusEventos(BusEventos bus) {
+        this.bus = bus;
+    }
+
+    private void publicar(EventoHotel.Tipo tipo, Cliente c) {
+        if (bus != null) bus.publicar(tipo, c);
+    }
+
     // Método para cargar clientes desde la persistencia si es necesario
     public List<Cliente> getTodosLosClientes() {
         return clientes;
@@ -1,68 +1,406 @@
 package com.mycompany.sistemagestionhotel;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 public class GestionHabitaciones {
     private Hotel hotel;
-    private List<Reserva> reservas;
+    // Estancias activas por habitación y su calendario de noches ocupadas;
+    // los mantiene GestionReservas
+    private final IndiceEstancias estancias;
+    private final CalendarioOcupacion calendario;
+    // Índices secundarios por tipo y precio para las búsquedas
+    private final IndiceHabitaciones indice;
+    // Consultas de disponibilidad repetidas; se invalidan por cambio
+    private final CacheDisponibilidad cache = new CacheDisponibilidad(
+            Integer.getInteger("hotel.cache.disponibilidad", 256));
+    // Cerrojos por habitación, compartidos con GestionReservas: una edición
+    // y una reserva de la misma habitación nunca se intercalan
+    private final BloqueosHabitacion bloqueos = new BloqueosHabitacion(
+            Integer.getInteger("hotel.bloqueos.franjas", 64));
+    private BusEventos bus;
 
     public GestionHabitaciones(Hotel hotel, List<Reserva> reservas) {
         this.hotel = hotel;
-        this.reservas = reservas;
+        this.estancias = new IndiceEstancias(reservas);
+        this.calendario = new CalendarioOcupacion(
+                Integer.getInteger("hotel.calendario.dias", 730));
+        for (Reserva r : estancias.activas()) calendario.ocupar(r);
+        this.indice = new IndiceHabitaciones(hotel.getHabitaciones());
     }
 
     /**
      * Devuelve lista de habitaciones disponibles entre las fechas (fechaInicio 
-     * inclusive, fechaFin exclusive).
+     * inclusive, fechaFin exclusive). Dentro del horizonte del calendario se 
+     * resuelve con sus bitsets; fuera, consultando el índice de estancias 
+     * de cada habitación. Los rangos consultados se guardan en caché.
      */
     public List<Habitacion> buscarHabitacionesDisponibles(LocalDate fechaInicio, 
             LocalDate fechaFin) {
+        CacheDisponibilidad.Clave clave = new CacheDisponibilidad.Clave(
+                fechaInicio, fechaFin, "");
+        List<Habitacion> guardado = cache.buscar(clave);
+        if (guardado != null) return new ArrayList<>(guardado);
+        long generacion = cache.generacion();
+
         List<Habitacion> todas = hotel.getHabitaciones();
         List<Habitacion> disponibles = new ArrayList<>();
-        
         for (Habitacion h : todas) {
-            boolean ocupada = false;
-            for (Reserva r : reservas) {
-                if (r.getHabitacion().getNumero() != h.getNumero()) continue;
-                // Si reserva está CANCELADA o FINALIZADA no bloquea
-                if (r.getEstado() == EstadoReserva.CANCELADA || r.getEstado() 
-                        == EstadoReserva.FINALIZADA) continue;
-                if (fechasSeSolapan(fechaInicio, fechaFin, 
-                        r.getFechaInicio(), r.getFechaFin())) {
-                    ocupada = true;
-                    break;
+            if (h.estaDisponible()) disponibles.add(h);
+        }
+
+        List<Habitacion> libres = filtrarLibres(disponibles, fechaInicio, fechaFin);
+        cache.guardar(clave, null, libres, generacion);
+        return libres;
+    }
+
+    // Deja solo las candidatas sin estancias activas en [fechaInicio, fechaFin)
+    private List<Habitacion> filtrarLibres(List<Habitacion> candidatas, 
+            LocalDate fechaInicio, LocalDate fechaFin) {
+        calendario.avanzarSiHaceFalta(estancias::activas);
+        if (calendario.cubre(fechaInicio, fechaFin)) {
+            List<Habitacion> libres = calendario.libres(candidatas, fechaInicio, fechaFin);
+            libres.removeIf(h -> estancias.tieneEstanciasSinNoches(h.getNumero())
+                    && estancias.estaOcupada(h.getNumero(), fechaInicio, fechaFin));
+            return libres;
+        }
+        List<Habitacion> libres = new ArrayList<>();
+        for (Habitacion h : candidatas) {
+            if (!estancias.estaOcupada(h.getNumero(), fechaInicio, fechaFin)) {
+                libres.add(h);
+            }
+        }
+        return libres;
+    }
+
+    /**
+     * Búsqueda por varios criterios (tipo, rango de precio, estado y fechas).
+     * Las candidatas salen de los índices por tipo o por precio y solo ellas 
+     * se cruzan con la disponibilidad. Ordenando por precio se recorre el 
+     * índice de precios en ese orden y se para al llegar al límite.
+     */
+    public List<Habitacion> buscarHabitaciones(CriteriosBusqueda criterios) {
+        CacheDisponibilidad.Clave clave = new CacheDisponibilidad.Clave(
+                criterios.getFechaInicio(), criterios.getFechaFin(), criterios.filtro());
+        List<Habitacion> guardado = cache.buscar(clave);
+        if (guardado != null) return new ArrayList<>(guardado);
+        long generacion = cache.generacion();
+
+        List<Habitacion> resultado = buscarSinCache(criterios);
+        cache.guardar(clave, criterios.copia(), resultado, generacion);
+        return resultado;
+    }
+
+    private List<Habitacion> buscarSinCache(CriteriosBusqueda criterios) {
+        Double minimo = criterios.getPrecioMinimo();
+        Double maximo = criterios.getPrecioMaximo();
+        List<Habitacion> resultado = new ArrayList<>();
+        if (minimo != null && maximo != null && minimo > maximo) return resultado;
+        int limite = criterios.getLimite() > 0 ? criterios.getLimite() : Integer.MAX_VALUE;
+
+        if (criterios.getOrden() != CriteriosBusqueda.Orden.NUMERO) {
+            for (Habitacion h : indice.porPrecio(minimo, maximo, 
+                    criterios.getOrden() == CriteriosBusqueda.Orden.PRECIO_DESCENDENTE)) {
+                if (cumple(h, criterios) && libreEn(h, criterios)) {
+                    resultado.add(h);
+                    if (resultado.size() == limite) return resultado;
                 }
             }
-            if (!ocupada && h.estaDisponible()) {
-                disponibles.add(h);
+            return resultado;
+        }
+
+        // Por número: candidatas del índice más selectivo disponible
+        List<Habitacion> candidatas = new ArrayList<>();
+        if (criterios.getTipo() != null) {
+            candidatas.addAll(indice.delTipo(criterios.getTipo()));
+        } else if (minimo != null || maximo != null) {
+            candidatas.addAll(indice.porPrecio(minimo, maximo, false));
+        } else {
+            candidatas.addAll(hotel.getHabitaciones());
+        }
+        for (Habitacion h : candidatas) {
+            if (cumple(h, criterios)) resultado.add(h);
+        }
+        if (criterios.getFechaInicio() != null) {
+            resultado = filtrarLibres(resultado, criterios.getFechaInicio(), 
+                    criterios.getFechaFin());
+        }
+        resultado.sort(Comparator.comparingInt(Habitacion::getNumero));
+        return resultado.size() > limite 
+                ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+    }
+
+    // Criterios que no dependen de las fechas
+    private boolean cumple(Habitacion h, CriteriosBusqueda c) {
+        if (c.getTipo() != null && !IndiceHabitaciones.claveTipo(h.getTipo())
+                .equals(IndiceHabitaciones.claveTipo(c.getTipo()))) return false;
+        if (c.getPrecioMinimo() != null && h.getPrecio() < c.getPrecioMinimo()) return false;
+        if (c.getPrecioMaximo() != null && h.getPrecio() > c.getPrecioMaximo()) return false;
+        return c.getEstado() == null || h.getEstado() == c.getEstado();
+    }
+
+    private boolean libreEn(Habitacion h, CriteriosBusqueda c) {
+        return c.getFechaInicio() == null 
+                || libreEn(h, c.getFechaInicio(), c.getFechaFin());
+    }
+
+    /**
+     * Habitaciones del grupo que no se pueden reservar en [fechaInicio, 
+     * fechaFin), comprobadas todas en una sola pasada sobre el calendario.
+     */
+    List<Habitacion> noDisponiblesEn(List<Habitacion> grupo, LocalDate fechaInicio,
+            LocalDate fechaFin) {
+        List<Habitacion> candidatas = new ArrayList<>();
+        for (Habitacion h : grupo) {
+            if (h.estaDisponible()) candidatas.add(h);
+        }
+        Set<Habitacion> libres = Collections.newSetFromMap(new IdentityHashMap<>());
+        libres.addAll(filtrarLibres(candidatas, fechaInicio, fechaFin));
+        List<Habitacion> ocupadas = new ArrayList<>();
+        for (Habitacion h : grupo) {
+            if (!libres.contains(h)) ocupadas.add(h);
+        }
+        return ocupadas;
+    }
+
+    /**
+     * Comprueba una sola habitación: que esté disponible y sin estancias 
+     * activas en [fechaInicio, fechaFin).
+     */
+    public boolean estaDisponibleEn(Habitacion h, LocalDate fechaInicio, 
+            LocalDate fechaFin) {
+        return h.estaDisponible() && libreEn(h, fechaInicio, fechaFin);
+    }
+
+    private boolean libreEn(Habitacion h, LocalDate fechaInicio, LocalDate fechaFin) {
+        calendario.avanzarSiHaceFalta(estancias::activas);
+        if (calendario.cubre(fechaInicio, fechaFin)
+                && !estancias.tieneEstanciasSinNoches(h.getNumero())) {
+            return !calendario.estaOcupada(h.getNumero(), fechaInicio, fechaFin);
+        }
+        return !estancias.estaOcupada(h.getNumero(), fechaInicio, fechaFin);
+    }
+
+    /**
+     * Cuántas habitaciones reservables (no en mantenimiento) quedan libres 
+     * cada noche de [desde, hasta).
+     * @return un valor por noche, empezando por desde.
+     */
+    public int[] contarHabitacionesLibresPorDia(LocalDate desde, LocalDate hasta) {
+        List<Habitacion> reservables = new ArrayList<>();
+        for (Habitacion h : hotel.getHabitaciones()) {
+            if (h.getEstado() != EstadoHabitacion.MANTENIMIENTO) reservables.add(h);
+        }
+        int noches = (int) Math.max(0, ChronoUnit.DAYS.between(desde, hasta));
+        int[] libres = new int[noches];
+
+        calendario.avanzarSiHaceFalta(estancias::activas);
+        if (calendario.cubre(desde, hasta)) {
+            int[] ocupadas = calendario.ocupadasPorDia(reservables, desde, hasta);
+            for (int i = 0; i < noches; i++) libres[i] = reservables.size() - ocupadas[i];
+            return libres;
+        }
+        for (int i = 0; i < noches; i++) {
+            LocalDate dia = desde.plusDays(i);
+            for (Habitacion h : reservables) {
+                if (!estancias.estaOcupada(h.getNumero(), dia, dia.plusDays(1))) libres[i]++;
             }
         }
-        return disponibles;
+        return libres;
     }
 
-    private boolean fechasSeSolapan(LocalDate aInicio, LocalDate aFin, 
-            LocalDate bInicio, LocalDate bFin) {
-        // Solapan si aInicio < bFin && bInicio < aFin
-        return (aInicio.isBefore(bFin) && bInicio.isBefore(aFin));
+    /** Una reserva nueva (o reactivada) pasa a bloquear sus fechas. */
+    void registrarEstancia(Reserva r) {
+        estancias.agregar(r);
+        if (IndiceEstancias.bloquea(r)) calendario.ocupar(r);
+        cache.invalidarFechas(r.getFechaInicio(), r.getFechaFin());
     }
 
-    public Habitacion buscarHabitacionPorNumero(int numero) {
-    for (Habitacion h : hotel.getHabitaciones()) {
-        if (h.getNumero() == numero) {
-            // Verificar que no sea una habitación "fantasma" (número 0)
-            if (h.getNumero() != 0) {
-                return h;
+    /** La reserva deja de bloquear fechas (cancelada, finalizada o borrada). */
+    void liberarEstancia(Reserva r) {
+        estancias.quitar(r);
+        calendario.liberar(r);
+        // Otras estancias que compartieran noches (datos antiguos solapados)
+        for (Reserva otra : estancias.solapadas(r.getHabitacion().getNumero(), 
+                r.getFechaInicio(), r.getFechaFin())) {
+            calendario.ocupar(otra);
+        }
+        cache.invalidarFechas(r.getFechaInicio(), r.getFechaFin());
+    }
+
+    /**
+     * Tras cambiar el estado o el precio de una habitación, descarta las 
+     * consultas cuyo resultado cambia: la habitación entra o sale de él, o 
+     * (si cambió el precio) mueve su posición en una búsqueda por precio.
+     */
+    private void invalidarPorHabitacion(Habitacion h, boolean cambioPrecio) {
+        cache.invalidarSi(e -> {
+            LocalDate inicio = e.clave.inicio();
+            boolean estaria = e.criterios == null
+                    ? h.estaDisponible() && libreEn(h, inicio, e.clave.fin())
+                    : cumple(h, e.criterios) && libreEn(h, e.criterios);
+            if (estaria != e.contiene(h)) return true;
+            return estaria && cambioPrecio && e.criterios != null
+                    && e.criterios.getOrden() != CriteriosBusqueda.Orden.NUMERO;
+        });
+    }
+
+    public long getAciertosCache() {
+        return cache.getAciertos();
+    }
+
+    public long getFallosCache() {
+        return cache.getFallos();
+    }
+
+    // ================= ALTERNATIVAS =================
+
+    /**
+     * Las k ventanas libres de la misma duración más cercanas a 
+     * [fechaInicio, fechaFin) para la habitación, a hotel.alternativas.dias 
+     * como mucho y nunca antes de hoy.
+     */
+    public List<AlternativaReserva> buscarFechasAlternativas(Habitacion habitacion,
+            LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        List<Habitacion> una = new ArrayList<>();
+        if (habitacion.estaDisponible()) una.add(habitacion);
+        return fechasAlternativas(una, fechaInicio, fechaFin, k);
+    }
+
+    /**
+     * Igual, pero con cualquier habitación disponible del tipo; se devuelve 
+     * una ventana por fecha (la de la habitación de menor número).
+     */
+    public List<AlternativaReserva> buscarFechasAlternativas(String tipo,
+            LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        List<Habitacion> delTipo = new ArrayList<>();
+        for (Habitacion h : indice.delTipo(tipo)) {
+            if (h.estaDisponible()) delTipo.add(h);
+        }
+        delTipo.sort(Comparator.comparingInt(Habitacion::getNumero));
+        return fechasAlternativas(delTipo, fechaInicio, fechaFin, k);
+    }
+
+    private List<AlternativaReserva> fechasAlternativas(List<Habitacion> habitaciones,
+            LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        long noches = validarEstancia(fechaInicio, fechaFin);
+        List<AlternativaReserva> resultado = new ArrayList<>();
+        if (k <= 0 || habitaciones.isEmpty()) return resultado;
+
+        int margen = Math.max(0, Integer.getInteger("hotel.alternativas.dias", 60));
+        long pedido = fechaInicio.toEpochDay();
+        long primero = Math.max(pedido - margen, LocalDate.now().toEpochDay());
+        long ultimo = pedido + margen;
+        if (primero > ultimo) return resultado;
+
+        // Por habitación, los inicios posibles de cada hueco: [desde, hasta]
+        List<long[]> inicios = new ArrayList<>();
+        List<Habitacion> deInicio = new ArrayList<>();
+        for (Habitacion h : habitaciones) {
+            for (long[] hueco : estancias.huecos(h.getNumero(), LocalDate.ofEpochDay(primero),
+                    LocalDate.ofEpochDay(ultimo + noches))) {
+                if (hueco[1] - hueco[0] < noches) continue;
+                inicios.add(new long[]{hueco[0], hueco[1] - noches});
+                deInicio.add(h);
+            }
+        }
+
+        // Desde la fecha pedida hacia fuera, primero el día anterior
+        for (long desplazamiento = 0; desplazamiento <= margen 
+                && resultado.size() < k; desplazamiento++) {
+            long antes = pedido - desplazamiento;
+            long despues = pedido + desplazamiento;
+            if (antes >= primero) {
+                agregarVentana(resultado, antes, noches, inicios, deInicio, fechaInicio);
+            }
+            if (desplazamiento > 0 && resultado.size() < k) {
+                agregarVentana(resultado, despues, noches, inicios, deInicio, fechaInicio);
+            }
+        }
+        return resultado;
+    }
+
+    private static void agregarVentana(List<AlternativaReserva> resultado, long dia,
+            long noches, List<long[]> inicios, List<Habitacion> deInicio, 
+            LocalDate inicioPedido) {
+        for (int i = 0; i < inicios.size(); i++) {
+            if (dia >= inicios.get(i)[0] && dia <= inicios.get(i)[1]) {
+                LocalDate inicio = LocalDate.ofEpochDay(dia);
+                resultado.add(new AlternativaReserva(deInicio.get(i), inicio,
+                        inicio.plusDays(noches), inicioPedido));
+                return;
             }
         }
     }
-    return null;
-}
+
+    /**
+     * Las k habitaciones disponibles y libres en [fechaInicio, fechaFin) más 
+     * parecidas a la pedida: primero las del mismo tipo y después por 
+     * cercanía de precio.
+     */
+    public List<AlternativaReserva> buscarHabitacionesSimilares(Habitacion habitacion,
+            LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        return similares(habitacion.getTipo(), habitacion.getPrecio(), habitacion,
+                fechaInicio, fechaFin, k);
+    }
+
+    /** Igual, tomando como referencia el precio medio del tipo. */
+    public List<AlternativaReserva> buscarHabitacionesSimilares(String tipo,
+            LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        double precioMedio = 0;
+        List<Habitacion> delTipo = indice.delTipo(tipo);
+        for (Habitacion h : delTipo) precioMedio += h.getPrecio();
+        if (!delTipo.isEmpty()) precioMedio /= delTipo.size();
+        return similares(tipo, precioMedio, null, fechaInicio, fechaFin, k);
+    }
+
+    private List<AlternativaReserva> similares(String tipo, double precio, 
+            Habitacion excluida, LocalDate fechaInicio, LocalDate fechaFin, int k) {
+        validarEstancia(fechaInicio, fechaFin);
+        List<AlternativaReserva> resultado = new ArrayList<>();
+        if (k <= 0) return resultado;
+
+        List<Habitacion> libres = new ArrayList<>(
+                buscarHabitacionesDisponibles(fechaInicio, fechaFin));
+        libres.removeIf(h -> h == excluida);
+        String clave = IndiceHabitaciones.claveTipo(tipo);
+        libres.sort(Comparator
+                .comparing((Habitacion h) -> !IndiceHabitaciones.claveTipo(h.getTipo()).equals(clave))
+                .thenComparingDouble(h -> Math.abs(h.getPrecio() - precio))
+                .thenComparingInt(Habitacion::getNumero));
+        for (Habitacion h : libres.subList(0, Math.min(k, libres.size()))) {
+            resultado.add(new AlternativaReserva(h, fechaInicio, fechaFin, fechaInicio));
+        }
+        return resultado;
+    }
+
+    private static long validarEstancia(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (!fechaFin.isAfter(fechaInicio)) {
+            throw new IllegalArgumentException("La estancia debe tener al menos "
+                    + "una noche.");
+        }
+        return ChronoUnit.DAYS.between(fechaInicio, fechaFin);
+    }
+
+    public Habitacion buscarHabitacionPorNumero(int numero) {
+        // Verificar que no sea una habitación "fantasma" (número 0)
+        if (numero == 0) return null;
+        return hotel.buscarHabitacion(numero);
+    }
 
     public void agregarHabitacion(Habitacion habitacion) {
         hotel.agregarHabitacion(habitacion);
+        indice.agregar(habitacion);
+        invalidarPorHabitacion(habitacion, false);
+        publicar(EventoHotel.Tipo.HABITACION_AGREGADA, habitacion);
     }
 
     public void actualizarPrecioHabitacion(int numeroHabitacion, 
@@ -70,9 +408,49 @@ public class GestionHabitaciones {
         Habitacion habitacion = buscarHabitacionPorNumero(numeroHabitacion);
         if (habitacion != null) {
             habitacion.setPrecio(nuevoPrecio);
+            indice.reindexar(habitacion);
+            invalidarPorHabitacion(habitacion, true);
+            publicar(EventoHotel.Tipo.HABITACION_MODIFICADA, habitacion);
         }
     }
 
+    /**
+     * Edición optimista de precio y/o estado (null = sin cambios): se aplica
+     * solo si la habitación sigue en la versión que se leyó. Se hace con el
+     * cerrojo de la habitación tomado, así que una reserva en curso no puede
+     * pisar el estado recién editado (p. ej. MANTENIMIENTO) con RESERVADA.
+     * @throws IllegalStateException si otra edición o reserva llegó antes.
+     */
+    public Habitacion actualizarHabitacion(int numeroHabitacion, long versionEsperada,
+            Double nuevoPrecio, EstadoHabitacion nuevoEstado) {
+        Habitacion habitacion = buscarHabitacionPorNumero(numeroHabitacion);
+        if (habitacion == null) {
+            throw new IllegalArgumentException("Habitación no encontrada: " 
+                    + numeroHabitacion);
+        }
+        Lock cerrojo = bloqueos.de(numeroHabitacion);
+        cerrojo.lock();
+        try {
+            habitacion.actualizar(versionEsperada, nuevoPrecio, nuevoEstado);
+            habitacionModificada(habitacion);
+        } finally {
+            cerrojo.unlock();
+        }
+        return habitacion;
+    }
+
+    /** Cerrojos por habitación que comparten ediciones y reservas. */
+    BloqueosHabitacion getBloqueos() {
+        return bloqueos;
+    }
+
+    // Tras cambiar precio o estado: índices, caché y aviso a los suscriptores
+    private void habitacionModificada(Habitacion habitacion) {
+        indice.reindexar(habitacion);
+        invalidarPorHabitacion(habitacion, true);
+        publicar(EventoHotel.Tipo.HABITACION_MODIFICADA, habitacion);
+    }
+
     public List<Habitacion> getTodasHabitaciones() {
         return hotel.getHabitaciones();
     }
@@ -92,6 +470,17 @@ public class GestionHabitaciones {
         Habitacion habitacion = buscarHabitacionPorNumero(numeroHabitacion);
         if (habitacion != null) {
             habitacion.setEstado(nuevoEstado);
+            invalidarPorHabitacion(habitacion, false);
+            publicar(EventoHotel.Tipo.HABITACION_MODIFICADA, habitacion);
         }
     }
+
+    /** Bus al que se publican los cambios de habitaciones (null = ninguno). */
+    void setBusEventos(BusEventos bus) {
+        this.bus = bus;
+    }
+
+    private void publicar(EventoHotel.Tipo tipo, Habitacion h) {
+        if (bus != null) bus.publicar(tipo, h);
+    }
 }
\ No newline at end of file
@@ -1,20 +1,38 @@
 package com.mycompany.sistemagestionhotel;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Operaciones sobre reservas. Pueden llamarse desde varias recepciones a la
+ * vez: cada operación toma el cerrojo de franja de su habitación (o de todas 
+ * las del grupo) para que comprobar disponibilidad y reservar sea atómico 
+ * sin serializar el hotel entero.
+ */
 public class GestionReservas {
     private List<Reserva> reservas;
     private GestionHabitaciones gestionHabitaciones;
     private DatosHotel datos;
     private SistemaGestionHotel sistema;
+    // Los mismos cerrojos que usan las ediciones de habitaciones
+    private final BloqueosHabitacion bloqueos;
+    // Se publica con el cerrojo de la habitación tomado, así que los eventos
+    // de una misma habitación salen en el orden en que se aplicaron
+    private BusEventos bus;
 
     public GestionReservas(List<Reserva> reservas, GestionHabitaciones 
             gestionHabitaciones, DatosHotel datos, SistemaGestionHotel sistema) {
         this.reservas = reservas;
         this.gestionHabitaciones = gestionHabitaciones;
+        this.bloqueos = gestionHabitaciones.getBloqueos();
         this.datos = datos;
         this.sistema = sistema;
     }
@@ -28,114 +46,261 @@ public class GestionReservas {
                     + "ser anterior a la de inicio.");
         }
 
-        // Verificar disponibilidad
-        List<Habitacion> disponibles = gestionHabitaciones.
-                buscarHabitacionesDisponibles(fechaInicio, fechaFin);
-        boolean estaDisponible = disponibles.stream().anyMatch(h -> h.getNumero() 
-                == habitacion.getNumero());
+        Lock cerrojo = bloqueos.de(habitacion.getNumero());
+        cerrojo.lock();
+        try {
+            // Verificar disponibilidad
+            if (!gestionHabitaciones.estaDisponibleEn(habitacion, fechaInicio, fechaFin)) {
+                throw new IllegalStateException("La habitación " 
+                        + habitacion.getNumero() + " no está disponible en esas fechas.");
+            }
 
-        if (!estaDisponible) {
-            throw new IllegalStateException("La habitación " 
-                    + habitacion.getNumero() + " no está disponible en esas fechas.");
+            // Crear la reserva
+            Reserva nuevaReserva = new Reserva(
+                datos.tomarIdReserva(),
+                fechaInicio,
+                fechaFin,
+                EstadoReserva.CONFIRMADA,
+                habitacion,
+                cedulaCliente,
+                metodoPago
+            );
+
+            // Marcar habitación como RESERVADA
+            gestionHabitaciones.cambiarEstadoHabitacion(habitacion.getNumero(),
+                    EstadoHabitacion.RESERVADA);
+
+            // Actualizar listas
+            this.reservas.add(nuevaReserva);
+            gestionHabitaciones.registrarEstancia(nuevaReserva);
+
+            // Guardar cambios
+            sistema.registrarReservaCreada(nuevaReserva);
+            publicar(EventoHotel.Tipo.RESERVA_CREADA, nuevaReserva);
+            return nuevaReserva;
+        } finally {
+            cerrojo.unlock();
         }
+    }
 
-        // Crear la reserva
-        Reserva nuevaReserva = new Reserva(
-            datos.getNextReservaId(),
-            fechaInicio,
-            fechaFin,
-            EstadoReserva.CONFIRMADA,
-            habitacion,
-            cedulaCliente,
-            metodoPago
-        );
-
-        // Marcar habitación como RESERVADA
-        habitacion.setEstado(EstadoHabitacion.RESERVADA);
-
-        // Actualizar IDs y listas
-        datos.setNextReservaId(datos.getNextReservaId() + 1);
-        this.reservas.add(nuevaReserva);
-
-        // Guardar cambios
-        sistema.guardarReservas();
-        sistema.guardarHabitaciones();
-        
-        return nuevaReserva;
+    /**
+     * Reserva en bloque (congresos, bodas): comprueba todas las habitaciones 
+     * en una sola pasada y crea todas las reservas o ninguna, con ids 
+     * consecutivos y un único guardado.
+     */
+    public List<Reserva> crearReservasGrupo(LocalDate fechaInicio, LocalDate fechaFin,
+                                            List<Habitacion> habitaciones, 
+                                            String metodoPago, String cedulaCliente) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede "
+                    + "ser anterior a la de inicio.");
+        }
+        if (habitaciones.isEmpty()) {
+            throw new IllegalArgumentException("El grupo no tiene habitaciones.");
+        }
+        Set<Integer> numeros = new HashSet<>();
+        for (Habitacion h : habitaciones) {
+            if (!numeros.add(h.getNumero())) {
+                throw new IllegalArgumentException("La habitación " + h.getNumero() 
+                        + " aparece dos veces en el grupo.");
+            }
+        }
+
+        List<Lock> cerrojos = bloqueos.tomar(numeros);
+        try {
+            // Verificar disponibilidad de todo el bloque antes de tocar nada
+            List<Habitacion> ocupadas = gestionHabitaciones.noDisponiblesEn(habitaciones, 
+                    fechaInicio, fechaFin);
+            if (!ocupadas.isEmpty()) {
+                throw new IllegalStateException("No están disponibles en esas fechas "
+                        + "las habitaciones: " + ocupadas.stream()
+                                .map(h -> String.valueOf(h.getNumero()))
+                                .collect(Collectors.joining(", ")));
+            }
+
+            int primerId = datos.tomarIdsReserva(habitaciones.size());
+            List<Reserva> grupo = new ArrayList<>(habitaciones.size());
+            for (Habitacion habitacion : habitaciones) {
+                grupo.add(new Reserva(primerId + grupo.size(), fechaInicio, fechaFin,
+                        EstadoReserva.CONFIRMADA, habitacion, cedulaCliente, metodoPago));
+            }
+            this.reservas.addAll(grupo);
+            for (Reserva r : grupo) {
+                gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
+                        EstadoHabitacion.RESERVADA);
+                gestionHabitaciones.registrarEstancia(r);
+            }
+
+            sistema.registrarGrupoReservas(grupo, true);
+            for (Reserva r : grupo) publicar(EventoHotel.Tipo.RESERVA_CREADA, r);
+            return grupo;
+        } finally {
+            BloqueosHabitacion.soltar(cerrojos);
+        }
+    }
+
+    /**
+     * Cancela un bloque de reservas: si alguna no existe o no está 
+     * CONFIRMADA no se cancela ninguna.
+     */
+    public void cancelarReservasGrupo(List<Integer> ids) {
+        List<Reserva> grupo = new ArrayList<>(ids.size());
+        Set<Integer> numeros = new HashSet<>();
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            Reserva r = buscarReservaPorId(id);
+            if (r == null) throw new NoSuchElementException("Reserva no encontrada "
+                    + "con ID: " + id);
+            grupo.add(r);
+            numeros.add(r.getHabitacion().getNumero());
+        }
+
+        List<Lock> cerrojos = bloqueos.tomar(numeros);
+        try {
+            for (Reserva r : grupo) {
+                if (r.getEstado() != EstadoReserva.CONFIRMADA) {
+                    throw new IllegalStateException("La reserva " + r.getId() + " no se "
+                            + "puede cancelar: solo se cancelan reservas CONFIRMADAS sin check-in.");
+                }
+            }
+
+            for (Reserva r : grupo) {
+                r.setEstado(EstadoReserva.CANCELADA);
+                gestionHabitaciones.liberarEstancia(r);
+                gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
+                        EstadoHabitacion.DISPONIBLE);
+            }
+            sistema.registrarGrupoReservas(grupo, false);
+            for (Reserva r : grupo) publicar(EventoHotel.Tipo.RESERVA_MODIFICADA, r);
+        } finally {
+            BloqueosHabitacion.soltar(cerrojos);
+        }
     }
 
     public void realizarCheckIn(int reservaId, String cedulaCliente) {
+        realizarCheckIn(reservaId, cedulaCliente, null);
+    }
+
+    /**
+     * Check-in optimista: solo si la reserva sigue en la versión leída.
+     * @throws IllegalStateException si la reserva cambió desde entonces.
+     */
+    public void realizarCheckIn(int reservaId, String cedulaCliente, long versionEsperada) {
+        realizarCheckIn(reservaId, cedulaCliente, Long.valueOf(versionEsperada));
+    }
+
+    private void realizarCheckIn(int reservaId, String cedulaCliente, Long versionEsperada) {
         Reserva r = buscarReservaPorId(reservaId);
         if (r == null) throw new NoSuchElementException("Reserva no encontrada con ID: " + reservaId);
         
-        // Solo se permite check-in sobre reservas CONFIRMADAS
-        if (r.getEstado() != EstadoReserva.CONFIRMADA) {
-            throw new IllegalStateException("Solo se puede hacer check-in de una reserva CONFIRMADA.");
-        }
+        Lock cerrojo = bloqueos.de(r.getHabitacion().getNumero());
+        cerrojo.lock();
+        try {
+            comprobarVersion(r, versionEsperada);
+            // Solo se permite check-in sobre reservas CONFIRMADAS
+            if (r.getEstado() != EstadoReserva.CONFIRMADA) {
+                throw new IllegalStateException("Solo se puede hacer check-in de una reserva CONFIRMADA.");
+            }
         
-        // Validar que la reserva pertenezca al cliente (opcional)
-        if (!r.getCedulaCheckIn().equals(cedulaCliente)) {
-             // En este diseño simple, permitimos el check-in si coincide el ID,
-             // pero podrías lanzar error si la cédula no coincide.
-        }
+            // Validar que la reserva pertenezca al cliente (opcional)
+            if (!r.getCedulaCheckIn().equals(cedulaCliente)) {
+                 // En este diseño simple, permitimos el check-in si coincide el ID,
+                 // pero podrías lanzar error si la cédula no coincide.
+            }
 
-        r.realizarCheckIn(cedulaCliente); // Cambia estado a CHECK_IN_REALIZADO
+            r.realizarCheckIn(cedulaCliente); // Cambia estado a CHECK_IN_REALIZADO
 
-        // Marcar habitación como OCUPADA
-        gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
-                EstadoHabitacion.OCUPADA);
+            // Marcar habitación como OCUPADA
+            gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
+                    EstadoHabitacion.OCUPADA);
 
-        sistema.guardarReservas();
-        sistema.guardarHabitaciones();
+            sistema.registrarCambioReserva(r);
+            publicar(EventoHotel.Tipo.RESERVA_MODIFICADA, r);
+        } finally {
+            cerrojo.unlock();
+        }
     }
 
     public void realizarCheckOut(int reservaId) {
+        realizarCheckOut(reservaId, null);
+    }
+
+    /** Check-out optimista: solo si la reserva sigue en la versión leída. */
+    public void realizarCheckOut(int reservaId, long versionEsperada) {
+        realizarCheckOut(reservaId, Long.valueOf(versionEsperada));
+    }
+
+    private void realizarCheckOut(int reservaId, Long versionEsperada) {
         Reserva r = buscarReservaPorId(reservaId);
         if (r == null) throw new NoSuchElementException("Reserva no encontrada "
                 + "con ID: " + reservaId);
 
-        // Solo se permite check-out si la reserva ya tiene check-in realizado
-        if (r.getEstado() != EstadoReserva.CHECK_IN_REALIZADO) {
-            throw new IllegalStateException("Solo se puede hacer check-out de una reserva con check-in realizado.");
-        }
+        Lock cerrojo = bloqueos.de(r.getHabitacion().getNumero());
+        cerrojo.lock();
+        try {
+            comprobarVersion(r, versionEsperada);
+            // Solo se permite check-out si la reserva ya tiene check-in realizado
+            if (r.getEstado() != EstadoReserva.CHECK_IN_REALIZADO) {
+                throw new IllegalStateException("Solo se puede hacer check-out de una reserva con check-in realizado.");
+            }
 
-        // Verificar que exista una factura pagada asociada a la reserva
-        boolean pagada = sistema.getFacturas().stream()
-                .anyMatch(f -> f.getReserva().getId() == reservaId && f.estaPagada());
-        if (!pagada) {
-            throw new IllegalStateException("No se puede hacer check-out: la factura de la reserva aún no está pagada.");
-        }
+            // Verificar que exista una factura pagada asociada a la reserva
+            // (índice por reserva: no se recorren las facturas con el cerrojo)
+            Factura factura = sistema.getFacturaDeReserva(reservaId);
+            if (factura == null || !factura.estaPagada()) {
+                throw new IllegalStateException("No se puede hacer check-out: la factura de la reserva aún no está pagada.");
+            }
 
-        // 1. Cambiar estado a FINALIZADA
-        r.realizarCheckOut();
+            // 1. Cambiar estado a FINALIZADA
+            r.realizarCheckOut();
+            gestionHabitaciones.liberarEstancia(r);
         
-        // 2. Liberar habitación 
-        gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(), 
-                EstadoHabitacion.DISPONIBLE);
+            // 2. Liberar habitación 
+            gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(), 
+                    EstadoHabitacion.DISPONIBLE);
         
-        // 3. Guardar cambios
-        sistema.guardarReservas();
-        sistema.guardarHabitaciones();
+            // 3. Guardar cambios
+            sistema.registrarCambioReserva(r);
+            publicar(EventoHotel.Tipo.RESERVA_MODIFICADA, r);
+        } finally {
+            cerrojo.unlock();
+        }
     }
 
     public void cancelarReserva(int reservaId) {
+        cancelarReserva(reservaId, null);
+    }
+
+    /** Cancelación optimista: solo si la reserva sigue en la versión leída. */
+    public void cancelarReserva(int reservaId, long versionEsperada) {
+        cancelarReserva(reservaId, Long.valueOf(versionEsperada));
+    }
+
+    private void cancelarReserva(int reservaId, Long versionEsperada) {
         Reserva r = buscarReservaPorId(reservaId);
         if (r == null) throw new NoSuchElementException("Reserva no encontrada "
                 + "con ID: " + reservaId);
 
-        // Solo se puede cancelar si aún no se ha hecho check-in ni check-out
-        if (r.getEstado() != EstadoReserva.CONFIRMADA) {
-            throw new IllegalStateException("Solo se puede cancelar una reserva CONFIRMADA sin check-in.");
-        }
+        Lock cerrojo = bloqueos.de(r.getHabitacion().getNumero());
+        cerrojo.lock();
+        try {
+            comprobarVersion(r, versionEsperada);
+            // Solo se puede cancelar si aún no se ha hecho check-in ni check-out
+            if (r.getEstado() != EstadoReserva.CONFIRMADA) {
+                throw new IllegalStateException("Solo se puede cancelar una reserva CONFIRMADA sin check-in.");
+            }
 
-        r.setEstado(EstadoReserva.CANCELADA);
+            r.setEstado(EstadoReserva.CANCELADA);
+            gestionHabitaciones.liberarEstancia(r);
 
-        // Volver a marcar habitación como DISPONIBLE al cancelar
-        gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
-                EstadoHabitacion.DISPONIBLE);
+            // Volver a marcar habitación como DISPONIBLE al cancelar
+            gestionHabitaciones.cambiarEstadoHabitacion(r.getHabitacion().getNumero(),
+                    EstadoHabitacion.DISPONIBLE);
 
-        sistema.guardarReservas();
-        sistema.guardarHabitaciones();
+            sistema.registrarCambioReserva(r);
+            publicar(EventoHotel.Tipo.RESERVA_MODIFICADA, r);
+        } finally {
+            cerrojo.unlock();
+        }
     }
     
     // Método para borrar reserva físicamente (Admin)
@@ -144,22 +309,60 @@ public class GestionReservas {
         if (r == null) throw new IllegalArgumentException("Reserva no "
                 + "encontrada.");
         
-        // Solo permitir borrar si no está activa
-        if (r.getEstado() == EstadoReserva.CONFIRMADA || r.getEstado() 
-                == EstadoReserva.CHECK_IN_REALIZADO) {
-            throw new IllegalStateException("No se puede borrar una reserva "
-                    + "activa. Cancélela primero.");
-        }
+        Lock cerrojo = bloqueos.de(r.getHabitacion().getNumero());
+        cerrojo.lock();
+        try {
+            // Solo permitir borrar si no está activa
+            if (r.getEstado() == EstadoReserva.CONFIRMADA || r.getEstado() 
+                    == EstadoReserva.CHECK_IN_REALIZADO) {
+                throw new IllegalStateException("No se puede borrar una reserva "
+                        + "activa. Cancélela primero.");
+            }
         
-        reservas.remove(r);
-        sistema.guardarReservas();
+            // Si había ids repetidos, el índice pasa a encontrar la siguiente
+            reservas.remove(r);
+            gestionHabitaciones.liberarEstancia(r);
+            sistema.guardarReserva(r);
+            publicar(EventoHotel.Tipo.RESERVA_BORRADA, r);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con el cerrojo de la habitación de la reserva 
+     * tomado, como las transiciones de estado (p. ej. facturarla).
+     */
+    <T> T conCerrojoDe(Reserva r, Supplier<T> accion) {
+        Lock cerrojo = bloqueos.de(r.getHabitacion().getNumero());
+        cerrojo.lock();
+        try {
+            return accion.get();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /** Bus al que se publican los cambios de reservas (null = ninguno). */
+    void setBusEventos(BusEventos bus) {
+        this.bus = bus;
     }
 
+    private void publicar(EventoHotel.Tipo tipo, Reserva r) {
+        if (bus != null) bus.publicar(tipo, r);
+    }
+
+    // Los cambios de estado de una reserva se hacen siempre con el cerrojo de 
+    // su habitación tomado, así que comprobar aquí la versión basta
+    private static void comprobarVersion(Reserva r, Long versionEsperada) {
+        if (versionEsperada != null && r.getVersion() != versionEsperada) {
+            throw Version.obsoleta(versionEsperada, r.getVersion());
+        }
+    }
+
+    // Índice por id del registro de reservas, sin recorrer la lista
     public Reserva buscarReservaPorId(int id) {
-        return reservas.stream()
-                .filter(r -> r.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return datos.buscarReserva(id);
     }
 
     public List<Reserva> getReservasDeClientePorCedula(String cedula) {
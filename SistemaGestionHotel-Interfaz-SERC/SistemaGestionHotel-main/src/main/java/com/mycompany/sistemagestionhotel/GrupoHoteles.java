@@ -0,0 +1,190 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Varios hoteles en una misma JVM. Cada propiedad es un SistemaGestionHotel
+ * independiente, con sus propios datos, gestores, cerrojos, diario e ids, en
+ * su propio directorio bajo la raíz del grupo (hotel.grupo.dir, por defecto
+ * "hoteles"). El id de un hotel es el nombre de su directorio.
+ *
+ * Las operaciones de un hotel se enrutan con hotel(id), y cada hotel se carga
+ * la primera vez que se usa. Las consultas de todo el grupo lanzan un hilo
+ * virtual por hotel, así que los hoteles se cargan y consultan a la vez,
+ * repartidos entre los núcleos.
+ *
+ * Puntos de entrada: la API sirve todo el grupo con -Dhotel.grupo=true, y
+ * la consola y la GUI abren una propiedad si reciben su id como argumento.
+ */
+public class GrupoHoteles {
+
+    /** Un hotel del grupo; se carga al primer uso. */
+    private static final class Propiedad {
+        private final Path directorio;
+        private volatile SistemaGestionHotel sistema;
+        // No synchronized: la carga espera a sus propios hilos virtuales y,
+        // dentro de un monitor, el hilo virtual que carga fijaría su portador
+        private final Lock carga = new ReentrantLock();
+
+        Propiedad(Path directorio) {
+            this.directorio = directorio;
+        }
+
+        SistemaGestionHotel sistema() {
+            SistemaGestionHotel s = sistema;
+            if (s == null) {
+                carga.lock();
+                try {
+                    s = sistema;
+                    if (s == null) sistema = s = new SistemaGestionHotel(directorio);
+                } finally {
+                    carga.unlock();
+                }
+            }
+            return s;
+        }
+    }
+
+    private final Path raiz;
+    // Por id, para que los resultados del grupo salgan siempre en el mismo orden
+    private final NavigableMap<String, Propiedad> propiedades = new ConcurrentSkipListMap<>();
+
+    public GrupoHoteles() throws IOException {
+        this(Paths.get(System.getProperty("hotel.grupo.dir", "hoteles")));
+    }
+
+    /** Un hotel por cada subdirectorio de la raíz; no se carga ninguno todavía. */
+    public GrupoHoteles(Path raiz) throws IOException {
+        this.raiz = raiz;
+        Files.createDirectories(raiz);
+        try (DirectoryStream<Path> directorios = Files.newDirectoryStream(raiz, Files::isDirectory)) {
+            for (Path d : directorios) {
+                propiedades.put(d.getFileName().toString(), new Propiedad(d));
+            }
+        }
+    }
+
+    /**
+     * Hotel de la consola o la GUI: sin argumentos el de siempre (en 
+     * "datos"); con un id, esa propiedad del grupo.
+     * @throws NoSuchElementException si el id no es del grupo.
+     */
+    public static SistemaGestionHotel abrir(String[] args) throws IOException {
+        if (args.length == 0) return new SistemaGestionHotel();
+        GrupoHoteles grupo = new GrupoHoteles();
+        if (!grupo.propiedades.containsKey(args[0])) {
+            throw new NoSuchElementException("Hotel no encontrado: " + args[0] 
+                    + " (hoteles en " + grupo.raiz + ": " + grupo.getIdsHoteles() + ")");
+        }
+        return grupo.hotel(args[0]);
+    }
+
+    public Set<String> getIdsHoteles() {
+        return Collections.unmodifiableSet(propiedades.keySet());
+    }
+
+    /**
+     * El hotel con ese id, cargándolo si es la primera vez.
+     * @throws NoSuchElementException si no es del grupo.
+     */
+    public SistemaGestionHotel hotel(String id) {
+        Propiedad p = propiedades.get(id);
+        if (p == null) throw new NoSuchElementException("Hotel no encontrado: " + id);
+        return p.sistema();
+    }
+
+    /**
+     * Da de alta una propiedad nueva, con su directorio vacío.
+     * @throws IllegalArgumentException si el id no es válido o ya existe.
+     */
+    public SistemaGestionHotel agregarHotel(String id) throws IOException {
+        if (id == null || !id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Id de hotel inválido (use letras, "
+                    + "números, '-' o '_'): " + id);
+        }
+        if (propiedades.containsKey(id)) {
+            throw new IllegalArgumentException("Ya existe el hotel " + id);
+        }
+        Path directorio = raiz.resolve(id);
+        Files.createDirectories(directorio);
+        Propiedad nueva = new Propiedad(directorio);
+        if (propiedades.putIfAbsent(id, nueva) != null) {
+            throw new IllegalArgumentException("Ya existe el hotel " + id);
+        }
+        return nueva.sistema();
+    }
+
+    // ==========================================
+    // CONSULTAS DE TODO EL GRUPO
+    // ==========================================
+
+    /**
+     * Ejecuta la consulta en todos los hoteles a la vez (cargando los que
+     * falten) y espera a que terminen todos.
+     * @return el resultado de cada hotel, por id.
+     */
+    public <T> Map<String, T> enTodos(Function<SistemaGestionHotel, T> consulta) {
+        Map<String, CompletableFuture<T>> pendientes = new LinkedHashMap<>();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, Propiedad> e : propiedades.entrySet()) {
+                Propiedad p = e.getValue();
+                pendientes.put(e.getKey(), CompletableFuture.supplyAsync(
+                        () -> consulta.apply(p.sistema()), hilos));
+            }
+        }
+        Map<String, T> resultados = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<T>> e : pendientes.entrySet()) {
+            try {
+                resultados.put(e.getKey(), e.getValue().join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException r) throw r;
+                if (ex.getCause() instanceof Error err) throw err;
+                throw ex;
+            }
+        }
+        return resultados;
+    }
+
+    /** Habitaciones libres en [desde, hasta) en cada hotel del grupo. */
+    public Map<String, List<Habitacion>> buscarDisponibilidad(LocalDate desde,
+            LocalDate hasta) {
+        return enTodos(s -> s.getGestionHabitaciones()
+                .buscarHabitacionesDisponibles(desde, hasta));
+    }
+
+    /** Reservas del cliente en cualquier hotel (solo los hoteles donde tiene). */
+    public Map<String, List<Reserva>> reservasDeCliente(String cedula) {
+        Map<String, List<Reserva>> porHotel = enTodos(s -> s.getGestionReservas()
+                .getReservasDeClientePorCedula(cedula));
+        porHotel.values().removeIf(List::isEmpty);
+        return porHotel;
+    }
+
+    /** Cierra los hoteles que llegaron a cargarse. */
+    public void cerrar() {
+        for (Propiedad p : propiedades.values()) {
+            SistemaGestionHotel s = p.sistema;
+            if (s != null) s.cerrar();
+        }
+    }
+}
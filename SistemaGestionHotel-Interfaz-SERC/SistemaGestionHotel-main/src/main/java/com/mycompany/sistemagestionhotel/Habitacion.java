@@ -3,8 +3,10 @@ package com.mycompany.sistemagestionhotel;
 public class Habitacion {
     private int numero;
     private String tipo;
-    private double precio;
-    private EstadoHabitacion estado; // DISPONIBLE, RESERVADA, OCUPADA, etc.
+    // volatile: se leen desde varias recepciones y desde el hilo escritor
+    private volatile double precio;
+    private volatile EstadoHabitacion estado; // DISPONIBLE, RESERVADA, OCUPADA, etc.
+    private final Version version = new Version();
 
     public Habitacion(int numero, String tipo, double precio, 
             EstadoHabitacion estado) {
@@ -23,7 +25,7 @@ public class Habitacion {
     }
 
     public void setPrecio(double precio) {
-        this.precio = precio;
+        version.escribir(() -> this.precio = precio);
     }
 
     public int getNumero() {
@@ -35,16 +37,46 @@ public class Habitacion {
     }
 
     public void setEstado(EstadoHabitacion estado) {
-        this.estado = estado;
+        version.escribir(() -> this.estado = estado);
+    }
+
+    /** Versión para ediciones optimistas; sube con cada cambio. */
+    public long getVersion() {
+        return version.actual();
+    }
+
+    /**
+     * Cambia precio y/o estado (null = sin cambios) solo si nadie ha
+     * modificado la habitación desde que se leyó su versión.
+     */
+    void actualizar(long versionEsperada, Double precio, EstadoHabitacion estado) {
+        version.actualizar(versionEsperada, () -> {
+            if (precio != null) this.precio = precio;
+            if (estado != null) this.estado = estado;
+        });
     }
 
     public String getTipo() {
         return tipo;
     }
 
+    /** Copia suelta con los valores de un mismo instante y su misma versión. */
+    Habitacion copia() {
+        return version.leer(sello -> {
+            Habitacion c = new Habitacion(numero, tipo, precio, estado);
+            c.version.igualar(sello);
+            return c;
+        });
+    }
+
+    long sello() {
+        return version.sello();
+    }
+
     // Persistencia sencilla a CSV
     public String toCsv() {
-        return numero + ";" + tipo + ";" + precio + ";" + estado.name();
+        return numero + ";" + PersistenciaDatos.escapeCsv(tipo) + ";" + precio + ";" 
+                + estado.name();
     }
 
     public static Habitacion fromCsv(String linea) {
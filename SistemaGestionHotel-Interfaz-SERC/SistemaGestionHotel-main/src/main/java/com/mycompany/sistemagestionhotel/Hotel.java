@@ -1,23 +1,44 @@
 package com.mycompany.sistemagestionhotel;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Hotel {
     private String nombre;
     private String direccion;
     private String telefono;
-    private List<Habitacion> habitaciones;
+    // Copia en escritura: se agregan habitaciones muy rara vez y se recorren 
+    // constantemente (también desde el hilo escritor), así que las lecturas 
+    // no copian ni bloquean
+    private final List<Habitacion> habitaciones = new CopyOnWriteArrayList<>();
+    private final List<Habitacion> vista = Collections.unmodifiableList(habitaciones);
+    private final Map<Integer, Habitacion> porNumero = new HashMap<>();
 
     public Hotel(String nombre, String direccion, String telefono) {
         this.nombre = nombre;
         this.direccion = direccion;
         this.telefono = telefono;
-        this.habitaciones = new ArrayList<>();
     }
 
-    public void agregarHabitacion(Habitacion habitacion) {
+    public synchronized void agregarHabitacion(Habitacion habitacion) {
         habitaciones.add(habitacion);
+        // Con números repetidos manda la primera, como en la búsqueda lineal
+        porNumero.putIfAbsent(habitacion.getNumero(), habitacion);
+    }
+
+    /** Quita todas las habitaciones (antes de volver a cargarlas). */
+    public synchronized void vaciarHabitaciones() {
+        habitaciones.clear();
+        porNumero.clear();
+    }
+
+    /** Búsqueda por número en tiempo constante; null si no existe. */
+    public synchronized Habitacion buscarHabitacion(int numero) {
+        return porNumero.get(numero);
     }
 
     // Solo devuelve las habitaciones marcadas como "Disponible"
@@ -43,7 +64,8 @@ public class Hotel {
         return telefono;
     }
 
+    /** Vista de solo lectura; no copia la lista. */
     public List<Habitacion> getHabitaciones() {
-        return new ArrayList<>(habitaciones);
+        return vista;
     }
 }
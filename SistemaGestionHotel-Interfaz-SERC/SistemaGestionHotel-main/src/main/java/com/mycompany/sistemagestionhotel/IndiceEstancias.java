@@ -0,0 +1,158 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de estancias activas por habitación. Solo guarda las reservas que
+ * bloquean fechas (ni CANCELADA ni FINALIZADA), ordenadas por fecha de
+ * inicio, así que el histórico no influye en el coste de las consultas.
+ *
+ * Una estancia [inicio, fin) solapa con [a, b) si inicio &lt; b y fin &gt; a.
+ * Como ninguna estancia de la habitación dura más de maxNoches, basta con
+ * mirar las que empiezan en (a - maxNoches, b): O(log n) más las pocas
+ * estancias de esa ventana.
+ *
+ * Admite varios hilos: el mapa de habitaciones es concurrente y cada
+ * habitación se consulta y modifica bajo el monitor de sus Estancias.
+ */
+class IndiceEstancias {
+
+    private static class Estancias {
+        final TreeMap<LocalDate, List<Reserva>> porInicio = new TreeMap<>();
+        long maxNoches;
+        int sinNoches;      // estancias con fin <= inicio
+    }
+
+    private final Map<Integer, Estancias> porHabitacion = new ConcurrentHashMap<>();
+
+    IndiceEstancias(List<Reserva> reservas) {
+        for (Reserva r : reservas) agregar(r);
+    }
+
+    /** Indica si la reserva ocupa su habitación en sus fechas. */
+    static boolean bloquea(Reserva r) {
+        return r.getEstado() != EstadoReserva.CANCELADA
+                && r.getEstado() != EstadoReserva.FINALIZADA;
+    }
+
+    /** Registra la reserva si está activa. */
+    void agregar(Reserva r) {
+        if (!bloquea(r)) return;
+        Estancias e = porHabitacion.computeIfAbsent(r.getHabitacion().getNumero(),
+                k -> new Estancias());
+        synchronized (e) {
+            e.porInicio.computeIfAbsent(r.getFechaInicio(), k -> new ArrayList<>(1)).add(r);
+            e.maxNoches = Math.max(e.maxNoches,
+                    ChronoUnit.DAYS.between(r.getFechaInicio(), r.getFechaFin()));
+            if (!r.getFechaFin().isAfter(r.getFechaInicio())) e.sinNoches++;
+        }
+    }
+
+    /** Quita la reserva del índice, sea cual sea ya su estado. */
+    void quitar(Reserva r) {
+        Estancias e = porHabitacion.get(r.getHabitacion().getNumero());
+        if (e == null) return;
+        synchronized (e) {
+            List<Reserva> mismoInicio = e.porInicio.get(r.getFechaInicio());
+            if (mismoInicio == null) return;
+            if (!mismoInicio.removeIf(x -> x == r)) return;
+            if (mismoInicio.isEmpty()) e.porInicio.remove(r.getFechaInicio());
+            if (!r.getFechaFin().isAfter(r.getFechaInicio())) e.sinNoches--;
+        }
+    }
+
+    /**
+     * Las estancias sin noches no ocupan ningún día del calendario pero, con 
+     * el criterio de solapamiento, sí bloquean rangos que las contienen.
+     */
+    boolean tieneEstanciasSinNoches(int numeroHabitacion) {
+        Estancias e = porHabitacion.get(numeroHabitacion);
+        if (e == null) return false;
+        synchronized (e) {
+            return e.sinNoches > 0;
+        }
+    }
+
+    /**
+     * @return true si alguna estancia activa de la habitación solapa con
+     * [inicio, fin).
+     */
+    boolean estaOcupada(int numeroHabitacion, LocalDate inicio, LocalDate fin) {
+        Estancias e = porHabitacion.get(numeroHabitacion);
+        if (e == null) return false;
+        synchronized (e) {
+            LocalDate desde = inicio.minusDays(e.maxNoches);
+            if (!fin.isAfter(desde)) return false;
+            for (List<Reserva> lista : e.porInicio.subMap(desde, false, fin, false).values()) {
+                for (Reserva r : lista) {
+                    if (r.getFechaFin().isAfter(inicio)) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Estancias activas de la habitación que solapan con [inicio, fin). */
+    List<Reserva> solapadas(int numeroHabitacion, LocalDate inicio, LocalDate fin) {
+        List<Reserva> resultado = new ArrayList<>();
+        Estancias e = porHabitacion.get(numeroHabitacion);
+        if (e == null) return resultado;
+        synchronized (e) {
+            LocalDate desde = inicio.minusDays(e.maxNoches);
+            if (!fin.isAfter(desde)) return resultado;
+            for (List<Reserva> lista : e.porInicio.subMap(desde, false, fin, false).values()) {
+                for (Reserva r : lista) {
+                    if (r.getFechaFin().isAfter(inicio)) resultado.add(r);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Huecos libres de la habitación dentro de [desde, hasta), en orden, como
+     * {inicio, fin} en epochDay. Sale de recorrer sus estancias por fecha de
+     * inicio; una estancia sin noches parte el hueco en su fecha, porque 
+     * bloquea los rangos que la contienen.
+     */
+    List<long[]> huecos(int numeroHabitacion, LocalDate desde, LocalDate hasta) {
+        List<long[]> huecos = new ArrayList<>();
+        long cursor = desde.toEpochDay();
+        Estancias e = porHabitacion.get(numeroHabitacion);
+        if (e != null) {
+            synchronized (e) {
+                LocalDate primera = desde.minusDays(e.maxNoches);
+                if (hasta.isAfter(primera)) {
+                    for (List<Reserva> lista : e.porInicio.subMap(primera, false, 
+                            hasta, false).values()) {
+                        for (Reserva r : lista) {
+                            long inicio = r.getFechaInicio().toEpochDay();
+                            if (inicio > cursor) huecos.add(new long[]{cursor, inicio});
+                            cursor = Math.max(cursor, 
+                                    Math.max(inicio, r.getFechaFin().toEpochDay()));
+                        }
+                    }
+                }
+            }
+        }
+        if (hasta.toEpochDay() > cursor) huecos.add(new long[]{cursor, hasta.toEpochDay()});
+        return huecos;
+    }
+
+    /** Todas las estancias activas, habitación a habitación. */
+    List<Reserva> activas() {
+        List<Reserva> resultado = new ArrayList<>();
+        for (Estancias e : porHabitacion.values()) {
+            synchronized (e) {
+                for (List<Reserva> lista : e.porInicio.values()) resultado.addAll(lista);
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índices secundarios de habitaciones: por tipo y por precio (mapa
+ * ordenado). Se guarda el precio con el que se indexó cada habitación para
+ * poder moverla cuando cambia; quien modifique precio o tipo debe llamar a
+ * reindexar. Los métodos están sincronizados y devuelven copias, porque las
+ * búsquedas pueden llegar desde varios hilos.
+ */
+class IndiceHabitaciones {
+    private final Map<String, List<Habitacion>> porTipo = new HashMap<>();
+    private final TreeMap<Double, List<Habitacion>> porPrecio = new TreeMap<>();
+    private final Map<Integer, Habitacion> indexadas = new HashMap<>();
+    private final Map<Integer, Double> precioIndexado = new HashMap<>();
+    private final Map<Integer, String> tipoIndexado = new HashMap<>();
+
+    IndiceHabitaciones(Collection<Habitacion> habitaciones) {
+        for (Habitacion h : habitaciones) agregar(h);
+    }
+
+    static String claveTipo(String tipo) {
+        return tipo == null ? "" : tipo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    synchronized void agregar(Habitacion h) {
+        quitar(h.getNumero());
+        String tipo = claveTipo(h.getTipo());
+        porTipo.computeIfAbsent(tipo, k -> new ArrayList<>()).add(h);
+        porPrecio.computeIfAbsent(h.getPrecio(), k -> new ArrayList<>()).add(h);
+        indexadas.put(h.getNumero(), h);
+        precioIndexado.put(h.getNumero(), h.getPrecio());
+        tipoIndexado.put(h.getNumero(), tipo);
+    }
+
+    /** Vuelve a colocar la habitación tras cambiar su precio o su tipo. */
+    synchronized void reindexar(Habitacion h) {
+        agregar(h);
+    }
+
+    private void quitar(int numero) {
+        Habitacion anterior = indexadas.remove(numero);
+        if (anterior == null) return;
+        quitarDe(porTipo, tipoIndexado.remove(numero), anterior);
+        quitarDe(porPrecio, precioIndexado.remove(numero), anterior);
+    }
+
+    private static <K> void quitarDe(Map<K, List<Habitacion>> indice, K clave,
+            Habitacion h) {
+        List<Habitacion> lista = indice.get(clave);
+        if (lista == null) return;
+        lista.removeIf(x -> x == h);
+        if (lista.isEmpty()) indice.remove(clave);
+    }
+
+    synchronized List<Habitacion> delTipo(String tipo) {
+        return new ArrayList<>(porTipo.getOrDefault(claveTipo(tipo), List.of()));
+    }
+
+    /**
+     * Habitaciones con precio en [minimo, maximo] (null = sin tope), en orden
+     * de precio (y de número a igual precio).
+     */
+    synchronized List<Habitacion> porPrecio(Double minimo, Double maximo, 
+            boolean descendente) {
+        NavigableMap<Double, List<Habitacion>> vista = porPrecio;
+        if (minimo != null) vista = vista.tailMap(minimo, true);
+        if (maximo != null) vista = vista.headMap(maximo, true);
+        if (descendente) vista = vista.descendingMap();
+        List<Habitacion> resultado = new ArrayList<>();
+        for (List<Habitacion> mismoPrecio : vista.values()) {
+            int desde = resultado.size();
+            resultado.addAll(mismoPrecio);
+            resultado.subList(desde, resultado.size())
+                    .sort(Comparator.comparingInt(Habitacion::getNumero));
+        }
+        return resultado;
+    }
+}
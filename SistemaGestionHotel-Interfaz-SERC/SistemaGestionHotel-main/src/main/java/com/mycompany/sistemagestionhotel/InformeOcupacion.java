@@ -0,0 +1,169 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Informe diario de ocupación, tarifa media (ADR) y RevPAR para un rango de
+ * fechas, en total y opcionalmente por tipo de habitación.
+ *
+ * Cada reserva no cancelada aporta dos eventos (entrada y salida) recortados
+ * al rango; se ordenan una vez y un único barrido día a día acumula
+ * habitaciones ocupadas e ingresos, así que el coste es O(R log R + días) y
+ * no depende de recorrer las reservas una vez por día. Las reservas
+ * confirmadas a futuro cuentan como previsión.
+ */
+public class InformeOcupacion {
+    public static final String TOTAL = "TOTAL";
+
+    /** Una fila: un día y un tipo de habitación (o TOTAL). */
+    public static class Fila {
+        private final LocalDate fecha;
+        private final String tipo;
+        private final int habitaciones;
+        private final int ocupadas;
+        private final long ingresosCentimos;
+
+        Fila(LocalDate fecha, String tipo, int habitaciones, int ocupadas,
+                long ingresosCentimos) {
+            this.fecha = fecha;
+            this.tipo = tipo;
+            this.habitaciones = habitaciones;
+            this.ocupadas = ocupadas;
+            this.ingresosCentimos = ingresosCentimos;
+        }
+
+        public LocalDate getFecha() { return fecha; }
+        public String getTipo() { return tipo; }
+        public int getHabitaciones() { return habitaciones; }
+        public int getOcupadas() { return ocupadas; }
+        public double getIngresos() { return ingresosCentimos / 100.0; }
+
+        /** Ocupadas / habitaciones, entre 0 y 1. */
+        public double getOcupacion() {
+            return habitaciones == 0 ? 0 : (double) ocupadas / habitaciones;
+        }
+
+        /** Tarifa media por habitación ocupada. */
+        public double getAdr() {
+            return ocupadas == 0 ? 0 : getIngresos() / ocupadas;
+        }
+
+        /** Ingresos por habitación del inventario. */
+        public double getRevpar() {
+            return habitaciones == 0 ? 0 : getIngresos() / habitaciones;
+        }
+    }
+
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final List<Fila> filas;
+
+    private InformeOcupacion(LocalDate desde, LocalDate hasta, List<Fila> filas) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.filas = Collections.unmodifiableList(filas);
+    }
+
+    /**
+     * Calcula el informe de las noches de [desde, hasta).
+     * @param porTipo además del total, una fila por tipo de habitación y día.
+     */
+    public static InformeOcupacion generar(List<Habitacion> habitaciones,
+            List<Reserva> reservas, LocalDate desde, LocalDate hasta, boolean porTipo) {
+        if (!hasta.isAfter(desde)) {
+            throw new IllegalArgumentException("El rango del informe debe tener "
+                    + "al menos un día.");
+        }
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta);
+
+        // Grupo 0 = total; los tipos, en orden alfabético, a partir del 1
+        Map<String, String> nombres = new TreeMap<>();
+        for (Habitacion h : habitaciones) nombres.putIfAbsent(clave(h), h.getTipo());
+        for (Reserva r : reservas) {
+            nombres.putIfAbsent(clave(r.getHabitacion()), r.getHabitacion().getTipo());
+        }
+        List<String> claves = new ArrayList<>(nombres.keySet());
+        int grupos = porTipo ? claves.size() + 1 : 1;
+        int[] capacidad = new int[grupos];
+        for (Habitacion h : habitaciones) {
+            capacidad[0]++;
+            if (porTipo) capacidad[1 + Collections.binarySearch(claves, clave(h))]++;
+        }
+
+        // Eventos: día relativo en los 32 bits altos; 2*i entrada, 2*i+1 salida
+        long[] eventos = new long[reservas.size() * 2];
+        int n = 0;
+        long base = desde.toEpochDay();
+        for (int i = 0; i < reservas.size(); i++) {
+            Reserva r = reservas.get(i);
+            if (r.getEstado() == EstadoReserva.CANCELADA) continue;
+            long entrada = Math.max(r.getFechaInicio().toEpochDay(), base) - base;
+            long salida = Math.min(r.getFechaFin().toEpochDay(), base + dias) - base;
+            if (entrada >= salida) continue;
+            eventos[n++] = (entrada << 32) | (2L * i);
+            eventos[n++] = (salida << 32) | (2L * i + 1);
+        }
+        Arrays.sort(eventos, 0, n);
+
+        int[] ocupadas = new int[grupos];
+        long[] ingresos = new long[grupos];
+        List<Fila> filas = new ArrayList<>(dias * grupos);
+        int e = 0;
+        for (int d = 0; d < dias; d++) {
+            for (; e < n && (eventos[e] >>> 32) == d; e++) {
+                int indice = (int) (eventos[e] & 0xFFFFFFFFL);
+                Habitacion h = reservas.get(indice / 2).getHabitacion();
+                int signo = indice % 2 == 0 ? 1 : -1;
+                long tarifa = Math.round(h.getPrecio() * 100);
+                ocupadas[0] += signo;
+                ingresos[0] += signo * tarifa;
+                if (porTipo) {
+                    int g = 1 + Collections.binarySearch(claves, clave(h));
+                    ocupadas[g] += signo;
+                    ingresos[g] += signo * tarifa;
+                }
+            }
+            LocalDate fecha = desde.plusDays(d);
+            for (int g = 1; g < grupos; g++) {
+                filas.add(new Fila(fecha, nombres.get(claves.get(g - 1)), capacidad[g],
+                        ocupadas[g], ingresos[g]));
+            }
+            filas.add(new Fila(fecha, TOTAL, capacidad[0], ocupadas[0], ingresos[0]));
+        }
+        return new InformeOcupacion(desde, hasta, filas);
+    }
+
+    private static String clave(Habitacion h) {
+        return IndiceHabitaciones.claveTipo(h.getTipo());
+    }
+
+    public LocalDate getDesde() { return desde; }
+    public LocalDate getHasta() { return hasta; }
+    public List<Fila> getFilas() { return filas; }
+
+    /** Filas en formato CSV (separador ';', punto decimal), con cabecera. */
+    public List<String> comoCsv() {
+        List<String> lineas = new ArrayList<>(filas.size() + 1);
+        lineas.add("Fecha;Tipo;Habitaciones;Ocupadas;Ocupacion;ADR;RevPAR;Ingresos");
+        for (Fila f : filas) {
+            lineas.add(String.format(Locale.ROOT, "%s;%s;%d;%d;%.4f;%.2f;%.2f;%.2f",
+                    f.getFecha(), f.getTipo(), f.getHabitaciones(), f.getOcupadas(),
+                    f.getOcupacion(), f.getAdr(), f.getRevpar(), f.getIngresos()));
+        }
+        return lineas;
+    }
+
+    public void exportarCsv(Path destino) throws IOException {
+        EscrituraAtomica.escribir(destino, comoCsv());
+    }
+}
@@ -0,0 +1,311 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instantánea binaria compacta de DatosHotel para arranques rápidos.
+ *
+ * Formato (big-endian):
+ *  cabecera   : MAGIA, VERSION, nº de textos, habitaciones, clientes, reservas, facturas
+ *  textos     : diccionario; cada texto distinto se guarda una vez (longitud + UTF-8)
+ *  hotel      : 3 índices al diccionario
+ *  habitación : numero, tipo, precio, estado               (TAM_HABITACION bytes)
+ *  cliente    : id, nombre, cedula, email, telefono        (TAM_CLIENTE bytes)
+ *  reserva    : id, inicio, fin, estado, habitación, cedula, metodoPago (TAM_RESERVA bytes)
+ *  factura    : id, fecha, subtotal, iva, total, metodoPago, reserva, pagada (TAM_FACTURA bytes)
+ *
+ * Las fechas van como día epoch, los estados como ordinal y las referencias
+ * como posición en su sección, así que la lectura no necesita búsquedas.
+ */
+class InstantaneaBinaria {
+    private static final int MAGIA = 0x48474231; // "HGB1"
+    private static final int VERSION = 1;
+
+    private static final int TAM_HABITACION = 4 + 4 + 8 + 4;
+    private static final int TAM_CLIENTE = 4 * 5;
+    private static final int TAM_RESERVA = 4 * 7;
+    private static final int TAM_FACTURA = 4 + 4 + 8 * 3 + 4 + 4 + 4;
+
+    private static final EstadoHabitacion[] ESTADOS_HABITACION = EstadoHabitacion.values();
+    private static final EstadoReserva[] ESTADOS_RESERVA = EstadoReserva.values();
+
+    private final Path archivo;
+
+    InstantaneaBinaria(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    boolean existe() {
+        return Files.exists(archivo);
+    }
+
+    /**
+     * Indica si la instantánea es al menos tan reciente como todos los CSV
+     * indicados; si algún CSV se escribió después, la instantánea está obsoleta.
+     */
+    boolean esVigenteFrente(List<Path> csvs) throws IOException {
+        if (!existe()) return false;
+        long modificada = Files.getLastModifiedTime(archivo).toMillis();
+        for (Path csv : csvs) {
+            if (Files.exists(csv)
+                    && Files.getLastModifiedTime(csv).toMillis() > modificada) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ================= ESCRITURA =================
+
+    void guardar(DatosHotel datos) throws IOException {
+        Hotel hotel = datos.getHotel();
+        List<Habitacion> habitaciones = hotel.getHabitaciones();
+        List<Cliente> clientes = datos.getClientes();
+        List<Reserva> reservas = datos.getReservas();
+        List<Factura> facturas = datos.getFacturas();
+
+        // Diccionario de textos y posiciones de las referencias
+        Map<String, Integer> diccionario = new HashMap<>();
+        List<String> textos = new ArrayList<>();
+        Map<Habitacion, Integer> posHabitacion = new IdentityHashMap<>();
+        for (int i = 0; i < habitaciones.size(); i++) {
+            posHabitacion.put(habitaciones.get(i), i);
+        }
+        Map<Reserva, Integer> posReserva = new IdentityHashMap<>();
+        for (int i = 0; i < reservas.size(); i++) posReserva.put(reservas.get(i), i);
+
+        int[] hotelTextos = {
+            indice(hotel.getNombre(), diccionario, textos),
+            indice(hotel.getDireccion(), diccionario, textos),
+            indice(hotel.getTelefono(), diccionario, textos)
+        };
+        for (Habitacion h : habitaciones) indice(h.getTipo(), diccionario, textos);
+        for (Cliente c : clientes) {
+            indice(c.getNombre(), diccionario, textos);
+            indice(c.getCedula(), diccionario, textos);
+            indice(c.getEmail(), diccionario, textos);
+            indice(c.getTelefono(), diccionario, textos);
+        }
+        for (Reserva r : reservas) {
+            indice(r.getCedulaCheckIn(), diccionario, textos);
+            indice(r.getMetodoPago(), diccionario, textos);
+        }
+        for (Factura f : facturas) indice(f.getMetodoPago(), diccionario, textos);
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Escritor out = new Escritor(canal);
+            out.entero(MAGIA);
+            out.entero(VERSION);
+            out.entero(textos.size());
+            out.entero(habitaciones.size());
+            out.entero(clientes.size());
+            out.entero(reservas.size());
+            out.entero(facturas.size());
+
+            for (String t : textos) {
+                byte[] bytes = t.getBytes(StandardCharsets.UTF_8);
+                out.entero(bytes.length);
+                out.bytes(bytes);
+            }
+            for (int t : hotelTextos) out.entero(t);
+
+            for (Habitacion h : habitaciones) {
+                out.entero(h.getNumero());
+                out.entero(diccionario.get(h.getTipo()));
+                out.decimal(h.getPrecio());
+                out.entero(h.getEstado().ordinal());
+            }
+            for (Cliente c : clientes) {
+                out.entero(c.getId());
+                out.entero(diccionario.get(c.getNombre()));
+                out.entero(diccionario.get(c.getCedula()));
+                out.entero(diccionario.get(c.getEmail()));
+                out.entero(diccionario.get(c.getTelefono()));
+            }
+            for (Reserva r : reservas) {
+                Integer hab = posHabitacion.get(r.getHabitacion());
+                out.entero(r.getId());
+                out.entero((int) r.getFechaInicio().toEpochDay());
+                out.entero((int) r.getFechaFin().toEpochDay());
+                out.entero(r.getEstado().ordinal());
+                out.entero(hab == null ? -1 : hab);
+                out.entero(indice(r.getCedulaCheckIn(), diccionario, textos));
+                out.entero(indice(r.getMetodoPago(), diccionario, textos));
+            }
+            for (Factura f : facturas) {
+                Integer res = posReserva.get(f.getReserva());
+                out.entero(f.getId());
+                out.entero((int) f.getFecha().toEpochDay());
+                out.decimal(f.getSubtotal());
+                out.decimal(f.getIva());
+                out.decimal(f.getTotal());
+                out.entero(indice(f.getMetodoPago(), diccionario, textos));
+                out.entero(res == null ? -1 : res);
+                out.entero(f.estaPagada() ? 1 : 0);
+            }
+            out.vaciar();
+            canal.force(true);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int indice(String texto, Map<String, Integer> diccionario,
+            List<String> textos) {
+        String clave = texto == null ? "" : texto;
+        Integer pos = diccionario.get(clave);
+        if (pos == null) {
+            pos = textos.size();
+            diccionario.put(clave, pos);
+            textos.add(clave);
+        }
+        return pos;
+    }
+
+    // Escritura por bloques para no hacer una llamada al sistema por campo
+    private static class Escritor {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void entero(int v) throws IOException {
+            asegurar(4);
+            buffer.putInt(v);
+        }
+
+        void decimal(double v) throws IOException {
+            asegurar(8);
+            buffer.putDouble(v);
+        }
+
+        void bytes(byte[] b) throws IOException {
+            int desde = 0;
+            while (desde < b.length) {
+                if (!buffer.hasRemaining()) vaciar();
+                int n = Math.min(buffer.remaining(), b.length - desde);
+                buffer.put(b, desde, n);
+                desde += n;
+            }
+        }
+
+        private void asegurar(int n) throws IOException {
+            if (buffer.remaining() < n) vaciar();
+        }
+
+        void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) canal.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    // ================= LECTURA =================
+
+    /**
+     * Reconstruye DatosHotel leyendo la instantánea a través de un
+     * MappedByteBuffer. Devuelve null si el archivo no es una instantánea válida.
+     */
+    DatosHotel cargar() throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer in = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (in.remaining() < 28 || in.getInt() != MAGIA || in.getInt() != VERSION) {
+                return null;
+            }
+            int numTextos = in.getInt();
+            int numHabitaciones = in.getInt();
+            int numClientes = in.getInt();
+            int numReservas = in.getInt();
+            int numFacturas = in.getInt();
+
+            String[] textos = new String[numTextos];
+            byte[] tmp = new byte[64];
+            for (int i = 0; i < numTextos; i++) {
+                int largo = in.getInt();
+                if (largo > tmp.length) tmp = new byte[Math.max(largo, tmp.length * 2)];
+                in.get(tmp, 0, largo);
+                textos[i] = new String(tmp, 0, largo, StandardCharsets.UTF_8);
+            }
+
+            DatosHotel datos = new DatosHotel();
+            Hotel hotel = new Hotel(textos[in.getInt()], textos[in.getInt()],
+                    textos[in.getInt()]);
+            datos.setHotel(hotel);
+
+            Habitacion[] habitaciones = new Habitacion[numHabitaciones];
+            List<Habitacion> listaHabitaciones = new ArrayList<>(numHabitaciones);
+            for (int i = 0; i < numHabitaciones; i++) {
+                int base = in.position();
+                Habitacion h = new Habitacion(in.getInt(base), textos[in.getInt(base + 4)],
+                        in.getDouble(base + 8), ESTADOS_HABITACION[in.getInt(base + 16)]);
+                in.position(base + TAM_HABITACION);
+                habitaciones[i] = h;
+                listaHabitaciones.add(h);
+                hotel.agregarHabitacion(h);
+            }
+            datos.setHabitaciones(listaHabitaciones);
+
+            List<Cliente> clientes = new ArrayList<>(numClientes);
+            for (int i = 0; i < numClientes; i++) {
+                int base = in.position();
+                clientes.add(new Cliente(in.getInt(base), textos[in.getInt(base + 4)],
+                        textos[in.getInt(base + 8)], textos[in.getInt(base + 12)],
+                        textos[in.getInt(base + 16)]));
+                in.position(base + TAM_CLIENTE);
+            }
+            datos.setClientes(clientes);
+
+            Reserva[] reservas = new Reserva[numReservas];
+            List<Reserva> listaReservas = new ArrayList<>(numReservas);
+            for (int i = 0; i < numReservas; i++) {
+                int base = in.position();
+                in.position(base + TAM_RESERVA);
+                int hab = in.getInt(base + 16);
+                if (hab < 0) continue;
+                Reserva r = new Reserva(in.getInt(base),
+                        LocalDate.ofEpochDay(in.getInt(base + 4)),
+                        LocalDate.ofEpochDay(in.getInt(base + 8)),
+                        ESTADOS_RESERVA[in.getInt(base + 12)], habitaciones[hab],
+                        textos[in.getInt(base + 20)], textos[in.getInt(base + 24)]);
+                reservas[i] = r;
+                listaReservas.add(r);
+            }
+            datos.setReservas(listaReservas);
+
+            List<Factura> facturas = new ArrayList<>(numFacturas);
+            for (int i = 0; i < numFacturas; i++) {
+                int base = in.position();
+                in.position(base + TAM_FACTURA);
+                int res = in.getInt(base + 36);
+                if (res < 0 || reservas[res] == null) continue;
+                Factura f = new Factura(in.getInt(base),
+                        LocalDate.ofEpochDay(in.getInt(base + 4)),
+                        in.getDouble(base + 8), in.getDouble(base + 16),
+                        in.getDouble(base + 24), textos[in.getInt(base + 32)],
+                        reservas[res]);
+                if (in.getInt(base + 40) == 1) f.pagar();
+                facturas.add(f);
+            }
+            datos.setFacturas(facturas);
+            return datos;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foto inmutable de habitaciones, clientes, reservas y facturas en un mismo
+ * instante, para informes y listados largos. Son copias sueltas: lo que
+ * cambie después en el hotel no se ve aquí, y las reservas de la foto
+ * apuntan a las habitaciones de la foto (y las facturas a sus reservas).
+ *
+ * Tomarla no bloquea a nadie. Las listas se copian de la vista que cada una
+ * tiene publicada (copy-on-write o RegistroPorId), sin cerrojos; lo que falta es que los valores no cambien a mitad de
+ * copia. Cada entidad se copia con una lectura de su versión (si se cruza
+ * una escritura se repite) y al final se vuelven a mirar listas y versiones:
+ * si nada cambió mientras tanto, la foto es un corte coherente de todo el
+ * hotel. Con mucha escritura se reintenta unas pocas veces y, si no, se
+ * devuelve la última con isCoherente() = false: cada entidad sigue siendo
+ * coherente por sí misma, pero dos de ellas pueden ser de instantes
+ * ligeramente distintos.
+ */
+public final class InstantaneaDatos {
+
+    private static final int INTENTOS = 3;
+
+    private final List<Habitacion> habitaciones;
+    private final List<Cliente> clientes;
+    private final List<Reserva> reservas;
+    private final List<Factura> facturas;
+    private final LocalDateTime momento;
+    private final boolean coherente;
+
+    private InstantaneaDatos(List<Habitacion> habitaciones, List<Cliente> clientes,
+            List<Reserva> reservas, List<Factura> facturas, LocalDateTime momento,
+            boolean coherente) {
+        this.habitaciones = Collections.unmodifiableList(habitaciones);
+        this.clientes = Collections.unmodifiableList(clientes);
+        this.reservas = Collections.unmodifiableList(reservas);
+        this.facturas = Collections.unmodifiableList(facturas);
+        this.momento = momento;
+        this.coherente = coherente;
+    }
+
+    public List<Habitacion> getHabitaciones() { return habitaciones; }
+    public List<Cliente> getClientes() { return clientes; }
+    public List<Reserva> getReservas() { return reservas; }
+    public List<Factura> getFacturas() { return facturas; }
+    public LocalDateTime getMomento() { return momento; }
+
+    /** true si todas las listas corresponden al mismo instante. */
+    public boolean isCoherente() { return coherente; }
+
+    /** Toma la foto sin cerrojos; ver la clase. */
+    static InstantaneaDatos tomar(DatosHotel datos) {
+        InstantaneaDatos foto = null;
+        for (int intento = 0; intento < INTENTOS && (foto == null || !foto.coherente); intento++) {
+            foto = intentar(datos);
+        }
+        return foto;
+    }
+
+    private static InstantaneaDatos intentar(DatosHotel datos) {
+        LocalDateTime momento = LocalDateTime.now();
+        Object[] habitaciones = datos.getHotel().getHabitaciones().toArray();
+        Object[] clientes = datos.getClientes().toArray();
+        Object[] reservas = datos.getReservas().toArray();
+        Object[] facturas = datos.getFacturas().toArray();
+
+        // Sellos de cada copia, en el mismo orden que los originales
+        long[] sellosHab = new long[habitaciones.length];
+        long[] sellosCli = new long[clientes.length];
+        long[] sellosRes = new long[reservas.length];
+        long[] sellosFac = new long[facturas.length];
+
+        Map<Habitacion, Habitacion> copiasHab = new IdentityHashMap<>();
+        List<Habitacion> listaHab = new ArrayList<>(habitaciones.length);
+        for (int i = 0; i < habitaciones.length; i++) {
+            Habitacion h = (Habitacion) habitaciones[i];
+            Habitacion c = h.copia();
+            sellosHab[i] = c.sello();
+            copiasHab.put(h, c);
+            listaHab.add(c);
+        }
+
+        List<Cliente> listaCli = new ArrayList<>(clientes.length);
+        for (int i = 0; i < clientes.length; i++) {
+            Cliente c = ((Cliente) clientes[i]).copia();
+            sellosCli[i] = c.sello();
+            listaCli.add(c);
+        }
+
+        Map<Reserva, Reserva> copiasRes = new IdentityHashMap<>();
+        List<Reserva> listaRes = new ArrayList<>(reservas.length);
+        for (int i = 0; i < reservas.length; i++) {
+            Reserva r = (Reserva) reservas[i];
+            Reserva c = r.copia(copiaHabitacion(r.getHabitacion(), copiasHab));
+            sellosRes[i] = c.sello();
+            copiasRes.put(r, c);
+            listaRes.add(c);
+        }
+
+        List<Factura> listaFac = new ArrayList<>(facturas.length);
+        for (int i = 0; i < facturas.length; i++) {
+            Factura f = (Factura) facturas[i];
+            Reserva r = f.getReserva();
+            Reserva copiaReserva = null;
+            if (r != null) {
+                copiaReserva = copiasRes.get(r);
+                // Reserva ya borrada de la lista: se copia solo para esta factura
+                if (copiaReserva == null) {
+                    copiaReserva = r.copia(copiaHabitacion(r.getHabitacion(), copiasHab));
+                }
+            }
+            Factura c = f.copia(copiaReserva);
+            sellosFac[i] = c.sello();
+            listaFac.add(c);
+        }
+
+        boolean coherente =
+                igual(habitaciones, datos.getHotel().getHabitaciones().toArray())
+                && igual(clientes, datos.getClientes().toArray())
+                && igual(reservas, datos.getReservas().toArray())
+                && igual(facturas, datos.getFacturas().toArray())
+                && sinCambios(habitaciones, sellosHab)
+                && sinCambios(clientes, sellosCli)
+                && sinCambios(reservas, sellosRes)
+                && sinCambios(facturas, sellosFac);
+        return new InstantaneaDatos(listaHab, listaCli, listaRes, listaFac, momento,
+                coherente);
+    }
+
+    private static Habitacion copiaHabitacion(Habitacion h, Map<Habitacion, Habitacion> copias) {
+        if (h == null) return null;
+        // Habitación que ya no está en el hotel: copia propia
+        return copias.computeIfAbsent(h, Habitacion::copia);
+    }
+
+    // Mismos objetos en el mismo orden
+    private static boolean igual(Object[] antes, Object[] despues) {
+        if (antes.length != despues.length) return false;
+        for (int i = 0; i < antes.length; i++) {
+            if (antes[i] != despues[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean sinCambios(Object[] originales, long[] sellos) {
+        for (int i = 0; i < originales.length; i++) {
+            if (sello(originales[i]) != sellos[i]) return false;
+        }
+        return true;
+    }
+
+    private static long sello(Object entidad) {
+        if (entidad instanceof Habitacion h) return h.sello();
+        if (entidad instanceof Cliente c) return c.sello();
+        if (entidad instanceof Reserva r) return r.sello();
+        return ((Factura) entidad).sello();
+    }
+}
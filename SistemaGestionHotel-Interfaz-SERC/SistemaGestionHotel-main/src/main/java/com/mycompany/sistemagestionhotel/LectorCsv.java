@@ -0,0 +1,283 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Lector secuencial de CSV separados por ';'. Lee registro a registro sobre
+ * un único buffer reutilizado y entrega los campos como rangos de caracteres,
+ * de modo que la memoria usada no depende del tamaño del archivo.
+ * Respeta las comillas que escribe PersistenciaDatos.escapeCsv. Una comilla
+ * solo abre un campo entrecomillado al principio del campo; en medio de un
+ * campo sin comillas es un carácter más, para que un '"' suelto en un
+ * archivo antiguo no se coma las líneas siguientes.
+ */
+class LectorCsv implements Closeable {
+    private static final char SEPARADOR = ';';
+    private static final double[] POTENCIAS_10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader entrada;
+    private final char[] lectura = new char[8192];
+    private int posLectura;
+    private int limLectura;
+
+    private char[] datos = new char[256];   // campos del registro ya sin comillas
+    private int[] inicios = new int[16];
+    private int[] fines = new int[16];
+    private int numCampos;
+    private int longitud;
+
+    LectorCsv(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    static LectorCsv abrir(Path archivo) throws IOException {
+        return new LectorCsv(Files.newBufferedReader(archivo, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Avanza al siguiente registro no vacío.
+     * @return false cuando se llega al final del archivo.
+     */
+    boolean siguiente() throws IOException {
+        while (leerRegistro()) {
+            if (!registroEnBlanco()) return true;
+        }
+        return false;
+    }
+
+    private boolean leerRegistro() throws IOException {
+        numCampos = 0;
+        longitud = 0;
+        int c = leer();
+        if (c == -1) return false;
+
+        boolean entreComillas = false;
+        int inicioCampo = 0;
+        while (c != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    if (mirar() == '"') {
+                        leer();
+                        agregar('"');
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    agregar((char) c);
+                }
+            } else if (c == '"' && longitud == inicioCampo) {
+                entreComillas = true;
+            } else if (c == SEPARADOR) {
+                cerrarCampo(inicioCampo);
+                inicioCampo = longitud;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                agregar((char) c);
+            }
+            c = leer();
+        }
+        cerrarCampo(inicioCampo);
+        return true;
+    }
+
+    private int leer() throws IOException {
+        if (posLectura == limLectura && !rellenar()) return -1;
+        return lectura[posLectura++];
+    }
+
+    private int mirar() throws IOException {
+        if (posLectura == limLectura && !rellenar()) return -1;
+        return lectura[posLectura];
+    }
+
+    private boolean rellenar() throws IOException {
+        int n = entrada.read(lectura, 0, lectura.length);
+        if (n <= 0) return false;
+        posLectura = 0;
+        limLectura = n;
+        return true;
+    }
+
+    private void agregar(char c) {
+        if (longitud == datos.length) datos = Arrays.copyOf(datos, longitud * 2);
+        datos[longitud++] = c;
+    }
+
+    private void cerrarCampo(int inicio) {
+        if (numCampos == inicios.length) {
+            inicios = Arrays.copyOf(inicios, numCampos * 2);
+            fines = Arrays.copyOf(fines, numCampos * 2);
+        }
+        inicios[numCampos] = inicio;
+        fines[numCampos] = longitud;
+        numCampos++;
+    }
+
+    private boolean registroEnBlanco() {
+        for (int i = 0; i < longitud; i++) {
+            if (!Character.isWhitespace(datos[i])) return false;
+        }
+        return true;
+    }
+
+    int numCampos() {
+        return numCampos;
+    }
+
+    /** Texto del campo tal cual; un campo inexistente se lee como vacío. */
+    String texto(int campo) {
+        if (campo >= numCampos) return "";
+        return new String(datos, inicios[campo], fines[campo] - inicios[campo]);
+    }
+
+    boolean esIgual(int campo, String valor) {
+        if (campo >= numCampos) return false;
+        int ini = inicios[campo];
+        int largo = fines[campo] - ini;
+        if (largo != valor.length()) return false;
+        for (int i = 0; i < largo; i++) {
+            if (datos[ini + i] != valor.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    int entero(int campo) {
+        int i = inicioRecortado(campo);
+        int fin = finRecortado(campo);
+        if (i >= fin) throw new NumberFormatException("Campo " + campo + " vacío");
+        boolean negativo = datos[i] == '-';
+        if (negativo || datos[i] == '+') i++;
+        if (i >= fin) throw formatoInvalido(campo);
+        long valor = 0;
+        for (; i < fin; i++) {
+            int d = datos[i] - '0';
+            if (d < 0 || d > 9) throw formatoInvalido(campo);
+            valor = valor * 10 + d;
+            if (valor > (long) Integer.MAX_VALUE + 1) throw formatoInvalido(campo);
+        }
+        valor = negativo ? -valor : valor;
+        if (valor > Integer.MAX_VALUE) throw formatoInvalido(campo);
+        return (int) valor;
+    }
+
+    /**
+     * Convierte números sencillos (dígitos con un punto decimal opcional)
+     * de forma exacta sin crear objetos; cualquier otro formato se delega
+     * en Double.parseDouble.
+     */
+    double decimal(int campo) {
+        int ini = inicioRecortado(campo);
+        int fin = finRecortado(campo);
+        int i = ini;
+        boolean negativo = i < fin && datos[i] == '-';
+        if (negativo) i++;
+        long mantisa = 0;
+        int digitos = 0;
+        boolean hayDigitos = false;
+        int decimales = 0;
+        boolean punto = false;
+        boolean simple = i < fin;
+        for (; i < fin && simple; i++) {
+            char c = datos[i];
+            if (c >= '0' && c <= '9') {
+                mantisa = mantisa * 10 + (c - '0');
+                hayDigitos = true;
+                if (mantisa != 0) digitos++;
+                if (punto) decimales++;
+            } else if (c == '.' && !punto) {
+                punto = true;
+            } else {
+                simple = false;
+            }
+        }
+        // Mantisa < 2^53 y potencia exacta: la división redondea correctamente
+        if (simple && hayDigitos && digitos <= 15 && decimales < POTENCIAS_10.length) {
+            double valor = mantisa / POTENCIAS_10[decimales];
+            return negativo ? -valor : valor;
+        }
+        return Double.parseDouble(new String(datos, ini, fin - ini));
+    }
+
+    boolean booleano(int campo) {
+        int ini = inicioRecortado(campo);
+        int fin = finRecortado(campo);
+        return fin - ini == 4
+                && Character.toLowerCase(datos[ini]) == 't'
+                && Character.toLowerCase(datos[ini + 1]) == 'r'
+                && Character.toLowerCase(datos[ini + 2]) == 'u'
+                && Character.toLowerCase(datos[ini + 3]) == 'e';
+    }
+
+    /** Fechas ISO (YYYY-MM-DD); otros formatos se delegan en LocalDate.parse. */
+    LocalDate fecha(int campo) {
+        int i = inicioRecortado(campo);
+        int fin = finRecortado(campo);
+        if (fin - i == 10 && datos[i + 4] == '-' && datos[i + 7] == '-') {
+            int anio = digitos(i, 4);
+            int mes = digitos(i + 5, 2);
+            int dia = digitos(i + 8, 2);
+            if (anio >= 0 && mes >= 0 && dia >= 0) return LocalDate.of(anio, mes, dia);
+        }
+        return LocalDate.parse(new String(datos, i, fin - i));
+    }
+
+    <E extends Enum<E>> E enumeracion(int campo, E[] valores) {
+        int ini = inicioRecortado(campo);
+        int largo = finRecortado(campo) - ini;
+        for (E valor : valores) {
+            String nombre = valor.name();
+            if (nombre.length() != largo) continue;
+            boolean igual = true;
+            for (int k = 0; k < largo && igual; k++) {
+                igual = datos[ini + k] == nombre.charAt(k);
+            }
+            if (igual) return valor;
+        }
+        throw new IllegalArgumentException("Valor no válido: " + texto(campo).trim());
+    }
+
+    private int digitos(int desde, int cantidad) {
+        int valor = 0;
+        for (int k = desde; k < desde + cantidad; k++) {
+            int d = datos[k] - '0';
+            if (d < 0 || d > 9) return -1;
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+
+    private int inicioRecortado(int campo) {
+        if (campo >= numCampos) return 0;
+        int i = inicios[campo];
+        while (i < fines[campo] && Character.isWhitespace(datos[i])) i++;
+        return i;
+    }
+
+    private int finRecortado(int campo) {
+        if (campo >= numCampos) return 0;
+        int fin = fines[campo];
+        while (fin > inicios[campo] && Character.isWhitespace(datos[fin - 1])) fin--;
+        return fin;
+    }
+
+    private NumberFormatException formatoInvalido(int campo) {
+        return new NumberFormatException("For input string: \""
+                + texto(campo) + "\"");
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+}
@@ -1,9 +1,13 @@
 package com.mycompany.sistemagestionhotel;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 public class MenuConsola {
@@ -18,8 +22,18 @@ public class MenuConsola {
     // ==========================================
     // MÉTODO MAIN (PUNTO DE ENTRADA)
     // ==========================================
-    public static void main(String[] args) {
-        SistemaGestionHotel sistema = new SistemaGestionHotel();
+    public static void main(String[] args) throws IOException {
+        // Sin argumentos, el hotel de "datos"; con un id, esa propiedad del grupo
+        SistemaGestionHotel sistema;
+        try {
+            sistema = GrupoHoteles.abrir(args);
+        } catch (NoSuchElementException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        // Si la JVM termina sin pasar por cerrar(), no perder lo pendiente
+        Runtime.getRuntime().addShutdownHook(new Thread(sistema::flush, 
+                "flush-al-salir"));
         MenuConsola menu = new MenuConsola(sistema);
         menu.iniciar();
     }
@@ -43,6 +57,7 @@ public class MenuConsola {
                     case 9 -> manejarAdministrador();
                     case 10 -> {
                         System.out.println("Saliendo...");
+                        sistema.cerrar();
                         salir = true;
                     }
                     default -> System.out.println("Opción no válida.");
@@ -124,11 +139,25 @@ public class MenuConsola {
             Reserva r = sistema.getGestionReservas().crearReserva(fi, ff, hab, 
                     pago, cliente.getCedula());
             System.out.println("✅ Reserva creada ID: " + r.getId());
+        } catch (IllegalStateException e) {
+            System.out.println("Error al reservar: " + e.getMessage());
+            mostrarAlternativas(hab, fi, ff);
         } catch (Exception e) {
             System.out.println("Error al reservar: " + e.getMessage());
         }
     }
 
+    private void mostrarAlternativas(Habitacion hab, LocalDate fi, LocalDate ff) {
+        if (!ff.isAfter(fi)) return;
+        GestionHabitaciones gh = sistema.getGestionHabitaciones();
+        List<AlternativaReserva> fechas = gh.buscarFechasAlternativas(hab.getTipo(), fi, ff, 3);
+        List<AlternativaReserva> similares = gh.buscarHabitacionesSimilares(hab, fi, ff, 3);
+        if (fechas.isEmpty() && similares.isEmpty()) return;
+        System.out.println("Alternativas:");
+        fechas.forEach(a -> System.out.println(" - " + a));
+        similares.forEach(a -> System.out.println(" - " + a));
+    }
+
     private Cliente registrarNuevoCliente(String cedulaSugerida) {
         String cedula = cedulaSugerida;
         if(cedula.equals("SD")) {
@@ -249,6 +278,9 @@ public class MenuConsola {
             System.out.println("2) Agregar Habitación");
             System.out.println("3) Borrar Cliente");
             System.out.println("4) Borrar Reserva");
+            System.out.println("5) Reserva en bloque");
+            System.out.println("6) Cancelar bloque de reservas");
+            System.out.println("7) Informe de ocupación");
             System.out.println("0) Volver");
             System.out.print("Opción: ");
             
@@ -258,21 +290,29 @@ public class MenuConsola {
                 case 2 -> agregarHabitacionAdmin();
                 case 3 -> borrarClienteAdmin();
                 case 4 -> borrarReservaAdmin();
+                case 5 -> reservaBloqueAdmin();
+                case 6 -> cancelarBloqueAdmin();
+                case 7 -> informeOcupacionAdmin();
                 case 0 -> salirAdmin = true;
             }
         }
     }
     
     private void listarTodoAdmin() {
+        InstantaneaDatos foto = sistema.tomarInstantanea();
         System.out.println("--- Habitaciones ---");
-        sistema.getGestionHabitaciones().getTodasHabitaciones().forEach(h 
+        foto.getHabitaciones().forEach(h 
                 -> System.out.println(h.getNumero() + " " + h.getEstado()));
         System.out.println("--- Reservas ---");
-        sistema.getReservas().forEach(r -> System.out.println(r.getId() 
+        foto.getReservas().forEach(r -> System.out.println(r.getId() 
                 + " " + r.getEstado()));
         System.out.println("--- Facturas ---");
-        sistema.getFacturas().forEach(f -> System.out.println(f.getId() 
+        foto.getFacturas().forEach(f -> System.out.println(f.getId() 
                 + " Total: " + f.getTotal()));
+        GestionHabitaciones gh = sistema.getGestionHabitaciones();
+        System.out.println("--- Caché de disponibilidad ---");
+        System.out.println("Aciertos: " + gh.getAciertosCache() 
+                + " | Fallos: " + gh.getFallosCache());
     }
 
     private void agregarHabitacionAdmin() {
@@ -306,6 +346,74 @@ public class MenuConsola {
         }
     }
 
+    private void reservaBloqueAdmin() {
+        System.out.print("Cédula del titular: ");
+        String cedula = scanner.nextLine();
+        System.out.print("Habitaciones (separadas por coma): ");
+        String lista = scanner.nextLine();
+        LocalDate fi = leerFecha("Fecha inicio (YYYY-MM-DD): ");
+        LocalDate ff = leerFecha("Fecha fin (YYYY-MM-DD): ");
+        if (fi == null || ff == null) return;
+        System.out.print("Método de pago: ");
+        String pago = scanner.nextLine();
+        try {
+            List<Habitacion> habitaciones = new ArrayList<>();
+            for (String numero : lista.split(",")) {
+                if (numero.isBlank()) continue;
+                Habitacion h = sistema.getGestionHabitaciones()
+                        .buscarHabitacionPorNumero(Integer.parseInt(numero.trim()));
+                if (h == null) throw new IllegalArgumentException("Habitación " 
+                        + numero.trim() + " no existe.");
+                habitaciones.add(h);
+            }
+            List<Reserva> grupo = sistema.getGestionReservas().crearReservasGrupo(fi, ff, 
+                    habitaciones, pago, cedula);
+            System.out.println("✅ " + grupo.size() + " reservas creadas, IDs " 
+                    + grupo.get(0).getId() + " a " + grupo.get(grupo.size() - 1).getId());
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void cancelarBloqueAdmin() {
+        System.out.print("IDs de reserva (separados por coma): ");
+        String lista = scanner.nextLine();
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (String id : lista.split(",")) {
+                if (!id.isBlank()) ids.add(Integer.parseInt(id.trim()));
+            }
+            sistema.getGestionReservas().cancelarReservasGrupo(ids);
+            System.out.println("Reservas canceladas: " + ids.size());
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void informeOcupacionAdmin() {
+        LocalDate desde = leerFecha("Desde (YYYY-MM-DD): ");
+        LocalDate hasta = leerFecha("Hasta (YYYY-MM-DD, exclusive): ");
+        if (desde == null || hasta == null) return;
+        System.out.print("¿Desglosar por tipo? (s/n): ");
+        boolean porTipo = scanner.nextLine().trim().equalsIgnoreCase("s");
+        try {
+            InformeOcupacion informe = sistema.generarInformeOcupacion(desde, hasta, porTipo);
+            for (InformeOcupacion.Fila f : informe.getFilas()) {
+                System.out.printf(" %s | %-10s | %d/%d | %.1f%% | ADR %.2f | RevPAR %.2f\n",
+                        f.getFecha(), f.getTipo(), f.getOcupadas(), f.getHabitaciones(),
+                        f.getOcupacion() * 100, f.getAdr(), f.getRevpar());
+            }
+            System.out.print("Exportar a CSV (ruta, vacío = no): ");
+            String ruta = scanner.nextLine().trim();
+            if (!ruta.isEmpty()) {
+                informe.exportarCsv(Path.of(ruta));
+                System.out.println("Informe exportado a " + ruta);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     // --- Helpers ---
 
     private int leerInt() {
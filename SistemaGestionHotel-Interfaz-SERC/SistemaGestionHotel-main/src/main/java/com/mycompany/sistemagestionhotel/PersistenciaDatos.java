@@ -1,6 +1,8 @@
 package com.mycompany.sistemagestionhotel;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -9,51 +11,111 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 public class PersistenciaDatos {
-    private static final Path DATA_DIR = Paths.get("datos");
-    private static final Path HOTEL_FILE = DATA_DIR.resolve("hotel.csv");
-    private static final Path HABITACIONES_FILE = DATA_DIR.resolve("habitaciones.csv");
-    private static final Path CLIENTES_FILE = DATA_DIR.resolve("clientes.csv");
-    private static final Path CLIENTES_RESERVAS_FILE = DATA_DIR.resolve("clientes_reservas.csv");
-    private static final Path FACTURAS_FILE = DATA_DIR.resolve("facturas.csv");
+    private final Path directorio;
+    private final Path archivoHotel;
+    private final Path archivoClientesReservas;
+    private final Path archivoDiario;
+    private final Path archivoInstantanea;
+    private final Path archivoIds;
+
+    // Conjuntos repartidos en segmentos (habitaciones-0001.csv, ...)
+    private final ArchivoSegmentado segmentosHabitaciones;
+    private final ArchivoSegmentado segmentosClientes;
+    private final ArchivoSegmentado segmentosFacturas;
+
+    // Tipos de registro del diario (un registro compacto por evento)
+    private static final String EV_RESERVA_CREADA = "RC";
+    private static final String EV_ESTADO_RESERVA = "ER";
+    private static final String EV_ESTADO_HABITACION = "EH";
+    private static final String EV_PRECIO_HABITACION = "PH";
+    private static final String EV_FACTURA_PAGADA = "FP";
+    private static final String EV_FACTURA_CREADA = "FC";
+    private static final String EV_FACTURA_BORRADA = "FB";
+
+    private static final EstadoHabitacion[] ESTADOS_HABITACION = EstadoHabitacion.values();
+    private static final EstadoReserva[] ESTADOS_RESERVA = EstadoReserva.values();
+
+    private final SerializadorReservas serializadorReservas;
+
+    private EscrituraAtomica grupoActual;
+    private final List<OperacionGuardado> trasConfirmar = new ArrayList<>();
+
+    private FileChannel canalDiario;
+    private long eventosEnDiario;
+
+    /** Datos en ./datos, como siempre. */
+    public PersistenciaDatos() {
+        this(Paths.get("datos"));
+    }
+
+    /** Datos en otro directorio (p. ej. uno por hotel del grupo). */
+    public PersistenciaDatos(Path directorio) {
+        this.directorio = directorio;
+        this.archivoHotel = directorio.resolve("hotel.csv");
+        this.archivoClientesReservas = directorio.resolve("clientes_reservas.csv");
+        this.archivoDiario = directorio.resolve("diario.log");
+        this.archivoInstantanea = directorio.resolve("datos.bin");
+        this.archivoIds = directorio.resolve("ids.csv");
+        this.segmentosHabitaciones = new ArchivoSegmentado(directorio, "habitaciones");
+        this.segmentosClientes = new ArchivoSegmentado(directorio, "clientes");
+        this.segmentosFacturas = new ArchivoSegmentado(directorio, "facturas");
+        this.serializadorReservas = new SerializadorReservas(archivoClientesReservas);
+    }
 
     // ================= CARGA DE DATOS (AHORA PÚBLICOS) =================
 
+    /**
+     * Antes de leer nada: termina el último guardado en grupo si se cortó 
+     * entre renombrados, para no cargar archivos de momentos distintos.
+     */
+    public synchronized void recuperarGrupoInterrumpido() throws IOException {
+        if (Files.isDirectory(directorio)) EscrituraAtomica.recuperar(directorio);
+    }
+
     public Hotel cargarHotel() throws IOException {
-        if (!Files.exists(HOTEL_FILE)) return null;
-        List<String> lines = Files.readAllLines(HOTEL_FILE, 
-                StandardCharsets.UTF_8);
-        if (lines.isEmpty()) return null;
-        String[] partes = lines.get(0).split(";", -1);
-        return new Hotel(partes[0], partes.length > 1 ? partes[1] : "", 
-                partes.length > 2 ? partes[2] : "");
+        if (!Files.exists(archivoHotel)) return null;
+        try (LectorCsv lector = LectorCsv.abrir(archivoHotel)) {
+            if (!lector.siguiente()) return null;
+            return new Hotel(lector.texto(0), lector.texto(1), lector.texto(2));
+        }
     }
 
     public List<Habitacion> cargarHabitaciones() throws IOException {
         List<Habitacion> habitaciones = new ArrayList<>();
-        if (!Files.exists(HABITACIONES_FILE)) return habitaciones;
-        List<String> lines = Files.readAllLines(HABITACIONES_FILE, 
-                StandardCharsets.UTF_8);
-        for (String linea : lines) {
-            if (linea.trim().isEmpty()) continue;
-            try { habitaciones.add(Habitacion.fromCsv(linea)); } 
-            catch (Exception e) { System.err.println("Error hab: " + e.getMessage()); }
+        for (Path archivo : segmentosHabitaciones.archivosDeLectura()) {
+            try (LectorCsv lector = LectorCsv.abrir(archivo)) {
+                while (lector.siguiente()) {
+                    try {
+                        habitaciones.add(new Habitacion(lector.entero(0), 
+                                lector.texto(1), lector.decimal(2), 
+                                lector.enumeracion(3, ESTADOS_HABITACION)));
+                    } catch (Exception e) { System.err.println("Error hab: " + e.getMessage()); }
+                }
+            }
         }
         return habitaciones;
     }
 
     public List<Cliente> cargarClientes() throws IOException {
         List<Cliente> clientes = new ArrayList<>();
-        if (!Files.exists(CLIENTES_FILE)) return clientes;
-        List<String> lines = Files.readAllLines(CLIENTES_FILE, 
-                StandardCharsets.UTF_8);
-        for (String linea : lines) {
-            if (linea.trim().isEmpty()) continue;
-            try { clientes.add(Cliente.fromCsv(linea)); } 
-            catch (Exception e) { System.err.println("Error cliente: " + e.getMessage()); }
+        for (Path archivo : segmentosClientes.archivosDeLectura()) {
+            try (LectorCsv lector = LectorCsv.abrir(archivo)) {
+                while (lector.siguiente()) {
+                    try {
+                        clientes.add(new Cliente(lector.entero(0), lector.texto(1), 
+                                lector.texto(2), lector.texto(3), lector.texto(4)));
+                    } catch (Exception e) { System.err.println("Error cliente: " + e.getMessage()); }
+                }
+            }
         }
         return clientes;
     }
@@ -62,82 +124,136 @@ public class PersistenciaDatos {
     public List<Reserva> cargarReservas(List<Habitacion> habitaciones, 
             List<Cliente> clientes) throws IOException {
         List<Reserva> reservas = new ArrayList<>();
-        if (!Files.exists(CLIENTES_RESERVAS_FILE)) return reservas;
-
-        List<String> lines = Files.readAllLines(CLIENTES_RESERVAS_FILE, 
-                StandardCharsets.UTF_8);
-        int startIndex = (!lines.isEmpty() && lines.get(0).contains("Cliente_ID")) ? 1 : 0;
-
-        for (int i = startIndex; i < lines.size(); i++) {
-            String linea = lines.get(i);
-            if (linea.trim().isEmpty()) continue;
-            try {
-                String[] partes = linea.split(";");
-                if (partes.length < 13) continue;
-
-                int numeroHabitacion = Integer.parseInt(partes[8].trim());
-                String cedulaCliente = partes[2].trim();
-                
-                // Búsqueda manual simple para no depender de otras clases
-                Habitacion habitacion = null;
-                for(Habitacion h : habitaciones) if(h.getNumero() 
-                        == numeroHabitacion) habitacion = h;
-                
-                Cliente cliente = null;
-                for(Cliente c : clientes) if(c.getCedula().equalsIgnoreCase(cedulaCliente)) cliente = c;
-
-                if (habitacion != null && cliente != null) {
-                    Reserva r = new Reserva(
-                        Integer.parseInt(partes[5].trim()),
-                        LocalDate.parse(partes[6].trim()),
-                        LocalDate.parse(partes[7].trim()),
-                        EstadoReserva.valueOf(partes[10].trim()),
-                        habitacion, cedulaCliente, partes[11].trim()
-                    );
-                    reservas.add(r);
+        if (!Files.exists(archivoClientesReservas)) return reservas;
+
+        // Índices construidos una sola vez: cada referencia se resuelve en O(1)
+        Map<Integer, Habitacion> habitacionesPorNumero = indexarHabitaciones(habitaciones);
+        Map<String, Cliente> clientesPorCedula = new HashMap<>();
+        for (Cliente c : clientes) clientesPorCedula.put(claveCedula(c.getCedula()), c);
+
+        try (LectorCsv lector = LectorCsv.abrir(archivoClientesReservas)) {
+            boolean primera = true;
+            while (lector.siguiente()) {
+                // Saltar la cabecera si existe
+                if (primera && lector.esIgual(0, "Cliente_ID")) {
+                    primera = false;
+                    continue;
                 }
-            } catch (Exception e) { System.err.println("Error reserva: " 
-                    + e.getMessage()); }
+                primera = false;
+                try {
+                    if (lector.numCampos() < 13) continue;
+
+                    String cedulaCliente = lector.texto(2).trim();
+                    Habitacion habitacion = habitacionesPorNumero.get(lector.entero(8));
+                    Cliente cliente = clientesPorCedula.get(claveCedula(cedulaCliente));
+
+                    if (habitacion != null && cliente != null) {
+                        Reserva r = new Reserva(
+                            lector.entero(5),
+                            lector.fecha(6),
+                            lector.fecha(7),
+                            lector.enumeracion(10, ESTADOS_RESERVA),
+                            habitacion, cedulaCliente, lector.texto(11).trim()
+                        );
+                        reservas.add(r);
+                    }
+                } catch (Exception e) { System.err.println("Error reserva: " 
+                        + e.getMessage()); }
+            }
         }
         return reservas;
     }
 
     public List<Factura> cargarFacturas(List<Reserva> reservas) throws IOException {
         List<Factura> facturas = new ArrayList<>();
-        if (!Files.exists(FACTURAS_FILE)) return facturas;
-        List<String> lines = Files.readAllLines(FACTURAS_FILE, 
-                StandardCharsets.UTF_8);
-        for (String linea : lines) {
-            if (linea.trim().isEmpty()) continue;
-            try {
-                String[] partes = linea.split(";", -1);
-                int idReserva = Integer.parseInt(partes[6]);
-                Reserva reserva = null;
-                for(Reserva r : reservas) if(r.getId() == idReserva) reserva = r;
-                
-                if (reserva != null) facturas.add(Factura.fromCsv(linea, reserva));
-            } catch (Exception e) { System.err.println("Error factura: " 
-                    + e.getMessage()); }
+        List<Path> archivos = segmentosFacturas.archivosDeLectura();
+        if (archivos.isEmpty()) return facturas;
+        Map<Integer, Reserva> reservasPorId = indexarReservas(reservas);
+        for (Path archivo : archivos) {
+            try (LectorCsv lector = LectorCsv.abrir(archivo)) {
+                while (lector.siguiente()) {
+                    try {
+                        Reserva reserva = reservasPorId.get(lector.entero(6));
+                        if (reserva == null) continue;
+
+                        Factura f = new Factura(lector.entero(0), lector.fecha(1),
+                                lector.decimal(2), lector.decimal(3), lector.decimal(4),
+                                lector.texto(5), reserva);
+                        if (lector.booleano(7)) f.pagar();
+                        facturas.add(f);
+                    } catch (Exception e) { System.err.println("Error factura: " 
+                            + e.getMessage()); }
+                }
+            }
         }
         return facturas;
     }
 
+    // Si hay duplicados gana el último, igual que el recorrido lineal anterior
+    private Map<Integer, Habitacion> indexarHabitaciones(List<Habitacion> habitaciones) {
+        Map<Integer, Habitacion> indice = new HashMap<>(habitaciones.size() * 2);
+        for (Habitacion h : habitaciones) indice.put(h.getNumero(), h);
+        return indice;
+    }
+
+    private Map<Integer, Reserva> indexarReservas(List<Reserva> reservas) {
+        Map<Integer, Reserva> indice = new HashMap<>(reservas.size() * 2);
+        for (Reserva r : reservas) indice.put(r.getId(), r);
+        return indice;
+    }
+
+    // La cédula se compara sin distinguir mayúsculas
+    private String claveCedula(String cedula) {
+        return cedula.trim().toLowerCase(Locale.ROOT);
+    }
+
     // ================= GUARDADO DE DATOS =================
 
-    public void guardarHotel(Hotel hotel) throws IOException {
-        asegurarDirectorio();
-        String linea = hotel.getNombre() + ";" + hotel.getDireccion() 
-                + ";" + hotel.getTelefono();
-        Files.write(HOTEL_FILE, Collections.singletonList(linea), 
-                StandardCharsets.UTF_8, StandardOpenOption.CREATE, 
-                StandardOpenOption.TRUNCATE_EXISTING);
+    // ================= MARCAS DE IDS =================
+
+    /** Marca alta de cada secuencia de ids (ids.csv: secuencia;marca). */
+    public Map<String, Integer> cargarMarcasIds() throws IOException {
+        Map<String, Integer> marcas = new TreeMap<>();
+        if (!Files.exists(archivoIds)) return marcas;
+        try (LectorCsv lector = LectorCsv.abrir(archivoIds)) {
+            while (lector.siguiente()) {
+                try {
+                    marcas.put(lector.texto(0), lector.entero(1));
+                } catch (Exception e) { System.err.println("Error marca ids: " + e.getMessage()); }
+            }
+        }
+        return marcas;
+    }
+
+    /**
+     * Escribe las marcas al momento y sincronizadas, sin esperar a ningún 
+     * grupo ni a la escritura diferida (quien llama no entrega ids hasta 
+     * que esto termina).
+     */
+    public void guardarMarcasIds(Map<String, Integer> marcas) throws IOException {
+        List<String> lineas = new ArrayList<>(marcas.size());
+        marcas.forEach((secuencia, marca) -> lineas.add(secuencia + ";" + marca));
+        EscrituraAtomica.escribir(archivoIds, lineas);
+    }
+
+    public synchronized void guardarHotel(Hotel hotel) throws IOException {
+        String linea = escapeCsv(hotel.getNombre()) + ";" 
+                + escapeCsv(hotel.getDireccion()) + ";" + escapeCsv(hotel.getTelefono());
+        reemplazar(archivoHotel, Collections.singletonList(linea));
     }
 
     public void guardarHabitaciones(List<Habitacion> habitaciones) throws IOException {
-        asegurarDirectorio();
-        List<String> lines = habitaciones.stream().map(Habitacion::toCsv).collect(Collectors.toList());
-        Files.write(HABITACIONES_FILE, lines, StandardCharsets.UTF_8, 
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING); 
+        guardarHabitaciones(habitaciones, null);
+    }
+
+    /**
+     * Reescribe solo los segmentos que contienen habitaciones marcadas en 
+     * cambios (todos si cambios es null o pide un guardado completo).
+     */
+    public synchronized void guardarHabitaciones(List<Habitacion> habitaciones, 
+            CambiosPendientes cambios) throws IOException {
+        guardarSegmentado(segmentosHabitaciones, habitaciones, Habitacion::getNumero, 
+                Habitacion::toCsv, cambios);
     }
     
     // Sobrecarga para aceptar objeto Hotel si es necesario
@@ -146,73 +262,390 @@ public class PersistenciaDatos {
     }
 
     public void guardarClientes(List<Cliente> clientes) throws IOException {
-        asegurarDirectorio();
-        List<String> lines = clientes.stream().map(Cliente::toCsv).collect(Collectors.toList());
-        Files.write(CLIENTES_FILE, lines, StandardCharsets.UTF_8, 
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        guardarClientes(clientes, null);
+    }
+
+    public synchronized void guardarClientes(List<Cliente> clientes, 
+            CambiosPendientes cambios) throws IOException {
+        guardarSegmentado(segmentosClientes, clientes, Cliente::getId, Cliente::toCsv, cambios);
     }
 
     public void guardarReservas(List<Reserva> reservas) throws IOException {
         // Guardado simple si es necesario, pero el importante es el unificado
     }
 
-    public void guardarReservasUnificado(List<Cliente> clientes, 
+    /**
+     * El archivo unificado se reescribe siempre completo; las marcas de 
+     * cambios solo se descartan una vez confirmado.
+     */
+    public synchronized void guardarReservasUnificado(List<Cliente> clientes, 
+            List<Reserva> reservas, CambiosPendientes cambios) throws IOException {
+        CambiosPendientes.Lote lote = cambios != null ? cambios.tomar() : null;
+        guardarEnGrupo(() -> {
+            guardarReservasUnificado(clientes, reservas);
+            if (lote != null) trasConfirmar.add(() -> cambios.confirmar(lote));
+        });
+    }
+
+    public synchronized void guardarReservasUnificado(List<Cliente> clientes, 
             List<Reserva> reservas) throws IOException {
+        reemplazar(archivoClientesReservas, 
+                salida -> serializadorReservas.escribir(salida, clientes, reservas));
+    }
+
+    public void guardarFacturas(List<Factura> facturas) throws IOException {
+        guardarFacturas(facturas, null);
+    }
+
+    public synchronized void guardarFacturas(List<Factura> facturas, 
+            CambiosPendientes cambios) throws IOException {
+        guardarSegmentado(segmentosFacturas, facturas, Factura::getId, Factura::toCsv, cambios);
+    }
+
+    /**
+     * Escribe los segmentos afectados como un solo grupo. Las marcas de 
+     * cambios se descartan solo cuando el grupo se ha confirmado. Si aún 
+     * existe el archivo único anterior se reparte entero y se elimina.
+     */
+    private <T> void guardarSegmentado(ArchivoSegmentado archivo, List<T> entidades,
+            ToIntFunction<T> clave, Function<T, String> aCsv, 
+            CambiosPendientes cambios) throws IOException {
+        CambiosPendientes.Lote lote = cambios != null ? cambios.tomar() : null;
+        boolean hayLegado = Files.exists(archivo.legado());
+        boolean completo = lote == null || lote.esTodo() || hayLegado;
+
+        Map<Integer, List<String>> segmentos = new TreeMap<>();
+        if (completo) {
+            // Los segmentos que se quedan sin filas se vacían
+            for (int numero : archivo.existentes().keySet()) {
+                segmentos.put(numero, new ArrayList<>());
+            }
+            for (T e : entidades) {
+                segmentos.computeIfAbsent(archivo.segmentoDe(clave.applyAsInt(e)), 
+                        k -> new ArrayList<>());
+            }
+        } else {
+            for (int id : lote.ids.keySet()) {
+                segmentos.putIfAbsent(archivo.segmentoDe(id), new ArrayList<>());
+            }
+        }
+        for (T e : entidades) {
+            List<String> lineas = segmentos.get(archivo.segmentoDe(clave.applyAsInt(e)));
+            if (lineas != null) lineas.add(aCsv.apply(e));
+        }
+
+        guardarEnGrupo(() -> {
+            for (Map.Entry<Integer, List<String>> s : segmentos.entrySet()) {
+                reemplazar(archivo.segmento(s.getKey()), s.getValue());
+            }
+            if (hayLegado) {
+                trasConfirmar.add(() -> Files.deleteIfExists(archivo.legado()));
+            }
+            if (lote != null) trasConfirmar.add(() -> cambios.confirmar(lote));
+        });
+    }
+
+    public interface OperacionGuardado {
+        void ejecutar() throws IOException;
+    }
+
+    /**
+     * Ejecuta varios guardar* como un solo grupo: los archivos se escriben en 
+     * temporales y se confirman juntos, con una sola barrera de sincronización.
+     * Si algo falla antes de confirmar no se reemplaza ninguno; si falla o se 
+     * corta durante los renombrados, el manifiesto del grupo los completa 
+     * (aquí mismo en el siguiente grupo, o al cargar). Las llamadas anidadas 
+     * se suman al grupo exterior.
+     */
+    public synchronized void guardarEnGrupo(OperacionGuardado operacion) throws IOException {
+        if (grupoActual != null) {
+            operacion.ejecutar();
+            return;
+        }
+        try (EscrituraAtomica grupo = new EscrituraAtomica()) {
+            grupoActual = grupo;
+            operacion.ejecutar();
+            grupo.confirmar();
+            for (OperacionGuardado accion : trasConfirmar) accion.ejecutar();
+        } finally {
+            grupoActual = null;
+            trasConfirmar.clear();
+        }
+    }
+
+    // Escribe en un temporal y lo mueve atómicamente sobre el destino; dentro 
+    // de un grupo solo se prepara y se confirma al final
+    private void reemplazar(Path destino, List<String> lineas) throws IOException {
         asegurarDirectorio();
-        List<String> lines = new ArrayList<>();
-        
-        // Mantener cabecera o crear nueva
-        boolean existe = Files.exists(CLIENTES_RESERVAS_FILE);
-        if (existe) {
-             List<String> existentes = Files.readAllLines(CLIENTES_RESERVAS_FILE, 
-                     StandardCharsets.UTF_8);
-             if(!existentes.isEmpty() && existentes.get(0).contains("Cliente_ID")) 
-                 lines.add(existentes.get(0));
-             else lines.add("Cliente_ID;Nombre_Cliente;Cedula_Cliente;Email_Cliente;Telefono_Cliente;Reserva_ID;Fecha_Inicio_Reserva;Fecha_Fin_Reserva;Numero_Habitacion;Tipo_Habitacion;Estado_Reserva;Metodo_Pago;Total_Reserva");
+        if (grupoActual != null) {
+            grupoActual.agregar(destino, lineas);
         } else {
-             lines.add("Cliente_ID;Nombre_Cliente;Cedula_Cliente;Email_Cliente;Telefono_Cliente;Reserva_ID;Fecha_Inicio_Reserva;Fecha_Fin_Reserva;Numero_Habitacion;Tipo_Habitacion;Estado_Reserva;Metodo_Pago;Total_Reserva");
+            EscrituraAtomica.escribir(destino, lineas);
+        }
+    }
+
+    private void reemplazar(Path destino, EscrituraAtomica.Contenido contenido) 
+            throws IOException {
+        asegurarDirectorio();
+        if (grupoActual != null) {
+            grupoActual.agregar(destino, contenido);
+        } else {
+            EscrituraAtomica.escribir(destino, contenido);
+        }
+    }
+
+    // ================= INSTANTÁNEA BINARIA =================
+
+    /**
+     * Lee la instantánea binaria si existe y ningún CSV es más reciente.
+     * @return los datos cargados, o null si hay que leer los CSV.
+     */
+    public DatosHotel cargarInstantaneaBinaria() throws IOException {
+        InstantaneaBinaria instantanea = new InstantaneaBinaria(archivoInstantanea);
+        List<Path> csvs = new ArrayList<>(List.of(archivoHotel, archivoClientesReservas));
+        for (ArchivoSegmentado archivo : List.of(segmentosHabitaciones, 
+                segmentosClientes, segmentosFacturas)) {
+            csvs.addAll(archivo.archivosDeLectura());
+        }
+        if (!instantanea.esVigenteFrente(csvs)) {
+            return null;
         }
+        return instantanea.cargar();
+    }
 
+    public void guardarInstantaneaBinaria(DatosHotel datos) throws IOException {
+        asegurarDirectorio();
+        new InstantaneaBinaria(archivoInstantanea).guardar(datos);
+    }
+
+    // ================= DIARIO DE CAMBIOS (SOLO ANEXAR) =================
+
+    public void registrarReservaCreada(Reserva r) throws IOException {
+        anexarAlDiario(eventoReservaCreada(r));
+    }
+
+    public void registrarEstadoReserva(Reserva r) throws IOException {
+        anexarAlDiario(eventoEstadoReserva(r));
+    }
+
+    public void registrarEstadoHabitacion(Habitacion h) throws IOException {
+        anexarAlDiario(eventoEstadoHabitacion(h));
+    }
+
+    /**
+     * Registra un grupo de reservas (creadas o con nuevo estado) y el estado 
+     * de sus habitaciones con una sola escritura y un solo force.
+     */
+    public void registrarGrupoReservas(List<Reserva> reservas, boolean creadas) 
+            throws IOException {
+        List<String> registros = new ArrayList<>(reservas.size() * 2);
         for (Reserva r : reservas) {
-            Cliente c = null;
-            for(Cliente cli : clientes) if(cli.getCedula().equals(r.getCedulaCheckIn())) c = cli;
-            
-            if (c != null) {
-                // Verificar si ya existe en el archivo (simple check por ID reserva)
-                boolean yaEsta = false;
-                if(existe) {
-                     // Lógica simple: reescribimos todo para evitar duplicados complejos en este ejemplo rápido
-                }
-                
-                String linea = String.format("%d;%s;%s;%s;%s;%d;%s;%s;%d;%s;%s;%s;%.2f",
-                    c.getId(), escapeCsv(c.getNombre()), escapeCsv(c.getCedula()), 
-                    escapeCsv(c.getEmail()), escapeCsv(c.getTelefono()),
-                    r.getId(), r.getFechaInicio(), r.getFechaFin(), 
-                    r.getHabitacion().getNumero(), escapeCsv(r.getHabitacion().getTipo()),
-                    r.getEstado().name(), escapeCsv(r.getMetodoPago()), 
-                    r.calcularTotal());
-                lines.add(linea);
+            registros.add(creadas ? eventoReservaCreada(r) : eventoEstadoReserva(r));
+            registros.add(eventoEstadoHabitacion(r.getHabitacion()));
+        }
+        anexarAlDiario(registros);
+    }
+
+    private String eventoReservaCreada(Reserva r) {
+        return EV_RESERVA_CREADA + ";" + r.getId() + ";" 
+                + r.getFechaInicio() + ";" + r.getFechaFin() + ";" 
+                + r.getEstado().name() + ";" + r.getHabitacion().getNumero() 
+                + ";" + escapeCsv(r.getCedulaCheckIn()) + ";" 
+                + escapeCsv(r.getMetodoPago());
+    }
+
+    private String eventoEstadoReserva(Reserva r) {
+        return EV_ESTADO_RESERVA + ";" + r.getId() + ";" + r.getEstado().name();
+    }
+
+    private String eventoEstadoHabitacion(Habitacion h) {
+        return EV_ESTADO_HABITACION + ";" + h.getNumero() + ";" + h.getEstado().name();
+    }
+
+    public void registrarPrecioHabitacion(Habitacion h) throws IOException {
+        anexarAlDiario(EV_PRECIO_HABITACION + ";" + h.getNumero() + ";" 
+                + h.getPrecio());
+    }
+
+    public void registrarFacturaPagada(Factura f) throws IOException {
+        anexarAlDiario(EV_FACTURA_PAGADA + ";" + f.getId() + ";" 
+                + f.estaPagada());
+    }
+
+    // Mismos campos que una fila de facturas: id;fecha;...;idReserva;pagada
+    public void registrarFacturaCreada(Factura f) throws IOException {
+        anexarAlDiario(EV_FACTURA_CREADA + ";" + f.toCsv());
+    }
+
+    public void registrarFacturaBorrada(Factura f) throws IOException {
+        anexarAlDiario(EV_FACTURA_BORRADA + ";" + f.getId());
+    }
+
+    /**
+     * Escribe un registro al final del diario y lo fuerza a disco antes de 
+     * volver, de modo que el coste no depende del tamaño del histórico.
+     */
+    private void anexarAlDiario(String registro) throws IOException {
+        anexarAlDiario(List.of(registro));
+    }
+
+    private synchronized void anexarAlDiario(List<String> registros) throws IOException {
+        if (registros.isEmpty()) return;
+        if (canalDiario == null) {
+            asegurarDirectorio();
+            canalDiario = FileChannel.open(archivoDiario, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        StringBuilder texto = new StringBuilder();
+        for (String registro : registros) texto.append(registro).append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(texto.toString()
+                .getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) canalDiario.write(buffer);
+        canalDiario.force(false);
+        eventosEnDiario += registros.size();
+    }
+
+    /**
+     * Aplica sobre los datos ya cargados (última instantánea CSV) los eventos 
+     * pendientes del diario. Los registros fijan valores absolutos, así que 
+     * reproducir dos veces el mismo evento no altera el resultado.
+     * @return número de eventos aplicados.
+     */
+    public synchronized int reproducirDiario(DatosHotel datos) throws IOException {
+        if (!Files.exists(archivoDiario)) return 0;
+
+        Map<Integer, Habitacion> habitaciones = indexarHabitaciones(
+                datos.getHotel().getHabitaciones());
+        Map<Integer, Reserva> reservas = indexarReservas(datos.getReservas());
+        Map<Integer, Factura> facturas = new HashMap<>();
+        for (Factura f : datos.getFacturas()) facturas.put(f.getId(), f);
+
+        int aplicados = 0;
+        int registros = 0;
+        try (LectorCsv lector = LectorCsv.abrir(archivoDiario)) {
+            while (lector.siguiente()) {
+                registros++;
+                try {
+                    if (aplicarEvento(lector, datos, habitaciones, reservas, facturas)) {
+                        aplicados++;
+                    }
+                } catch (Exception e) { System.err.println("Error diario: " 
+                        + e.getMessage()); }
             }
         }
-        Files.write(CLIENTES_RESERVAS_FILE, lines, StandardCharsets.UTF_8, 
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        eventosEnDiario = registros;
+        return aplicados;
     }
 
-    public void guardarFacturas(List<Factura> facturas) throws IOException {
-        asegurarDirectorio();
-        List<String> lines = facturas.stream().map(Factura::toCsv).collect(Collectors.toList());
-        Files.write(FACTURAS_FILE, lines, StandardCharsets.UTF_8, 
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    private boolean aplicarEvento(LectorCsv ev, DatosHotel datos,
+            Map<Integer, Habitacion> habitaciones, Map<Integer, Reserva> reservas,
+            Map<Integer, Factura> facturas) {
+        switch (ev.texto(0)) {
+            case EV_RESERVA_CREADA -> {
+                int id = ev.entero(1);
+                Habitacion h = habitaciones.get(ev.entero(5));
+                if (h == null || reservas.containsKey(id)) return false;
+                Reserva r = new Reserva(id, ev.fecha(2), ev.fecha(3), 
+                        ev.enumeracion(4, ESTADOS_RESERVA), h, ev.texto(6), ev.texto(7));
+                datos.getReservas().add(r);
+                reservas.put(id, r);
+                return true;
+            }
+            case EV_ESTADO_RESERVA -> {
+                Reserva r = reservas.get(ev.entero(1));
+                if (r == null) return false;
+                r.setEstado(ev.enumeracion(2, ESTADOS_RESERVA));
+                return true;
+            }
+            case EV_ESTADO_HABITACION -> {
+                Habitacion h = habitaciones.get(ev.entero(1));
+                if (h == null) return false;
+                h.setEstado(ev.enumeracion(2, ESTADOS_HABITACION));
+                return true;
+            }
+            case EV_PRECIO_HABITACION -> {
+                Habitacion h = habitaciones.get(ev.entero(1));
+                if (h == null) return false;
+                h.setPrecio(ev.decimal(2));
+                return true;
+            }
+            case EV_FACTURA_PAGADA -> {
+                Factura f = facturas.get(ev.entero(1));
+                if (f == null) return false;
+                f.setPagada(ev.booleano(2));
+                return true;
+            }
+            case EV_FACTURA_CREADA -> {
+                int id = ev.entero(1);
+                Reserva r = reservas.get(ev.entero(7));
+                if (r == null || facturas.containsKey(id)) return false;
+                Factura f = new Factura(id, ev.fecha(2), ev.decimal(3), ev.decimal(4),
+                        ev.decimal(5), ev.texto(6), r);
+                if (ev.booleano(8)) f.pagar();
+                datos.getFacturas().add(f);
+                facturas.put(id, f);
+                return true;
+            }
+            case EV_FACTURA_BORRADA -> {
+                Factura f = facturas.remove(ev.entero(1));
+                if (f == null) return false;
+                datos.getFacturas().remove(f);
+                return true;
+            }
+            default -> { return false; }
+        }
     }
 
-    private String escapeCsv(String campo) {
+    /**
+     * Vuelca el estado actual a los CSV de instantánea y vacía el diario. 
+     * Si algo falla el diario no se toca, así que no se pierde ningún evento.
+     */
+    public synchronized void compactarDiario(DatosHotel datos) throws IOException {
+        if (eventosEnDiario == 0) return;
+        guardarEnGrupo(() -> {
+            guardarHabitaciones(datos.getHotel());
+            guardarReservasUnificado(datos.getClientes(), datos.getReservas());
+            guardarFacturas(datos.getFacturas());
+            // El diario solo se vacía cuando la instantánea ya es durable
+            trasConfirmar.add(this::vaciarDiario);
+        });
+    }
+
+    private void vaciarDiario() throws IOException {
+        if (canalDiario != null) {
+            canalDiario.truncate(0);
+            canalDiario.force(true);
+        } else {
+            Files.write(archivoDiario, new byte[0]);
+        }
+        eventosEnDiario = 0;
+    }
+
+    public synchronized long getEventosEnDiario() {
+        return eventosEnDiario;
+    }
+
+    public synchronized void cerrarDiario() throws IOException {
+        if (canalDiario != null) {
+            canalDiario.close();
+            canalDiario = null;
+        }
+    }
+
+    /**
+     * Campo de texto listo para LectorCsv: entre comillas (y con las comillas
+     * duplicadas) si lleva ';', '"' o un salto de línea.
+     */
+    static String escapeCsv(String campo) {
         if (campo == null) return "";
-        if (campo.contains(";") || campo.contains("\"")) return "\"" 
-                + campo.replace("\"", "\"\"") + "\"";
+        if (campo.contains(";") || campo.contains("\"") || campo.contains("\n")
+                || campo.contains("\r")) {
+            return "\"" + campo.replace("\"", "\"\"") + "\"";
+        }
         return campo;
     }
 
     private void asegurarDirectorio() throws IOException {
-        if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
+        if (!Files.exists(directorio)) Files.createDirectories(directorio);
     }
 }
\ No newline at end of file
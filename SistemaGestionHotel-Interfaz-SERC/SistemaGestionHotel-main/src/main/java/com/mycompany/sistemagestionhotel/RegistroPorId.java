@@ -0,0 +1,242 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lista de reservas o facturas pensada para agregar desde muchas
+ * recepciones a la vez: un registro de solo anexar en bloques de tamaño
+ * fijo (agregar nunca copia lo ya escrito, a diferencia de
+ * CopyOnWriteArrayList) y un índice concurrente por id, más otro opcional
+ * por una segunda clave (p. ej. la reserva de cada factura).
+ *
+ * Leer no bloquea: cada recorrido, toArray() o stream() trabaja sobre la
+ * vista publicada al empezar y no ve lo que se agregue después. Borrar es
+ * raro (administrador) y reconstruye el registro en O(n). Si dos elementos
+ * comparten clave, el índice devuelve el primero agregado.
+ */
+public final class RegistroPorId<T> extends AbstractList<T> implements RandomAccess {
+
+    private static final int TAM_BLOQUE = 1024;
+
+    // Bloques y tamaño se publican juntos para que un lector nunca vea uno
+    // sin el otro; los bloques ya escritos no se modifican salvo al borrar
+    private static final class Vista {
+        final Object[][] bloques;
+        final int tamano;
+
+        Vista(Object[][] bloques, int tamano) {
+            this.bloques = bloques;
+            this.tamano = tamano;
+        }
+
+        Object get(int i) {
+            return bloques[i / TAM_BLOQUE][i % TAM_BLOQUE];
+        }
+    }
+
+    private final ToIntFunction<? super T> clave;
+    private final ToIntFunction<? super T> claveSecundaria;
+    private final Map<Integer, T> porClave = new ConcurrentHashMap<>();
+    private final Map<Integer, T> porSecundaria;
+    private volatile Vista vista = new Vista(new Object[1][], 0);
+
+    /** Registro indexado solo por clave (el id). */
+    public RegistroPorId(ToIntFunction<? super T> clave) {
+        this(clave, null);
+    }
+
+    /** Registro indexado por clave y por claveSecundaria. */
+    public RegistroPorId(ToIntFunction<? super T> clave,
+            ToIntFunction<? super T> claveSecundaria) {
+        this.clave = clave;
+        this.claveSecundaria = claveSecundaria;
+        this.porSecundaria = claveSecundaria != null ? new ConcurrentHashMap<>() : null;
+    }
+
+    /** Registro con los elementos de otra colección, en su orden. */
+    public RegistroPorId(ToIntFunction<? super T> clave,
+            ToIntFunction<? super T> claveSecundaria, Collection<? extends T> elementos) {
+        this(clave, claveSecundaria);
+        addAll(elementos);
+    }
+
+    /** Elemento con esa clave, o null; O(1). */
+    public T buscar(int id) {
+        return porClave.get(id);
+    }
+
+    /** Elemento con esa clave secundaria, o null; O(1). */
+    public T buscarPorSecundaria(int id) {
+        if (porSecundaria == null) {
+            throw new IllegalStateException("Registro sin clave secundaria.");
+        }
+        return porSecundaria.get(id);
+    }
+
+    @Override
+    public synchronized boolean add(T elemento) {
+        Vista v = vista;
+        vista = anexar(v.bloques, v.tamano, elemento);
+        indexar(elemento);
+        return true;
+    }
+
+    /** Agrega todos de una vez: los lectores los ven aparecer juntos. */
+    @Override
+    public synchronized boolean addAll(Collection<? extends T> elementos) {
+        if (elementos.isEmpty()) return false;
+        Vista v = vista;
+        Object[][] bloques = v.bloques;
+        int tamano = v.tamano;
+        for (T e : elementos) {
+            bloques = anexar(bloques, tamano++, e).bloques;
+            indexar(e);
+        }
+        vista = new Vista(bloques, tamano);
+        return true;
+    }
+
+    // Escribe en la primera casilla libre; solo se copia el directorio de
+    // bloques cuando se llena, nunca los bloques
+    private static Vista anexar(Object[][] bloques, int tamano, Object elemento) {
+        int bloque = tamano / TAM_BLOQUE;
+        if (bloque == bloques.length) {
+            bloques = Arrays.copyOf(bloques, bloques.length * 2);
+        }
+        if (bloques[bloque] == null) bloques[bloque] = new Object[TAM_BLOQUE];
+        bloques[bloque][tamano % TAM_BLOQUE] = elemento;
+        return new Vista(bloques, tamano + 1);
+    }
+
+    private void indexar(T elemento) {
+        porClave.putIfAbsent(clave.applyAsInt(elemento), elemento);
+        if (porSecundaria != null) {
+            porSecundaria.putIfAbsent(claveSecundaria.applyAsInt(elemento), elemento);
+        }
+    }
+
+    @Override
+    public T get(int indice) {
+        Vista v = vista;
+        if (indice < 0 || indice >= v.tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamaño " + v.tamano);
+        }
+        return elemento(v, indice);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T elemento(Vista v, int indice) {
+        return (T) v.get(indice);
+    }
+
+    @Override
+    public int size() {
+        return vista.tamano;
+    }
+
+    @Override
+    public boolean remove(Object objeto) {
+        return quitar(objeto, -1) != null;
+    }
+
+    @Override
+    public T remove(int indice) {
+        T quitado = quitar(null, indice);
+        if (quitado == null) {
+            throw new IndexOutOfBoundsException("Índice " + indice);
+        }
+        return quitado;
+    }
+
+    @Override
+    public synchronized void clear() {
+        vista = new Vista(new Object[1][], 0);
+        porClave.clear();
+        if (porSecundaria != null) porSecundaria.clear();
+    }
+
+    // Quita por identidad/igualdad o por posición y reconstruye los bloques
+    // sin tocar los de la vista anterior (los recorridos en curso la usan)
+    private synchronized T quitar(Object objeto, int indice) {
+        Vista v = vista;
+        int posicion = indice;
+        if (posicion < 0) {
+            for (int i = 0; i < v.tamano && posicion < 0; i++) {
+                Object e = v.get(i);
+                if (e == objeto || (e != null && e.equals(objeto))) posicion = i;
+            }
+        }
+        if (posicion < 0 || posicion >= v.tamano) return null;
+
+        T quitado = elemento(v, posicion);
+        Object[][] bloques = new Object[1][];
+        int tamano = 0;
+        for (int i = 0; i < v.tamano; i++) {
+            if (i != posicion) bloques = anexar(bloques, tamano++, v.get(i)).bloques;
+        }
+        vista = new Vista(bloques, tamano);
+        reindexar(porClave, clave, quitado, vista);
+        if (porSecundaria != null) reindexar(porSecundaria, claveSecundaria, quitado, vista);
+        return quitado;
+    }
+
+    // Si quedaba otro con la misma clave, pasa a ser él el encontrado
+    private void reindexar(Map<Integer, T> indice, ToIntFunction<? super T> funcion,
+            T quitado, Vista v) {
+        int id = funcion.applyAsInt(quitado);
+        if (!indice.remove(id, quitado)) return;
+        for (int i = 0; i < v.tamano; i++) {
+            T otro = elemento(v, i);
+            if (funcion.applyAsInt(otro) == id) {
+                indice.putIfAbsent(id, otro);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Vista v = vista;
+        return new Iterator<T>() {
+            private int siguiente;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < v.tamano;
+            }
+
+            @Override
+            public T next() {
+                if (siguiente >= v.tamano) throw new NoSuchElementException();
+                return elemento(v, siguiente++);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(toArray(), Spliterator.ORDERED);
+    }
+
+    @Override
+    public Object[] toArray() {
+        Vista v = vista;
+        Object[] copia = new Object[v.tamano];
+        for (int b = 0, hecho = 0; hecho < v.tamano; b++) {
+            int n = Math.min(TAM_BLOQUE, v.tamano - hecho);
+            System.arraycopy(v.bloques[b], 0, copia, hecho, n);
+            hecho += n;
+        }
+        return copia;
+    }
+}
@@ -0,0 +1,19 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Acceso al almacenamiento de los clientes.
+ */
+public interface RepositorioClientes {
+
+    List<Cliente> cargar() throws IOException;
+
+    /**
+     * Persiste los clientes marcados en cambios (todos si se pidió un 
+     * guardado completo). Las marcas se confirman cuando el cambio es durable.
+     */
+    void guardar(List<Cliente> clientes, CambiosPendientes cambios) 
+            throws IOException;
+}
@@ -0,0 +1,20 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Acceso al almacenamiento de las facturas. Cada factura se enlaza con su 
+ * reserva ya cargada.
+ */
+public interface RepositorioFacturas {
+
+    List<Factura> cargar(List<Reserva> reservas) throws IOException;
+
+    /**
+     * Persiste las facturas marcadas en cambios (todas si se pidió un 
+     * guardado completo). Las marcas se confirman cuando el cambio es durable.
+     */
+    void guardar(List<Factura> facturas, CambiosPendientes cambios) 
+            throws IOException;
+}
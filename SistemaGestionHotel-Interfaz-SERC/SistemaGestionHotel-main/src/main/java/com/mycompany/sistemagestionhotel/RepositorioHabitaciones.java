@@ -0,0 +1,19 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Acceso al almacenamiento de las habitaciones.
+ */
+public interface RepositorioHabitaciones {
+
+    List<Habitacion> cargar() throws IOException;
+
+    /**
+     * Persiste las habitaciones marcadas en cambios (todas si se pidió un 
+     * guardado completo). Las marcas se confirman cuando el cambio es durable.
+     */
+    void guardar(List<Habitacion> habitaciones, CambiosPendientes cambios) 
+            throws IOException;
+}
@@ -0,0 +1,21 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Acceso al almacenamiento de las reservas. Las referencias a habitación y 
+ * cliente se resuelven contra las listas ya cargadas.
+ */
+public interface RepositorioReservas {
+
+    List<Reserva> cargar(List<Habitacion> habitaciones, List<Cliente> clientes) 
+            throws IOException;
+
+    /**
+     * Persiste las reservas marcadas en cambios (todas si se pidió un 
+     * guardado completo). Los clientes se usan para los datos del titular.
+     */
+    void guardar(List<Cliente> clientes, List<Reserva> reservas, 
+            CambiosPendientes cambios) throws IOException;
+}
@@ -7,10 +7,11 @@ public class Reserva {
     private int id;
     private LocalDate fechaInicio;
     private LocalDate fechaFin;
-    private EstadoReserva estado;
+    private volatile EstadoReserva estado;
     private Habitacion habitacion;
-    private String cedulaCheckIn;
+    private volatile String cedulaCheckIn;
     private String metodoPago;
+    private final Version version = new Version();
 
     public Reserva(int id,
                    LocalDate fechaInicio,
@@ -41,15 +42,17 @@ public class Reserva {
     }
 
     public void realizarCheckIn(String cedula) {
-        this.cedulaCheckIn = cedula;
-        this.estado = EstadoReserva.CHECK_IN_REALIZADO;
+        version.escribir(() -> {
+            this.cedulaCheckIn = cedula;
+            this.estado = EstadoReserva.CHECK_IN_REALIZADO;
+        });
     }
 
     /**
      * Marca la reserva como finalizada (check-out realizado).
      */
     public void realizarCheckOut() {
-        this.estado = EstadoReserva.FINALIZADA;
+        version.escribir(() -> this.estado = EstadoReserva.FINALIZADA);
     }
 
     public int getId() {
@@ -77,19 +80,39 @@ public class Reserva {
     }
 
     public void setEstado(EstadoReserva estado) {
-        this.estado = estado;
+        version.escribir(() -> this.estado = estado);
+    }
+
+    /** Versión para ediciones optimistas; sube con cada cambio de estado. */
+    public long getVersion() {
+        return version.actual();
     }
 
     public EstadoReserva getEstado() {
         return estado;
     }
 
+    /** Copia suelta (misma versión) que apunta a la copia de su habitación. */
+    Reserva copia(Habitacion copiaHabitacion) {
+        return version.leer(sello -> {
+            Reserva c = new Reserva(id, fechaInicio, fechaFin, estado, 
+                    copiaHabitacion, cedulaCheckIn, metodoPago);
+            c.version.igualar(sello);
+            return c;
+        });
+    }
+
+    long sello() {
+        return version.sello();
+    }
+
     // Persistencia sencilla a CSV (sin incluir el objeto Habitacion completo)
     // Formato: id;fechaInicio;fechaFin;estado;numeroHabitacion;cedulaCheckIn;metodoPago
     public String toCsv() {
         return id + ";" + fechaInicio + ";" + fechaFin + ";" + estado.name() + 
-                ";" + habitacion.getNumero() + ";" + cedulaCheckIn + ";" + 
-                metodoPago;
+                ";" + habitacion.getNumero() + ";" + 
+                PersistenciaDatos.escapeCsv(cedulaCheckIn) + ";" + 
+                PersistenciaDatos.escapeCsv(metodoPago);
     }
 
     public static Reserva fromCsv(String linea, Habitacion habitacion) {
@@ -0,0 +1,193 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Escritor de clientes_reservas.csv. Cada fila se arma carácter a carácter
+ * sobre un único buffer reutilizado (sin String.format) y se envía directo
+ * a la salida, así que el coste crece de forma lineal con las reservas.
+ * La cabecera se lee del archivo una sola vez y queda en memoria.
+ */
+class SerializadorReservas {
+    static final String CABECERA_POR_DEFECTO = "Cliente_ID;Nombre_Cliente;"
+            + "Cedula_Cliente;Email_Cliente;Telefono_Cliente;Reserva_ID;"
+            + "Fecha_Inicio_Reserva;Fecha_Fin_Reserva;Numero_Habitacion;"
+            + "Tipo_Habitacion;Estado_Reserva;Metodo_Pago;Total_Reserva";
+
+    private final Path archivo;
+    private String cabecera;
+    private char[] linea = new char[256];
+    private int largo;
+
+    SerializadorReservas(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    // Se conserva la cabecera que ya tuviera el archivo
+    private String cabecera() throws IOException {
+        if (cabecera == null) {
+            cabecera = CABECERA_POR_DEFECTO;
+            if (Files.exists(archivo)) {
+                try (BufferedReader lector = Files.newBufferedReader(archivo,
+                        StandardCharsets.UTF_8)) {
+                    String primera = lector.readLine();
+                    if (primera != null && primera.contains("Cliente_ID")) cabecera = primera;
+                }
+            }
+        }
+        return cabecera;
+    }
+
+    /**
+     * Escribe la cabecera y una fila por reserva cuyo titular exista. Si
+     * varios clientes comparten cédula se usa el último, como antes.
+     */
+    void escribir(Writer salida, List<Cliente> clientes, List<Reserva> reservas)
+            throws IOException {
+        Map<String, Cliente> porCedula = new HashMap<>(clientes.size() * 2);
+        for (Cliente c : clientes) porCedula.put(c.getCedula(), c);
+
+        salida.write(cabecera());
+        salida.write(System.lineSeparator());
+        String finLinea = System.lineSeparator();
+        for (Reserva r : reservas) {
+            Cliente c = porCedula.get(r.getCedulaCheckIn());
+            if (c == null) continue;
+
+            largo = 0;
+            entero(c.getId()); separador();
+            texto(c.getNombre()); separador();
+            texto(c.getCedula()); separador();
+            texto(c.getEmail()); separador();
+            texto(c.getTelefono()); separador();
+            entero(r.getId()); separador();
+            fecha(r.getFechaInicio()); separador();
+            fecha(r.getFechaFin()); separador();
+            entero(r.getHabitacion().getNumero()); separador();
+            texto(r.getHabitacion().getTipo()); separador();
+            literal(r.getEstado().name()); separador();
+            texto(r.getMetodoPago()); separador();
+            dosDecimales(r.calcularTotal());
+            literal(finLinea);
+            salida.write(linea, 0, largo);
+        }
+    }
+
+    // ================= CAMPOS =================
+
+    private void separador() {
+        agregar(';');
+    }
+
+    // Mismo criterio que escapeCsv: comillas solo si hay ';', '"' o salto de línea
+    private void texto(String campo) {
+        if (campo == null) return;
+        if (campo.indexOf(';') < 0 && campo.indexOf('"') < 0 && campo.indexOf('\n') < 0
+                && campo.indexOf('\r') < 0) {
+            literal(campo);
+            return;
+        }
+        agregar('"');
+        for (int i = 0; i < campo.length(); i++) {
+            char ch = campo.charAt(i);
+            if (ch == '"') agregar('"');
+            agregar(ch);
+        }
+        agregar('"');
+    }
+
+    private void literal(String s) {
+        int n = s.length();
+        asegurar(n);
+        s.getChars(0, n, linea, largo);
+        largo += n;
+    }
+
+    private void entero(long valor) {
+        if (valor < 0) {
+            if (valor == Long.MIN_VALUE) {
+                literal(Long.toString(valor));
+                return;
+            }
+            agregar('-');
+            valor = -valor;
+        }
+        asegurar(20);
+        int inicio = largo;
+        do {
+            linea[largo++] = (char) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        invertir(inicio, largo - 1);
+    }
+
+    // YYYY-MM-DD, igual que LocalDate.toString para años de cuatro cifras
+    private void fecha(LocalDate f) {
+        int anio = f.getYear();
+        if (anio < 1000 || anio > 9999) {
+            literal(f.toString());
+            return;
+        }
+        asegurar(10);
+        digitos(anio, 4);
+        linea[largo++] = '-';
+        digitos(f.getMonthValue(), 2);
+        linea[largo++] = '-';
+        digitos(f.getDayOfMonth(), 2);
+    }
+
+    /** Importe con dos decimales y punto decimal, redondeado a la centésima. */
+    private void dosDecimales(double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor) || Math.abs(valor) >= 1e15) {
+            literal(String.format(Locale.ROOT, "%.2f", valor));
+            return;
+        }
+        long centimos = Math.round(valor * 100);
+        if (centimos < 0) {
+            agregar('-');
+            centimos = -centimos;
+        }
+        entero(centimos / 100);
+        agregar('.');
+        asegurar(2);
+        digitos((int) (centimos % 100), 2);
+    }
+
+    private void digitos(int valor, int cantidad) {
+        for (int i = cantidad - 1; i >= 0; i--) {
+            linea[largo + i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        largo += cantidad;
+    }
+
+    private void invertir(int i, int j) {
+        while (i < j) {
+            char t = linea[i];
+            linea[i++] = linea[j];
+            linea[j--] = t;
+        }
+    }
+
+    private void agregar(char ch) {
+        asegurar(1);
+        linea[largo++] = ch;
+    }
+
+    private void asegurar(int extra) {
+        if (largo + extra > linea.length) {
+            linea = Arrays.copyOf(linea, Math.max(linea.length * 2, largo + extra));
+        }
+    }
+}
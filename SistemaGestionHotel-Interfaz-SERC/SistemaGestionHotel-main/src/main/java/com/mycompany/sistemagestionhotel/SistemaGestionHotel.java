@@ -1,10 +1,22 @@
 package com.mycompany.sistemagestionhotel;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class SistemaGestionHotel {
@@ -13,14 +25,55 @@ public class SistemaGestionHotel {
     private GestionHabitaciones gestionHabitaciones;
     private GestionReservas gestionReservas;
     private PersistenciaDatos persistencia;
+    private Almacenamiento almacenamiento;
     private GestionClientes gestionClientes; 
 
+    // Backend de persistencia: csv (por defecto) o jdbc (-Dhotel.backend=jdbc).
+    // El diario y la instantánea binaria solo aplican a los CSV.
+    private final boolean backendJdbc = "jdbc".equalsIgnoreCase(
+            System.getProperty("hotel.backend", "csv"));
+
+    // Modo diario: las mutaciones de reservas anexan eventos en lugar de 
+    // reescribir los CSV completos (activar con -Dhotel.diario=true)
+    private final boolean modoDiario = !backendJdbc 
+            && Boolean.getBoolean("hotel.diario");
+    private final long umbralCompactacion = Long.getLong(
+            "hotel.diario.umbral", 1000);
+    private ScheduledExecutorService compactador;
+
+    // Instantánea binaria: se escribe al cerrar y se lee al arrancar
+    // (activar con -Dhotel.instantanea=true); los CSV siguen siendo válidos
+    private final boolean modoInstantanea = !backendJdbc 
+            && Boolean.getBoolean("hotel.instantanea");
+
+    private final EscrituraDiferida escritura;
+
+    // Cambios de reservas, habitaciones, clientes y facturas para quien 
+    // quiera seguirlos (GUI, API); el guardado no depende de él
+    private final BusEventos bus = new BusEventos(
+            Integer.getInteger("hotel.eventos.capacidad", 1024));
+
     public SistemaGestionHotel() {
+        this(new PersistenciaDatos(), System.getProperty("hotel.jdbc.url", 
+                "jdbc:h2:./datos/hotel"));
+    }
+
+    /**
+     * Hotel con sus datos en otro directorio (uno por propiedad en 
+     * GrupoHoteles). Con el backend jdbc usa una base H2 dentro de él.
+     */
+    public SistemaGestionHotel(Path directorio) {
+        this(new PersistenciaDatos(directorio), "jdbc:h2:" 
+                + directorio.toAbsolutePath().resolve("hotel"));
+    }
+
+    private SistemaGestionHotel(PersistenciaDatos persistencia, String urlJdbc) {
         this.datos = new DatosHotel();
         this.administrador = new Administrador("admin", "1234");
-        this.persistencia = new PersistenciaDatos();
+        this.persistencia = persistencia;
+        this.almacenamiento = crearAlmacenamiento(urlJdbc);
         
-        // 1. Cargar todos los datos desde los CSV
+        // 1. Cargar todos los datos desde el backend
         cargarDatos();
         
         // 2. Inicialización de gestores (Usando los datos cargados)
@@ -31,6 +84,17 @@ public class SistemaGestionHotel {
         // 3. Inicializar GestionReservas con todas sus dependencias
         this.gestionReservas = new GestionReservas(datos.getReservas(), 
                 gestionHabitaciones, datos, this);
+        gestionClientes.setBusEventos(bus);
+        gestionHabitaciones.setBusEventos(bus);
+        gestionReservas.setBusEventos(bus);
+
+        // 4. Compactación periódica del diario en segundo plano
+        if (modoDiario) iniciarCompactador();
+
+        // 5. Hilo escritor, al final: sus escritores usan el sistema ya armado.
+        // El gancho de salida que llama a flush() lo pone cada punto de 
+        // entrada (uno por JVM, no uno por hotel)
+        this.escritura = crearEscrituraDiferida();
     }
     
     // ==========================================
@@ -39,7 +103,7 @@ public class SistemaGestionHotel {
 
     public Cliente registrarCliente(Cliente nuevoCliente) {
         Cliente registrado = gestionClientes.registrarCliente(nuevoCliente);
-        guardarClientes(); 
+        guardarCliente(registrado); 
         return registrado;
     }
     
@@ -51,7 +115,18 @@ public class SistemaGestionHotel {
         return gestionClientes.buscarClientePorId(id); 
     }
 
+    /**
+     * Factura la reserva. Se hace con el cerrojo de su habitación tomado, así
+     * que dos recepciones no pueden facturar la misma reserva a la vez (sin 
+     * frenar la facturación de otras habitaciones).
+     * @throws IllegalStateException si la reserva ya tiene factura.
+     */
     public Factura generarFactura(Reserva reserva, double porcentajeIVA) {
+        return gestionReservas.conCerrojoDe(reserva, 
+                () -> crearFactura(reserva, porcentajeIVA));
+    }
+
+    private Factura crearFactura(Reserva reserva, double porcentajeIVA) {
         // Se permite facturar cuando la reserva tiene check-in realizado
         // (pendiente de pago) o cuando ya está finalizada.
         if (reserva.getEstado() != EstadoReserva.CHECK_IN_REALIZADO
@@ -59,6 +134,9 @@ public class SistemaGestionHotel {
             throw new IllegalArgumentException("Solo se puede facturar una "
                     + "reserva con check-in realizado (pendiente de pago o finalizada).");
         }
+        if (datos.getFacturaDeReserva(reserva.getId()) != null) {
+            throw new IllegalStateException("La reserva ya tiene factura.");
+        }
         
         long noches = ChronoUnit.DAYS.between(reserva.getFechaInicio(), 
                 reserva.getFechaFin());
@@ -67,7 +145,7 @@ public class SistemaGestionHotel {
         double subtotal = noches * reserva.getHabitacion().getPrecio();
         
         Factura nuevaFactura = new Factura(
-            datos.getNextFacturaId(),
+            datos.tomarIdFactura(),
             LocalDate.now(),
             subtotal,
             0.0, // El IVA se calcula abajo
@@ -78,23 +156,35 @@ public class SistemaGestionHotel {
         nuevaFactura.calcularIVA(porcentajeIVA);
         
         datos.getFacturas().add(nuevaFactura);
-        datos.setNextFacturaId(datos.getNextFacturaId() + 1);
         
-        guardarFacturas(); 
+        // Las facturas nuevas no se dejan en cola; si no llegó a disco, 
+        // tampoco se queda en memoria
+        try {
+            registrarFacturaCreada(nuevaFactura);
+        } catch (UncheckedIOException e) {
+            datos.getFacturas().remove(nuevaFactura);
+            throw e;
+        }
+        bus.publicar(EventoHotel.Tipo.FACTURA_CREADA, nuevaFactura);
         return nuevaFactura;
     }
     
+    /** Factura de la reserva, o null si no tiene; sin recorrer las facturas. */
+    public Factura getFacturaDeReserva(int reservaId) {
+        return datos.getFacturaDeReserva(reservaId);
+    }
+
+    /** Factura por id, o null. */
+    public Factura buscarFacturaPorId(int facturaId) {
+        return datos.buscarFactura(facturaId);
+    }
+
     public void marcarFacturaComoPagada(int reservaId) {
-        boolean encontrada = false;
-        for(Factura f : datos.getFacturas()) {
-            if(f.getReserva().getId() == reservaId) {
-                f.pagar();
-                encontrada = true;
-                break; // Terminamos el bucle
-            }
-        }
-        if (encontrada) {
-            guardarFacturas();
+        Factura encontrada = datos.getFacturaDeReserva(reservaId);
+        if (encontrada != null) {
+            encontrada.pagar();
+            registrarFacturaPagada(encontrada);
+            bus.publicar(EventoHotel.Tipo.FACTURA_MODIFICADA, encontrada);
         } else {
             throw new IllegalArgumentException("No se encontró factura para "
                     + "la reserva ID " + reservaId);
@@ -108,34 +198,63 @@ public class SistemaGestionHotel {
      * @param pagada nuevo estado de pago (null para no cambiarlo).
      */
     public void editarFactura(int facturaId, String nuevoMetodoPago, Boolean pagada) {
-        Factura factura = datos.getFacturas().stream()
-                .filter(f -> f.getId() == facturaId)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "No se encontró factura con ID " + facturaId));
+        editarFactura(facturaId, null, nuevoMetodoPago, pagada);
+    }
+
+    /**
+     * Igual, pero solo si la factura sigue en la versión que se leyó.
+     * @throws IllegalStateException si otra edición llegó antes.
+     */
+    public void editarFactura(int facturaId, long versionEsperada, 
+            String nuevoMetodoPago, Boolean pagada) {
+        editarFactura(facturaId, Long.valueOf(versionEsperada), nuevoMetodoPago, pagada);
+    }
 
-        if (nuevoMetodoPago != null && !nuevoMetodoPago.trim().isEmpty()) {
-            factura.setMetodoPago(nuevoMetodoPago.trim());
+    private void editarFactura(int facturaId, Long versionEsperada, 
+            String nuevoMetodoPago, Boolean pagada) {
+        Factura factura = datos.buscarFactura(facturaId);
+        if (factura == null) {
+            throw new IllegalArgumentException("No se encontró factura con ID " + facturaId);
         }
-        if (pagada != null) {
-            factura.setPagada(pagada);
+
+        boolean cambiaMetodo = nuevoMetodoPago != null 
+                && !nuevoMetodoPago.trim().isEmpty();
+        if (versionEsperada != null) {
+            factura.actualizar(versionEsperada, 
+                    cambiaMetodo ? nuevoMetodoPago.trim() : null, pagada);
+        } else {
+            if (cambiaMetodo) {
+                factura.setMetodoPago(nuevoMetodoPago.trim());
+            }
+            if (pagada != null) {
+                factura.setPagada(pagada);
+            }
         }
 
-        guardarFacturas();
+        // El diario recoge el estado de pago; el método reescribe su segmento.
+        // El pago va siempre al diario para que reproducirlo no deje un 
+        // estado anterior sobre el segmento ya escrito
+        if (cambiaMetodo) {
+            guardarFactura(factura);
+        }
+        if (pagada != null) {
+            registrarFacturaPagada(factura);
+        }
+        bus.publicar(EventoHotel.Tipo.FACTURA_MODIFICADA, factura);
     }
 
     /**
      * Borra una factura por ID.
      */
     public void borrarFactura(int facturaId) {
-        Factura factura = datos.getFacturas().stream()
-                .filter(f -> f.getId() == facturaId)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "No se encontró factura con ID " + facturaId));
+        Factura factura = datos.buscarFactura(facturaId);
+        if (factura == null) {
+            throw new IllegalArgumentException("No se encontró factura con ID " + facturaId);
+        }
 
         datos.getFacturas().remove(factura);
-        guardarFacturas();
+        registrarFacturaBorrada(factura);
+        bus.publicar(EventoHotel.Tipo.FACTURA_BORRADA, factura);
     }
     
     public List<Factura> getFacturasDeClientePorCedula(String cedula) {
@@ -150,40 +269,26 @@ public class SistemaGestionHotel {
 
     private void cargarDatos() {
         try {
-            // 1. Cargar Hotel
-            Hotel hotelCargado = persistencia.cargarHotel();
-            if (hotelCargado == null) {
-                hotelCargado = new Hotel("Hotel Paradise", "Calle Principal 123", 
-                        "+57 1 2345678");
-            }
-            datos.setHotel(hotelCargado);
+            // 0. Terminar un guardado en grupo que se cortó a medias
+            persistencia.recuperarGrupoInterrumpido();
 
-            // 2. Cargar Clientes
-            datos.setClientes(persistencia.cargarClientes());
-            
-            // 3. Cargar Habitaciones y vincularlas al Hotel
-            List<Habitacion> habitacionesCargadas = persistencia.cargarHabitaciones();
-            // Limpiar lista actual del hotel para evitar duplicados si se recarga
-            if (datos.getHotel().getHabitaciones() != null) {
-                datos.getHotel().getHabitaciones().clear();
+            // 1-6. Instantánea binaria si está vigente; si no, los repositorios
+            if (!(modoInstantanea && cargarDesdeInstantanea())) {
+                cargarDesdeRepositorios();
             }
-            // Agregar las habitaciones cargadas al objeto hotel
-            for (Habitacion h : habitacionesCargadas) {
-                datos.getHotel().agregarHabitacion(h);
+            if (backendJdbc && datos.getHabitaciones().isEmpty() 
+                    && datos.getClientes().isEmpty()) {
+                importarDesdeCsv();
             }
-            datos.setHabitaciones(habitacionesCargadas);
-            
-            // 4. Calcular IDs siguientes
-            datos.setNextClienteId(datos.getClientes().stream().mapToInt(Cliente::getId).max().orElse(0) + 1);
-            
-            // 5. Cargar Reservas (Requiere Habitaciones y Clientes ya cargados)
-            datos.setReservas(persistencia.cargarReservas(datos.getHabitaciones(), 
-                    datos.getClientes()));
-            datos.setNextReservaId(datos.getReservas().stream().mapToInt(Reserva::getId).max().orElse(0) + 1);
-
-            // 6. Cargar Facturas (Requiere Reservas ya cargadas)
-            datos.setFacturas(persistencia.cargarFacturas(datos.getReservas()));
-            datos.setNextFacturaId(datos.getFacturas().stream().mapToInt(Factura::getId).max().orElse(0) + 1);
+
+            // 7. Reproducir el diario sobre la última instantánea
+            int eventos = persistencia.reproducirDiario(datos);
+            if (eventos > 0) {
+                System.out.println("Diario reproducido: " + eventos + " eventos.");
+            }
+
+            // 8. Secuencias de IDs
+            iniciarIds();
             
             System.out.println("Datos cargados exitosamente.");
 
@@ -191,6 +296,199 @@ public class SistemaGestionHotel {
             System.err.println("Advertencia: No se pudieron cargar todos los "
                     + "datos (posible primera ejecución): " + e.getMessage());
             inicializarDatosVacios();
+            iniciarIds();
+        }
+    }
+
+    /**
+     * Cada secuencia sigue desde su marca guardada o desde el mayor id 
+     * cargado, lo que sea mayor, así que los ids de lo borrado no se reutilizan.
+     */
+    private void iniciarIds() {
+        Map<String, Integer> marcas;
+        try {
+            marcas = almacenamiento.cargarMarcasIds();
+        } catch (IOException e) {
+            System.err.println("Error leyendo marcas de ids: " + e.getMessage());
+            marcas = Map.of();
+        }
+        iniciarIds(datos.getIdsClientes(), "clientes", marcas,
+                datos.getClientes().stream().mapToInt(Cliente::getId).max().orElse(0));
+        iniciarIds(datos.getIdsReservas(), "reservas", marcas,
+                datos.getReservas().stream().mapToInt(Reserva::getId).max().orElse(0));
+        iniciarIds(datos.getIdsFacturas(), "facturas", marcas,
+                datos.getFacturas().stream().mapToInt(Factura::getId).max().orElse(0));
+    }
+
+    private void iniciarIds(GeneradorIds ids, String secuencia, 
+            Map<String, Integer> marcas, int mayorCargado) {
+        ids.iniciar(Math.max(mayorCargado + 1, marcas.getOrDefault(secuencia, 1)),
+                marca -> almacenamiento.guardarMarcaIds(secuencia, marca));
+    }
+
+    /**
+     * Elige el backend. Si la base de datos no se puede abrir (p. ej. falta 
+     * el driver) se sigue con los CSV.
+     */
+    private Almacenamiento crearAlmacenamiento(String url) {
+        if (backendJdbc) {
+            try {
+                return new AlmacenamientoJdbc(url, 
+                        System.getProperty("hotel.jdbc.usuario", "sa"),
+                        System.getProperty("hotel.jdbc.clave", ""));
+            } catch (IOException e) {
+                System.err.println("Advertencia: se usan los CSV. " + e.getMessage());
+            }
+        }
+        return new AlmacenamientoCsv(persistencia);
+    }
+
+    /**
+     * Carga los repositorios en paralelo sobre hilos virtuales respetando las
+     * dependencias reales: hotel, clientes y habitaciones son independientes;
+     * reservas espera a clientes y habitaciones, y facturas a reservas.
+     * Al terminar informa cuánto tardó cada etapa.
+     */
+    private void cargarDesdeRepositorios() throws IOException {
+        long inicio = System.nanoTime();
+        Map<String, Long> tiempos = new ConcurrentHashMap<>();
+        Hotel hotelCargado;
+        List<Cliente> clientes;
+        List<Habitacion> habitacionesCargadas;
+        List<Reserva> reservas;
+        List<Factura> facturas;
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Hotel> fHotel = etapa("hotel", 
+                    almacenamiento::cargarHotel, hilos, tiempos);
+            CompletableFuture<List<Cliente>> fClientes = etapa("clientes", 
+                    almacenamiento.clientes()::cargar, hilos, tiempos);
+            CompletableFuture<List<Habitacion>> fHabitaciones = etapa("habitaciones", 
+                    almacenamiento.habitaciones()::cargar, hilos, tiempos);
+            // Reservas requiere Habitaciones y Clientes ya cargados
+            CompletableFuture<List<Reserva>> fReservas = fHabitaciones.thenCombineAsync(
+                    fClientes, (h, c) -> medir("reservas", 
+                            () -> almacenamiento.reservas().cargar(h, c), tiempos), hilos);
+            // Facturas requiere Reservas ya cargadas
+            CompletableFuture<List<Factura>> fFacturas = fReservas.thenApplyAsync(
+                    r -> medir("facturas", () -> almacenamiento.facturas().cargar(r), 
+                            tiempos), hilos);
+
+            hotelCargado = esperar(fHotel);
+            clientes = esperar(fClientes);
+            habitacionesCargadas = esperar(fHabitaciones);
+            reservas = esperar(fReservas);
+            facturas = esperar(fFacturas);
+        }
+
+        // 1. Hotel
+        if (hotelCargado == null) {
+            hotelCargado = new Hotel("Hotel Paradise", "Calle Principal 123", 
+                    "+57 1 2345678");
+        }
+        datos.setHotel(hotelCargado);
+
+        // 2. Clientes
+        datos.setClientes(clientes);
+        
+        // 3. Habitaciones vinculadas al Hotel
+        // Limpiar lista actual del hotel para evitar duplicados si se recarga
+        datos.getHotel().vaciarHabitaciones();
+        // Agregar las habitaciones cargadas al objeto hotel
+        for (Habitacion h : habitacionesCargadas) {
+            datos.getHotel().agregarHabitacion(h);
+        }
+        datos.setHabitaciones(habitacionesCargadas);
+        
+        // 4-5. Reservas y Facturas
+        datos.setReservas(reservas);
+        datos.setFacturas(facturas);
+
+        StringBuilder informe = new StringBuilder("Carga en paralelo ("
+                + (almacenamiento instanceof AlmacenamientoJdbc ? "jdbc" : "csv") + "):");
+        for (String nombre : List.of("hotel", "clientes", "habitaciones", 
+                "reservas", "facturas")) {
+            informe.append(' ').append(nombre).append('=')
+                    .append(tiempos.getOrDefault(nombre, 0L) / 1_000_000).append("ms");
+        }
+        informe.append(" (total ").append((System.nanoTime() - inicio) / 1_000_000)
+                .append("ms)");
+        System.out.println(informe);
+    }
+
+    private interface EtapaCarga<T> {
+        T cargar() throws IOException;
+    }
+
+    private static <T> CompletableFuture<T> etapa(String nombre, EtapaCarga<T> etapa, 
+            Executor hilos, Map<String, Long> tiempos) {
+        return CompletableFuture.supplyAsync(() -> medir(nombre, etapa, tiempos), hilos);
+    }
+
+    private static <T> T medir(String nombre, EtapaCarga<T> etapa, 
+            Map<String, Long> tiempos) {
+        long t0 = System.nanoTime();
+        try {
+            return etapa.cargar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            tiempos.put(nombre, System.nanoTime() - t0);
+        }
+    }
+
+    // Devuelve el resultado de la etapa o relanza el IOException original
+    private static <T> T esperar(CompletableFuture<T> etapa) throws IOException {
+        try {
+            return etapa.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof UncheckedIOException u) throw u.getCause();
+            if (causa instanceof RuntimeException r) throw r;
+            if (causa instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    /**
+     * Primer arranque con base de datos vacía: se copian los CSV existentes 
+     * en una sola transacción.
+     */
+    private void importarDesdeCsv() throws IOException {
+        if (almacenamiento instanceof AlmacenamientoCsv) return;
+        Almacenamiento csv = almacenamiento;
+        this.almacenamiento = new AlmacenamientoCsv(persistencia);
+        try {
+            cargarDesdeRepositorios();
+        } finally {
+            this.almacenamiento = csv;
+        }
+        if (datos.getHabitaciones().isEmpty() && datos.getClientes().isEmpty()) return;
+
+        almacenamiento.enGrupo(() -> {
+            almacenamiento.guardarHotel(datos.getHotel());
+            almacenamiento.habitaciones().guardar(datos.getHotel().getHabitaciones(), null);
+            almacenamiento.clientes().guardar(datos.getClientes(), null);
+            almacenamiento.reservas().guardar(datos.getClientes(), datos.getReservas(), null);
+            almacenamiento.facturas().guardar(datos.getFacturas(), null);
+        });
+        System.out.println("Datos CSV importados a la base de datos.");
+    }
+
+    /**
+     * Carga todo desde la instantánea binaria. Si no existe, está dañada o 
+     * algún CSV es más reciente, devuelve false y se usan los CSV.
+     */
+    private boolean cargarDesdeInstantanea() {
+        try {
+            DatosHotel cargados = persistencia.cargarInstantaneaBinaria();
+            if (cargados == null) return false;
+            this.datos = cargados;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Instantánea binaria no válida, se usan los CSV: " 
+                    + e.getMessage());
+            return false;
         }
     }
     
@@ -203,30 +501,329 @@ public class SistemaGestionHotel {
         if (datos.getFacturas() == null) datos.setFacturas(new ArrayList<>());
     }
 
-    public void guardarClientes() {
-        try { persistencia.guardarClientes(datos.getClientes()); } 
-        catch (IOException e) { System.err.println("Error guardar clientes: " + e.getMessage()); }
+    // ==========================================
+    // ESCRITURA DIFERIDA
+    // ==========================================
+
+    // Los guardar* marcan el conjunto como sucio y el hilo escritor lo vuelca
+    // cada hotel.escritura.intervaloMs o cada hotel.escritura.lote cambios
+    // (intervalo 0 = escribir en el momento, como antes)
+    private EscrituraDiferida crearEscrituraDiferida() {
+        Map<EscrituraDiferida.Conjunto, EscrituraDiferida.Escritor> escritores = 
+                new EnumMap<>(EscrituraDiferida.Conjunto.class);
+        escritores.put(EscrituraDiferida.Conjunto.CLIENTES, this::escribirClientes);
+        escritores.put(EscrituraDiferida.Conjunto.HABITACIONES, this::escribirHabitaciones);
+        escritores.put(EscrituraDiferida.Conjunto.RESERVAS, this::escribirReservas);
+        escritores.put(EscrituraDiferida.Conjunto.FACTURAS, this::escribirFacturas);
+        return new EscrituraDiferida(escritores, 
+                volcado -> almacenamiento.enGrupo(volcado::escribir),
+                Long.getLong("hotel.escritura.intervaloMs", 500),
+                Integer.getInteger("hotel.escritura.lote", 50));
+    }
+
+    public void guardarClientes() { guardarClientes(Durabilidad.DIFERIDA); }
+    public void guardarHabitaciones() { guardarHabitaciones(Durabilidad.DIFERIDA); }
+    public void guardarReservas() { guardarReservas(Durabilidad.DIFERIDA); }
+    public void guardarFacturas() { guardarFacturas(Durabilidad.DIFERIDA); }
+
+    public void guardarClientes(Durabilidad durabilidad) {
+        datos.getCambiosClientes().marcarTodo();
+        escritura.marcar(EscrituraDiferida.Conjunto.CLIENTES, durabilidad);
+    }
+
+    public void guardarHabitaciones(Durabilidad durabilidad) {
+        datos.getCambiosHabitaciones().marcarTodo();
+        escritura.marcar(EscrituraDiferida.Conjunto.HABITACIONES, durabilidad);
+    }
+
+    public void guardarReservas(Durabilidad durabilidad) {
+        datos.getCambiosReservas().marcarTodo();
+        escritura.marcar(EscrituraDiferida.Conjunto.RESERVAS, durabilidad);
+    }
+
+    public void guardarFacturas(Durabilidad durabilidad) {
+        datos.getCambiosFacturas().marcarTodo();
+        escritura.marcar(EscrituraDiferida.Conjunto.FACTURAS, durabilidad);
+    }
+
+    // Guardado incremental: solo se reescribe el segmento de la entidad
+
+    public void guardarCliente(Cliente c) {
+        datos.getCambiosClientes().marcar(c.getId());
+        escritura.marcar(EscrituraDiferida.Conjunto.CLIENTES, Durabilidad.DIFERIDA);
+    }
+
+    public void guardarHabitacion(Habitacion h) {
+        datos.getCambiosHabitaciones().marcar(h.getNumero());
+        escritura.marcar(EscrituraDiferida.Conjunto.HABITACIONES, Durabilidad.DIFERIDA);
+    }
+
+    public void guardarReserva(Reserva r) {
+        datos.getCambiosReservas().marcar(r.getId());
+        escritura.marcar(EscrituraDiferida.Conjunto.RESERVAS, Durabilidad.DIFERIDA);
+    }
+
+    public void guardarFactura(Factura f) { guardarFactura(f, Durabilidad.DIFERIDA); }
+
+    public void guardarFactura(Factura f, Durabilidad durabilidad) {
+        datos.getCambiosFacturas().marcar(f.getId());
+        escritura.marcar(EscrituraDiferida.Conjunto.FACTURAS, durabilidad);
+    }
+
+    /**
+     * Escribe de inmediato todos los cambios pendientes y espera a que terminen.
+     * @throws UncheckedIOException si no se pudieron escribir.
+     */
+    public void flush() {
+        escritura.flush();
+    }
+
+    private void escribirClientes() throws IOException {
+        almacenamiento.clientes().guardar(datos.getClientes(), datos.getCambiosClientes());
     }
     
-    public void guardarHabitaciones() {
-        try { persistencia.guardarHabitaciones(datos.getHotel()); } 
-        catch (IOException e) { System.err.println("Error guardar habitaciones: " + e.getMessage()); }
+    private void escribirHabitaciones() throws IOException {
+        if (compactarSiHayDiario()) return;
+        almacenamiento.habitaciones().guardar(datos.getHotel().getHabitaciones(), 
+                datos.getCambiosHabitaciones());
     }
     
-    public void guardarReservas() {
-        try { persistencia.guardarReservasUnificado(datos.getClientes(), 
-                datos.getReservas()); } catch (IOException e) { System.err.println("Error guardar reservas: " + e.getMessage()); }
+    private void escribirReservas() throws IOException {
+        if (compactarSiHayDiario()) return;
+        almacenamiento.reservas().guardar(datos.getClientes(), datos.getReservas(), 
+                datos.getCambiosReservas());
     }
     
-    public void guardarFacturas() {
-        try { persistencia.guardarFacturas(datos.getFacturas()); } 
-        catch (IOException e) { System.err.println("Error guardar facturas: " + e.getMessage()); }
+    // Las facturas creadas y pagadas van al diario, así que los segmentos 
+    // sueltos se escriben sin compactar; solo un guardado completo compacta
+    private void escribirFacturas() throws IOException {
+        if (datos.getCambiosFacturas().pideTodo() && compactarSiHayDiario()) return;
+        almacenamiento.facturas().guardar(datos.getFacturas(), datos.getCambiosFacturas());
     }
     
+    // ==========================================
+    // DIARIO DE CAMBIOS
+    // ==========================================
+
+    /**
+     * Persiste una reserva recién creada (y el nuevo estado de su habitación).
+     * En modo diario solo se anexan dos registros; si no, se reescriben los CSV.
+     */
+    public void registrarReservaCreada(Reserva r) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarReservaCreada(r);
+                persistencia.registrarEstadoHabitacion(r.getHabitacion());
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarReserva(r);
+        guardarHabitacion(r.getHabitacion());
+    }
+
+    /**
+     * Persiste un cambio de estado de la reserva y de su habitación 
+     * (check-in, check-out o cancelación).
+     */
+    public void registrarCambioReserva(Reserva r) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarEstadoReserva(r);
+                persistencia.registrarEstadoHabitacion(r.getHabitacion());
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarReserva(r);
+        guardarHabitacion(r.getHabitacion());
+    }
+
+    /**
+     * Persiste de una vez un grupo de reservas creadas o cambiadas y sus 
+     * habitaciones: un único anexo al diario o una única escritura diferida.
+     */
+    public void registrarGrupoReservas(List<Reserva> grupo, boolean creadas) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarGrupoReservas(grupo, creadas);
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        for (Reserva r : grupo) {
+            datos.getCambiosReservas().marcar(r.getId());
+            datos.getCambiosHabitaciones().marcar(r.getHabitacion().getNumero());
+        }
+        escritura.marcar(EscrituraDiferida.Conjunto.RESERVAS, Durabilidad.DIFERIDA);
+        escritura.marcar(EscrituraDiferida.Conjunto.HABITACIONES, Durabilidad.DIFERIDA);
+    }
+
+    /**
+     * Edición optimista de una habitación (null = sin cambios), ya persistida.
+     * @throws IllegalStateException si cambió desde que se leyó su versión.
+     */
+    public Habitacion editarHabitacion(int numero, long versionEsperada, 
+            Double nuevoPrecio, EstadoHabitacion nuevoEstado) {
+        Habitacion h = gestionHabitaciones.actualizarHabitacion(numero, 
+                versionEsperada, nuevoPrecio, nuevoEstado);
+        persistirCambioHabitacion(h, nuevoPrecio != null, nuevoEstado != null);
+        return h;
+    }
+
+    /**
+     * Edición optimista de los datos de contacto de un cliente, ya persistida.
+     * @throws IllegalStateException si cambió desde que se leyó su versión.
+     */
+    public Cliente editarCliente(String cedula, long versionEsperada, 
+            String nombre, String email, String telefono) {
+        Cliente c = gestionClientes.actualizarCliente(cedula, versionEsperada, 
+                nombre, email, telefono);
+        guardarCliente(c);
+        return c;
+    }
+
+    // Único camino de guardado de una habitación editada: eventos de precio 
+    // y estado en modo diario, escritura diferida en otro caso
+    private void persistirCambioHabitacion(Habitacion h, boolean cambioPrecio, 
+            boolean cambioEstado) {
+        if (modoDiario) {
+            try {
+                if (cambioPrecio) persistencia.registrarPrecioHabitacion(h);
+                if (cambioEstado) persistencia.registrarEstadoHabitacion(h);
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarHabitacion(h);
+    }
+
+    /**
+     * Persiste una factura recién creada antes de volver: en modo diario un 
+     * solo registro forzado a disco; si no, escritura inmediata de su segmento.
+     */
+    private void registrarFacturaCreada(Factura f) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarFacturaCreada(f);
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarFactura(f, Durabilidad.INMEDIATA);
+    }
+
+    // En modo diario se anota el borrado; si no, se reescribe el segmento 
+    // que la contenía, ya sin ella
+    private void registrarFacturaBorrada(Factura f) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarFacturaBorrada(f);
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarFactura(f);
+    }
+
+    private void registrarFacturaPagada(Factura f) {
+        if (modoDiario) {
+            try {
+                persistencia.registrarFacturaPagada(f);
+                return;
+            } catch (IOException e) { System.err.println("Error diario: " 
+                    + e.getMessage()); }
+        }
+        guardarFactura(f, Durabilidad.INMEDIATA);
+    }
+
+    private void iniciarCompactador() {
+        long intervalo = Long.getLong("hotel.diario.intervaloSeg", 30);
+        compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "compactador-diario");
+            t.setDaemon(true);
+            return t;
+        });
+        compactador.scheduleWithFixedDelay(() -> {
+            if (persistencia.getEventosEnDiario() >= umbralCompactacion) {
+                compactarDiario();
+            }
+        }, intervalo, intervalo, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Pliega el diario en los CSV de instantánea. Si otra operación modifica 
+     * las listas mientras se escriben, se aborta y se reintenta más tarde.
+     */
+    public boolean compactarDiario() {
+        try { 
+            persistencia.compactarDiario(datos); 
+            return true;
+        } catch (IOException | RuntimeException e) { 
+            System.err.println("Error compactar diario: " + e.getMessage()); 
+            return false;
+        }
+    }
+
+    // Una reescritura completa deja obsoletos los eventos pendientes, así que 
+    // en modo diario se compacta todo a la vez para que no se reapliquen.
+    private boolean compactarSiHayDiario() {
+        if (!modoDiario || persistencia.getEventosEnDiario() == 0) return false;
+        return compactarDiario();
+    }
+
+    /**
+     * Cierre ordenado: entrega los eventos pendientes, vuelca la escritura 
+     * diferida, ajusta las marcas de ids, detiene el compactador, deja los 
+     * CSV al día y, si está activa, escribe la instantánea binaria para el 
+     * próximo arranque.
+     */
+    public void cerrar() {
+        bus.cerrar();
+        escritura.cerrar();
+        datos.getIdsClientes().cerrar();
+        datos.getIdsReservas().cerrar();
+        datos.getIdsFacturas().cerrar();
+        if (compactador != null) compactador.shutdown();
+        if (modoDiario) {
+            compactarDiario();
+            try { persistencia.cerrarDiario(); }
+            catch (IOException e) { System.err.println("Error cerrar diario: " 
+                    + e.getMessage()); }
+        }
+        if (modoInstantanea) {
+            try { persistencia.guardarInstantaneaBinaria(datos); }
+            catch (IOException e) { System.err.println("Error guardar instantánea: " 
+                    + e.getMessage()); }
+        }
+        try { almacenamiento.close(); }
+        catch (IOException e) { System.err.println("Error cerrar almacenamiento: " 
+                + e.getMessage()); }
+    }
+
     // Método auxiliar para agregar habitación desde el menú admin
     public void agregarHabitacion(Habitacion h) {
         gestionHabitaciones.agregarHabitacion(h);
-        guardarHabitaciones();
+        guardarHabitacion(h);
+    }
+
+    /**
+     * Foto inmutable de todo el hotel para informes y listados largos; no
+     * frena reservas ni facturas mientras se recorre.
+     */
+    public InstantaneaDatos tomarInstantanea() {
+        return InstantaneaDatos.tomar(datos);
+    }
+
+    /**
+     * Ocupación, ADR y RevPAR por día de [desde, hasta), en total y 
+     * opcionalmente por tipo de habitación. Se calcula sobre una instantánea.
+     */
+    public InformeOcupacion generarInformeOcupacion(LocalDate desde, LocalDate hasta,
+            boolean porTipo) {
+        InstantaneaDatos foto = tomarInstantanea();
+        return InformeOcupacion.generar(foto.getHabitaciones(), foto.getReservas(), 
+                desde, hasta, porTipo);
     }
 
     // ==========================================
@@ -237,6 +834,7 @@ public class SistemaGestionHotel {
     public GestionReservas getGestionReservas() { return gestionReservas; }
     public GestionClientes getGestionClientes() { return gestionClientes; }
     public Administrador getAdministrador() { return administrador; }
+    public BusEventos getBusEventos() { return bus; }
     
     // Estos getters de listas son usados por el reporte del Admin
     public List<Reserva> getReservas() { return datos.getReservas(); }
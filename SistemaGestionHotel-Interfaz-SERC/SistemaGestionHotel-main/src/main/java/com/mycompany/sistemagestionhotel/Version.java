@@ -0,0 +1,90 @@
+package com.mycompany.sistemagestionhotel;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Contador de versión de una entidad para ediciones optimistas: quien edita
+ * guarda la versión al leer y su cambio solo se aplica si nadie ha escrito
+ * desde entonces. No hay cerrojos; los lectores nunca esperan.
+ *
+ * Internamente el contador es par con la entidad estable e impar mientras
+ * se escribe, y la versión pública es su mitad. Así quien lee a mitad de una
+ * escritura obtiene la versión anterior y su edición será rechazada.
+ */
+class Version {
+    private final AtomicLong contador = new AtomicLong();
+
+    long actual() {
+        return contador.get() >>> 1;
+    }
+
+    /**
+     * Aplica el cambio solo si la versión sigue siendo la esperada.
+     * @throws IllegalStateException si otra edición llegó antes.
+     */
+    void actualizar(long esperada, Runnable cambio) {
+        long estable = esperada << 1;
+        if (esperada < 0 || !contador.compareAndSet(estable, estable + 1)) {
+            throw obsoleta(esperada, actual());
+        }
+        try {
+            cambio.run();
+        } finally {
+            contador.set(estable + 2);
+        }
+    }
+
+    /**
+     * Contador interno tal cual: par si la entidad está estable y distinto
+     * tras cualquier escritura, así que dos lecturas iguales y pares
+     * garantizan que nada cambió entre ellas.
+     */
+    long sello() {
+        return contador.get();
+    }
+
+    /**
+     * Lee varios campos como un todo sin bloquear a nadie: si se cruza una
+     * escritura se vuelve a leer. La lectura recibe el sello estable.
+     */
+    <T> T leer(LongFunction<T> lectura) {
+        while (true) {
+            long v = contador.get();
+            if ((v & 1) == 0) {
+                T valor = lectura.apply(v);
+                if (contador.get() == v) return valor;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Pone el sello de otra versión; solo en copias que nadie más ve aún. */
+    void igualar(long sello) {
+        contador.set(sello);
+    }
+
+    /** Error de una edición basada en una versión ya superada. */
+    static IllegalStateException obsoleta(long esperada, long actual) {
+        return new IllegalStateException("Los datos cambiaron desde que se "
+                + "cargaron (versión " + esperada + ", actual " + actual
+                + "). Vuelva a cargarlos.");
+    }
+
+    /**
+     * Aplica el cambio sin comprobar versión (flujos internos como reservar
+     * o hacer check-in), pero subiéndola para que las ediciones pendientes
+     * basadas en la anterior se rechacen. Solo espera a otra escritura.
+     */
+    void escribir(Runnable cambio) {
+        long v;
+        while (((v = contador.get()) & 1) != 0 || !contador.compareAndSet(v, v + 1)) {
+            Thread.onSpinWait();
+        }
+        try {
+            cambio.run();
+        } finally {
+            contador.set(v + 2);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.sistemagestionhotel.api;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Escritor JSON en flujo: cada valor se escribe directamente en la salida
+ * (con un búfer pequeño), sin construir antes el documento en memoria, así
+ * que una lista larga de reservas no ocupa más que su búfer.
+ *
+ * Solo lleva la cuenta de las comas por nivel de anidamiento; no valida que
+ * los inicios y fines estén equilibrados.
+ */
+class EscritorJson implements Closeable {
+    private final Writer salida;
+    // Bit n: el nivel n ya tiene algún elemento (la siguiente lleva coma)
+    private final BitSet conElementos = new BitSet();
+    private int nivel;
+    private boolean trasNombre;
+
+    EscritorJson(OutputStream destino) {
+        this.salida = new BufferedWriter(new OutputStreamWriter(destino,
+                StandardCharsets.UTF_8), 8192);
+    }
+
+    EscritorJson inicioObjeto() throws IOException {
+        return abrir('{');
+    }
+
+    EscritorJson finObjeto() throws IOException {
+        return cerrar('}');
+    }
+
+    EscritorJson inicioLista() throws IOException {
+        return abrir('[');
+    }
+
+    EscritorJson finLista() throws IOException {
+        return cerrar(']');
+    }
+
+    EscritorJson nombre(String nombre) throws IOException {
+        separar();
+        cadena(nombre);
+        salida.write(':');
+        trasNombre = true;
+        return this;
+    }
+
+    EscritorJson valor(String valor) throws IOException {
+        separar();
+        if (valor == null) salida.write("null");
+        else cadena(valor);
+        return this;
+    }
+
+    EscritorJson valor(long valor) throws IOException {
+        separar();
+        salida.write(Long.toString(valor));
+        return this;
+    }
+
+    /** NaN e infinito no existen en JSON: se escriben como null. */
+    EscritorJson valor(double valor) throws IOException {
+        separar();
+        salida.write(Double.isFinite(valor) ? Double.toString(valor) : "null");
+        return this;
+    }
+
+    EscritorJson valor(boolean valor) throws IOException {
+        separar();
+        salida.write(valor ? "true" : "false");
+        return this;
+    }
+
+    EscritorJson campo(String nombre, String valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    EscritorJson campo(String nombre, long valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    EscritorJson campo(String nombre, double valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    EscritorJson campo(String nombre, boolean valor) throws IOException {
+        return nombre(nombre).valor(valor);
+    }
+
+    private EscritorJson abrir(char c) throws IOException {
+        separar();
+        salida.write(c);
+        nivel++;
+        conElementos.clear(nivel);
+        return this;
+    }
+
+    private EscritorJson cerrar(char c) throws IOException {
+        nivel--;
+        salida.write(c);
+        return this;
+    }
+
+    // Coma antes de cada elemento salvo el primero del nivel o tras un nombre
+    private void separar() throws IOException {
+        if (trasNombre) {
+            trasNombre = false;
+            return;
+        }
+        if (conElementos.get(nivel)) salida.write(',');
+        conElementos.set(nivel);
+    }
+
+    private void cadena(String s) throws IOException {
+        salida.write('"');
+        int desde = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            salida.write(s, desde, i - desde);
+            switch (c) {
+                case '"' -> salida.write("\\\"");
+                case '\\' -> salida.write("\\\\");
+                case '\n' -> salida.write("\\n");
+                case '\r' -> salida.write("\\r");
+                case '\t' -> salida.write("\\t");
+                default -> salida.write(String.format("\\u%04x", (int) c));
+            }
+            desde = i + 1;
+        }
+        salida.write(s, desde, s.length() - desde);
+        salida.write('"');
+    }
+
+    /**
+     * Termina un documento de un flujo de varios (una línea cada uno) y lo
+     * envía ya, sin esperar a llenar el búfer.
+     */
+    void finDocumento() throws IOException {
+        salida.write('\n');
+        salida.flush();
+        conElementos.clear(0);
+    }
+
+    /** Vacía el búfer y cierra la salida (en HTTP, termina la respuesta). */
+    @Override
+    public void close() throws IOException {
+        salida.close();
+    }
+}
@@ -0,0 +1,750 @@
+package com.mycompany.sistemagestionhotel.api;
+
+import com.mycompany.sistemagestionhotel.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * API HTTP/JSON sobre SistemaGestionHotel, con el servidor HTTP del JDK.
+ * Cada petición se atiende en su propio hilo virtual, así que miles de
+ * clientes lentos o esperando un cerrojo de habitación no agotan ningún
+ * pool; el límite real es la cola de conexiones (hotel.api.cola).
+ *
+ * Los parámetros van en la query o, en los POST, como formulario
+ * (application/x-www-form-urlencoded). Las respuestas se escriben en flujo
+ * con EscritorJson. Errores: 400 datos inválidos, 401 falta el token,
+ * 404 no encontrado, 405 método no permitido, 409 conflicto de estado o
+ * disponibilidad, 503 un cambio de escritura inmediata no llegó a disco.
+ *
+ * Por defecto solo escucha en la interfaz local (hotel.api.host). Todo lo
+ * que no es GET modifica datos y exige la cabecera
+ * "Authorization: Bearer {token}", con el token de hotel.api.token o, si no
+ * se da, uno al azar que se muestra al arrancar: en la GUI esas acciones
+ * están tras el acceso de administrador.
+ *
+ * <pre>
+ * GET  /api/habitaciones?desde&amp;hasta&amp;tipo&amp;precioMin&amp;precioMax&amp;estado&amp;orden&amp;limite
+ * GET  /api/habitaciones/{numero}
+ * GET  /api/habitaciones/{numero}/alternativas?desde&amp;hasta&amp;k
+ * GET  /api/clientes?cedula          GET /api/clientes/{id}
+ * GET  /api/reservas?cedula          GET /api/reservas/{id}
+ * POST /api/reservas                 (habitacion, desde, hasta, cedula, metodoPago)
+ * POST /api/reservas/{id}/checkin    (cedula, version)
+ * POST /api/reservas/{id}/checkout   (version)
+ * POST /api/reservas/{id}/cancelar   (version)
+ * GET  /api/reservas/{id}/factura
+ * POST /api/reservas/{id}/factura    (iva, por defecto 0.19)
+ * POST /api/reservas/{id}/factura/pagar
+ * GET  /api/facturas?cedula
+ * GET  /api/eventos                  (flujo NDJSON de cambios, un evento por línea)
+ * </pre>
+ *
+ * Con un GrupoHoteles (hotel.grupo=true al arrancar) las mismas rutas van
+ * bajo el id de cada propiedad, y hay consultas de todo el grupo:
+ *
+ * <pre>
+ * GET  /api/hoteles                           (ids de las propiedades)
+ * GET  /api/hoteles/{hotel}/habitaciones...   (y clientes, reservas, facturas, eventos)
+ * GET  /api/grupo/disponibilidad?desde&amp;hasta (libres en cada propiedad)
+ * GET  /api/grupo/reservas?cedula             (estancias del cliente en cualquiera)
+ * </pre>
+ *
+ * Con el parámetro opcional version (el campo "version" de la reserva tal
+ * como se leyó), la transición se rechaza con 409 si la reserva cambió
+ * entretanto.
+ */
+public class ServidorApi {
+
+    /** Escribe el cuerpo de una respuesta ya decidida. */
+    private interface Contenido {
+        void escribir(EscritorJson json) throws IOException;
+    }
+
+    private record Respuesta(int estado, String tipo, Contenido contenido) {
+        Respuesta(int estado, Contenido contenido) {
+            this(estado, "application/json; charset=utf-8", contenido);
+        }
+    }
+
+    private interface Ruta {
+        Respuesta atender(Peticion p) throws IOException;
+    }
+
+    /** Método, segmentos de ruta tras el contexto, parámetros y hotel destino. */
+    private record Peticion(String metodo, List<String> segmentos,
+            Map<String, String> parametros, SistemaGestionHotel sistema) {
+
+        // La misma petición dirigida a una propiedad, sin los segmentos ya usados
+        Peticion paraHotel(SistemaGestionHotel hotel, int segmentosUsados) {
+            return new Peticion(metodo, segmentos.subList(segmentosUsados, segmentos.size()),
+                    parametros, hotel);
+        }
+
+        String segmento(int i) {
+            return i < segmentos.size() ? segmentos.get(i) : null;
+        }
+
+        String texto(String nombre) {
+            String v = parametros.get(nombre);
+            if (v == null || v.isBlank()) {
+                throw new IllegalArgumentException("Falta el parámetro '" + nombre + "'.");
+            }
+            return v.trim();
+        }
+
+        String opcional(String nombre) {
+            String v = parametros.get(nombre);
+            return v == null || v.isBlank() ? null : v.trim();
+        }
+
+        int entero(String nombre) {
+            return Integer.parseInt(texto(nombre));
+        }
+
+        LocalDate fecha(String nombre) {
+            return LocalDate.parse(texto(nombre));
+        }
+    }
+
+    private static final double IVA_POR_DEFECTO = 0.19;
+    private static final int ALTERNATIVAS = 3;
+    // Eventos sin leer por cliente del flujo antes de cortarlo
+    private static final int COLA_EVENTOS = Integer.getInteger("hotel.api.eventos.cola", 1024);
+
+    // Uno u otro: un solo hotel o un grupo de propiedades
+    private final SistemaGestionHotel sistema;
+    private final GrupoHoteles grupo;
+    private final Map<String, Ruta> recursos = Map.of(
+            "habitaciones", this::habitaciones,
+            "clientes", this::clientes,
+            "reservas", this::reservas,
+            "facturas", this::facturas,
+            "eventos", this::eventos);
+    private final byte[] autorizacion;
+    private final String token;
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private volatile boolean detenido;
+
+    /** En hotel.api.host (por defecto 127.0.0.1) y con el token de hotel.api.token. */
+    public ServidorApi(SistemaGestionHotel sistema, int puerto) throws IOException {
+        this(sistema, System.getProperty("hotel.api.host", "127.0.0.1"), puerto,
+                System.getProperty("hotel.api.token"));
+    }
+
+    /**
+     * @param host interfaz donde escuchar ("0.0.0.0" para todas).
+     * @param token el que deben enviar las peticiones que modifican datos; 
+     * null o vacío genera uno al azar (ver getToken()).
+     */
+    public ServidorApi(SistemaGestionHotel sistema, String host, int puerto, String token)
+            throws IOException {
+        this(sistema, null, host, puerto, token);
+    }
+
+    /** Todas las propiedades del grupo, bajo /api/hoteles/{hotel} y /api/grupo. */
+    public ServidorApi(GrupoHoteles grupo, String host, int puerto, String token)
+            throws IOException {
+        this(null, grupo, host, puerto, token);
+    }
+
+    private ServidorApi(SistemaGestionHotel sistema, GrupoHoteles grupo, String host,
+            int puerto, String token) throws IOException {
+        this.sistema = sistema;
+        this.grupo = grupo;
+        this.token = token == null || token.isBlank() ? tokenAlAzar() : token;
+        this.autorizacion = ("Bearer " + this.token).getBytes(StandardCharsets.UTF_8);
+        this.servidor = HttpServer.create(new InetSocketAddress(host, puerto),
+                Integer.getInteger("hotel.api.cola", 1024));
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(hilos);
+        if (grupo == null) {
+            recursos.forEach((nombre, ruta) -> registrar("/api/" + nombre, ruta));
+        } else {
+            registrar("/api/hoteles", this::hoteles);
+            registrar("/api/grupo", this::consultaGrupo);
+        }
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /** Deja de aceptar peticiones y espera hasta 2 s a las que están en curso. */
+    public void detener() {
+        detenido = true;
+        servidor.stop(1);
+        hilos.shutdown();
+        try {
+            hilos.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    public String getHost() {
+        return servidor.getAddress().getHostString();
+    }
+
+    /** Token que exigen las peticiones que no son GET. */
+    public String getToken() {
+        return token;
+    }
+
+    private static String tokenAlAzar() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // ==========================================
+    // MÉTODO MAIN (PUNTO DE ENTRADA)
+    // ==========================================
+    public static void main(String[] args) throws IOException {
+        String host = System.getProperty("hotel.api.host", "127.0.0.1");
+        int puerto = Integer.getInteger("hotel.api.puerto", 8080);
+        String token = System.getProperty("hotel.api.token");
+        ServidorApi api;
+        Runnable cerrar;
+        if (Boolean.getBoolean("hotel.grupo")) {
+            // Todas las propiedades de hotel.grupo.dir en esta JVM
+            GrupoHoteles grupo = new GrupoHoteles();
+            api = new ServidorApi(grupo, host, puerto, token);
+            cerrar = grupo::cerrar;
+            System.out.println("Hoteles del grupo: " + grupo.getIdsHoteles());
+        } else {
+            SistemaGestionHotel sistema = new SistemaGestionHotel();
+            api = new ServidorApi(sistema, host, puerto, token);
+            cerrar = sistema::cerrar;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.detener();
+            cerrar.run();
+        }, "cierre-api"));
+        api.iniciar();
+        System.out.println("API escuchando en http://" + api.getHost() + ":" 
+                + api.getPuerto() + "/api");
+        if (System.getProperty("hotel.api.token", "").isBlank()) {
+            System.out.println("Token para modificar datos: " + api.getToken());
+        }
+    }
+
+    // ==========================================
+    // RUTAS
+    // ==========================================
+
+    // /api/hoteles/{hotel}/{recurso}/...: la ruta del recurso sobre esa propiedad
+    private Respuesta hoteles(Peticion p) throws IOException {
+        String id = p.segmento(0);
+        if (id == null) {
+            soloGet(p);
+            List<String> ids = List.copyOf(grupo.getIdsHoteles());
+            return ok(json -> {
+                json.inicioLista();
+                for (String h : ids) json.valor(h);
+                json.finLista();
+            });
+        }
+        Ruta ruta = p.segmento(1) == null ? null : recursos.get(p.segmento(1));
+        if (ruta == null) throw new NoSuchElementException("Ruta no encontrada.");
+        return ruta.atender(p.paraHotel(grupo.hotel(id), 2));
+    }
+
+    private Respuesta consultaGrupo(Peticion p) {
+        soloGet(p);
+        if (p.segmento(0) == null || p.segmento(1) != null) {
+            throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        switch (p.segmento(0)) {
+            case "disponibilidad" -> {
+                Map<String, List<Habitacion>> libres = grupo.buscarDisponibilidad(
+                        p.fecha("desde"), p.fecha("hasta"));
+                return ok(json -> porHotel(json, libres, ServidorApi::habitacion));
+            }
+            case "reservas" -> {
+                Map<String, List<Reserva>> estancias = grupo.reservasDeCliente(
+                        p.texto("cedula"));
+                return ok(json -> porHotel(json, estancias, ServidorApi::reserva));
+            }
+            default -> throw new NoSuchElementException("Ruta no encontrada.");
+        }
+    }
+
+    private Respuesta habitaciones(Peticion p) {
+        soloGet(p);
+        GestionHabitaciones gh = p.sistema().getGestionHabitaciones();
+        if (p.segmento(0) == null) {
+            CriteriosBusqueda c = new CriteriosBusqueda();
+            if (p.opcional("desde") != null || p.opcional("hasta") != null) {
+                c.setFechas(p.fecha("desde"), p.fecha("hasta"));
+            }
+            c.setTipo(p.opcional("tipo"));
+            if (p.opcional("precioMin") != null) {
+                c.setPrecioMinimo(Double.parseDouble(p.texto("precioMin")));
+            }
+            if (p.opcional("precioMax") != null) {
+                c.setPrecioMaximo(Double.parseDouble(p.texto("precioMax")));
+            }
+            if (p.opcional("estado") != null) {
+                c.setEstado(EstadoHabitacion.valueOf(p.texto("estado").toUpperCase()));
+            }
+            if (p.opcional("orden") != null) {
+                c.setOrden(CriteriosBusqueda.Orden.valueOf(p.texto("orden").toUpperCase()));
+            }
+            if (p.opcional("limite") != null) c.setLimite(p.entero("limite"));
+            List<Habitacion> resultado = gh.buscarHabitaciones(c);
+            return ok(json -> lista(json, resultado, ServidorApi::habitacion));
+        }
+
+        Habitacion h = habitacion(p, p.segmento(0));
+        if (p.segmento(1) == null) return ok(json -> habitacion(json, h));
+        if (!p.segmento(1).equals("alternativas") || p.segmento(2) != null) {
+            throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        LocalDate desde = p.fecha("desde");
+        LocalDate hasta = p.fecha("hasta");
+        int k = p.opcional("k") == null ? ALTERNATIVAS : p.entero("k");
+        List<AlternativaReserva> fechas = gh.buscarFechasAlternativas(h, desde, hasta, k);
+        List<AlternativaReserva> similares = gh.buscarHabitacionesSimilares(h, desde, hasta, k);
+        return ok(json -> alternativas(json.inicioObjeto(), fechas, similares).finObjeto());
+    }
+
+    private Respuesta clientes(Peticion p) {
+        soloGet(p);
+        Cliente c;
+        if (p.segmento(0) == null) {
+            c = p.sistema().buscarClientePorCedula(p.texto("cedula"));
+        } else if (p.segmento(1) == null) {
+            c = p.sistema().buscarClientePorId(Integer.parseInt(p.segmento(0)));
+        } else {
+            throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        if (c == null) throw new NoSuchElementException("Cliente no encontrado.");
+        return ok(json -> cliente(json, c));
+    }
+
+    private Respuesta reservas(Peticion p) {
+        GestionReservas gr = p.sistema().getGestionReservas();
+        if (p.segmento(0) == null) {
+            if (p.metodo().equals("POST")) return crearReserva(p);
+            soloGet(p);
+            List<Reserva> delCliente = gr.getReservasDeClientePorCedula(p.texto("cedula"));
+            return ok(json -> lista(json, delCliente, ServidorApi::reserva));
+        }
+
+        Reserva r = reserva(p, p.segmento(0));
+        String accion = p.segmento(1);
+        if (accion == null) {
+            soloGet(p);
+            return ok(json -> reserva(json, r));
+        }
+        if (accion.equals("factura")) return factura(p, r);
+        soloPost(p);
+        if (p.segmento(2) != null) throw new NoSuchElementException("Ruta no encontrada.");
+        boolean conVersion = p.opcional("version") != null;
+        long version = conVersion ? Long.parseLong(p.texto("version")) : -1;
+        switch (accion) {
+            case "checkin" -> {
+                String cedula = p.opcional("cedula");
+                if (cedula == null) cedula = r.getCedulaCheckIn();
+                if (conVersion) gr.realizarCheckIn(r.getId(), cedula, version);
+                else gr.realizarCheckIn(r.getId(), cedula);
+            }
+            case "checkout" -> {
+                if (conVersion) gr.realizarCheckOut(r.getId(), version);
+                else gr.realizarCheckOut(r.getId());
+            }
+            case "cancelar" -> {
+                if (conVersion) gr.cancelarReserva(r.getId(), version);
+                else gr.cancelarReserva(r.getId());
+            }
+            default -> throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        return ok(json -> reserva(json, r));
+    }
+
+    private Respuesta crearReserva(Peticion p) {
+        SistemaGestionHotel sistema = p.sistema();
+        Habitacion h = habitacion(p, p.texto("habitacion"));
+        LocalDate desde = p.fecha("desde");
+        LocalDate hasta = p.fecha("hasta");
+        String cedula = p.texto("cedula");
+        if (sistema.buscarClientePorCedula(cedula) == null) {
+            throw new NoSuchElementException("Cliente no registrado: " + cedula);
+        }
+        String metodoPago = p.opcional("metodoPago") == null ? "Efectivo"
+                : p.texto("metodoPago");
+        try {
+            Reserva r = sistema.getGestionReservas().crearReserva(desde, hasta, h,
+                    metodoPago, cedula);
+            return new Respuesta(201, json -> reserva(json, r));
+        } catch (IllegalStateException e) {
+            // Como en recepción: si no se puede, se ofrecen alternativas
+            GestionHabitaciones gh = sistema.getGestionHabitaciones();
+            List<AlternativaReserva> fechas = hasta.isAfter(desde)
+                    ? gh.buscarFechasAlternativas(h.getTipo(), desde, hasta, ALTERNATIVAS)
+                    : List.of();
+            List<AlternativaReserva> similares = hasta.isAfter(desde)
+                    ? gh.buscarHabitacionesSimilares(h, desde, hasta, ALTERNATIVAS)
+                    : List.of();
+            return new Respuesta(409, json -> alternativas(json.inicioObjeto()
+                    .campo("error", e.getMessage()), fechas, similares).finObjeto());
+        }
+    }
+
+    private Respuesta factura(Peticion p, Reserva r) {
+        String accion = p.segmento(2);
+        SistemaGestionHotel sistema = p.sistema();
+        if (accion == null && p.metodo().equals("GET")) {
+            Factura f = facturaDe(sistema, r);
+            if (f == null) throw new NoSuchElementException("La reserva no tiene factura.");
+            return ok(json -> factura(json, f));
+        }
+        soloPost(p);
+        if (accion == null) {
+            double iva = p.opcional("iva") == null ? IVA_POR_DEFECTO
+                    : Double.parseDouble(p.texto("iva"));
+            // Una sola factura por reserva: lo comprueba generarFactura (409)
+            Factura f = sistema.generarFactura(r, iva);
+            return new Respuesta(201, json -> factura(json, f));
+        }
+        if (!accion.equals("pagar") || p.segmento(3) != null) {
+            throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        if (facturaDe(sistema, r) == null) {
+            throw new NoSuchElementException("La reserva no tiene factura.");
+        }
+        sistema.marcarFacturaComoPagada(r.getId());
+        Factura f = facturaDe(sistema, r);
+        return ok(json -> factura(json, f));
+    }
+
+    private Respuesta facturas(Peticion p) {
+        soloGet(p);
+        if (p.segmento(0) != null) throw new NoSuchElementException("Ruta no encontrada.");
+        List<Factura> delCliente = p.sistema().getFacturasDeClientePorCedula(
+                p.texto("cedula"));
+        return ok(json -> lista(json, delCliente, ServidorApi::factura));
+    }
+
+    /**
+     * Flujo de cambios mientras el cliente siga conectado. Cada conexión
+     * tiene su cola acotada: si el cliente no lee al ritmo del hotel se le
+     * corta el flujo en lugar de frenar el bus (puede reconectar y releer).
+     */
+    private Respuesta eventos(Peticion p) {
+        soloGet(p);
+        if (p.segmento(0) != null) throw new NoSuchElementException("Ruta no encontrada.");
+        BusEventos bus = p.sistema().getBusEventos();
+        return new Respuesta(200, "application/x-ndjson; charset=utf-8",
+                json -> seguirEventos(json, bus));
+    }
+
+    private void seguirEventos(EscritorJson json, BusEventos bus) throws IOException {
+        BlockingQueue<EventoHotel> cola = new ArrayBlockingQueue<>(COLA_EVENTOS);
+        AtomicBoolean desbordada = new AtomicBoolean();
+        BusEventos.Suscriptor suscriptor = e -> {
+            if (!cola.offer(e)) desbordada.set(true);
+        };
+        bus.suscribir(suscriptor);
+        try {
+            while (!detenido && !desbordada.get()) {
+                EventoHotel e = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (e == null) continue;
+                evento(json, e);
+                json.finDocumento();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bus.cancelarSuscripcion(suscriptor);
+        }
+    }
+
+    private static Habitacion habitacion(Peticion p, String numero) {
+        Habitacion h = p.sistema().getGestionHabitaciones()
+                .buscarHabitacionPorNumero(Integer.parseInt(numero));
+        if (h == null) throw new NoSuchElementException("Habitación no encontrada: " + numero);
+        return h;
+    }
+
+    private static Reserva reserva(Peticion p, String id) {
+        Reserva r = p.sistema().getGestionReservas().buscarReservaPorId(Integer.parseInt(id));
+        if (r == null) throw new NoSuchElementException("Reserva no encontrada con ID: " + id);
+        return r;
+    }
+
+    private static Factura facturaDe(SistemaGestionHotel sistema, Reserva r) {
+        return sistema.getFacturaDeReserva(r.getId());
+    }
+
+    private static void soloGet(Peticion p) {
+        if (!p.metodo().equals("GET")) throw new MetodoNoPermitido("GET");
+    }
+
+    private static void soloPost(Peticion p) {
+        if (!p.metodo().equals("POST")) throw new MetodoNoPermitido("POST");
+    }
+
+    private static class MetodoNoPermitido extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final String permitido;
+
+        MetodoNoPermitido(String permitido) {
+            super("Método no permitido; use " + permitido + ".");
+            this.permitido = permitido;
+        }
+    }
+
+    private static class NoAutorizado extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NoAutorizado() {
+            super("Falta el token o no es válido (Authorization: Bearer ...).");
+        }
+    }
+
+    // Comparación en tiempo constante para no dar pistas sobre el token
+    private boolean autorizado(HttpExchange ex) {
+        String cabecera = ex.getRequestHeaders().getFirst("Authorization");
+        return cabecera != null && MessageDigest.isEqual(autorizacion,
+                cabecera.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Respuesta ok(Contenido contenido) {
+        return new Respuesta(200, contenido);
+    }
+
+    // ==========================================
+    // CODIFICACIÓN JSON
+    // ==========================================
+
+    private interface Codificador<T> {
+        void escribir(EscritorJson json, T valor) throws IOException;
+    }
+
+    private static <T> void lista(EscritorJson json, List<T> valores,
+            Codificador<T> codificador) throws IOException {
+        json.inicioLista();
+        for (T v : valores) codificador.escribir(json, v);
+        json.finLista();
+    }
+
+    // {"hotel1": [...], "hotel2": [...]}
+    private static <T> void porHotel(EscritorJson json, Map<String, List<T>> valores,
+            Codificador<T> codificador) throws IOException {
+        json.inicioObjeto();
+        for (Map.Entry<String, List<T>> e : valores.entrySet()) {
+            json.nombre(e.getKey());
+            lista(json, e.getValue(), codificador);
+        }
+        json.finObjeto();
+    }
+
+    private static void habitacion(EscritorJson json, Habitacion h) throws IOException {
+        json.inicioObjeto()
+                .campo("numero", h.getNumero())
+                .campo("tipo", h.getTipo())
+                .campo("precio", h.getPrecio())
+                .campo("estado", String.valueOf(h.getEstado()))
+                .campo("version", h.getVersion())
+                .finObjeto();
+    }
+
+    private static void cliente(EscritorJson json, Cliente c) throws IOException {
+        json.inicioObjeto()
+                .campo("id", c.getId())
+                .campo("nombre", c.getNombre())
+                .campo("cedula", c.getCedula())
+                .campo("email", c.getEmail())
+                .campo("telefono", c.getTelefono())
+                .campo("version", c.getVersion())
+                .finObjeto();
+    }
+
+    private static void reserva(EscritorJson json, Reserva r) throws IOException {
+        json.inicioObjeto()
+                .campo("id", r.getId())
+                .campo("fechaInicio", r.getFechaInicio().toString())
+                .campo("fechaFin", r.getFechaFin().toString())
+                .campo("estado", String.valueOf(r.getEstado()))
+                .campo("habitacion", r.getHabitacion().getNumero())
+                .campo("cedula", r.getCedulaCheckIn())
+                .campo("metodoPago", r.getMetodoPago())
+                .campo("total", r.calcularTotal())
+                .campo("version", r.getVersion())
+                .finObjeto();
+    }
+
+    private static void factura(EscritorJson json, Factura f) throws IOException {
+        json.inicioObjeto()
+                .campo("id", f.getId())
+                .campo("fecha", String.valueOf(f.getFecha()))
+                .campo("reserva", f.getReserva().getId())
+                .campo("subtotal", f.getSubtotal())
+                .campo("iva", f.getIva())
+                .campo("total", f.getTotal())
+                .campo("metodoPago", f.getMetodoPago())
+                .campo("pagada", f.estaPagada())
+                .campo("version", f.getVersion())
+                .finObjeto();
+    }
+
+    // {"secuencia", "tipo", y la entidad bajo su nombre: "reserva", "cliente"...}
+    private static void evento(EscritorJson json, EventoHotel e) throws IOException {
+        json.inicioObjeto()
+                .campo("secuencia", e.getSecuencia())
+                .campo("tipo", e.getTipo().name());
+        if (e.getReserva() != null) {
+            reserva(json.nombre("reserva"), e.getReserva());
+        } else if (e.getHabitacion() != null) {
+            habitacion(json.nombre("habitacion"), e.getHabitacion());
+        } else if (e.getCliente() != null) {
+            cliente(json.nombre("cliente"), e.getCliente());
+        } else if (e.getFactura() != null) {
+            factura(json.nombre("factura"), e.getFactura());
+        }
+        json.finObjeto();
+    }
+
+    private static void alternativa(EscritorJson json, AlternativaReserva a)
+            throws IOException {
+        json.inicioObjeto()
+                .campo("habitacion", a.getHabitacion().getNumero())
+                .campo("tipo", a.getHabitacion().getTipo())
+                .campo("precio", a.getHabitacion().getPrecio())
+                .campo("fechaInicio", a.getFechaInicio().toString())
+                .campo("fechaFin", a.getFechaFin().toString())
+                .campo("desplazamientoDias", a.getDesplazamientoDias())
+                .finObjeto();
+    }
+
+    // Campos "fechas" y "similares" dentro de un objeto ya abierto
+    private static EscritorJson alternativas(EscritorJson json,
+            List<AlternativaReserva> fechas, List<AlternativaReserva> similares)
+            throws IOException {
+        json.nombre("fechas");
+        lista(json, fechas, ServidorApi::alternativa);
+        json.nombre("similares");
+        lista(json, similares, ServidorApi::alternativa);
+        return json;
+    }
+
+    // ==========================================
+    // INFRAESTRUCTURA HTTP
+    // ==========================================
+
+    private void registrar(String contexto, Ruta ruta) {
+        servidor.createContext(contexto, ex -> atender(ex, contexto, ruta));
+    }
+
+    private void atender(HttpExchange ex, String contexto, Ruta ruta) throws IOException {
+        try (ex) {
+            Respuesta respuesta;
+            try {
+                String metodo = ex.getRequestMethod().toUpperCase();
+                // Antes de leer el cuerpo: sin token no se procesa nada que modifique
+                if (!metodo.equals("GET") && !autorizado(ex)) throw new NoAutorizado();
+                Peticion p = new Peticion(metodo,
+                        segmentos(ex.getRequestURI().getRawPath().substring(contexto.length())),
+                        parametros(ex), sistema);
+                respuesta = ruta.atender(p);
+            } catch (NoAutorizado e) {
+                ex.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respuesta = error(401, e.getMessage());
+            } catch (MetodoNoPermitido e) {
+                ex.getResponseHeaders().set("Allow", e.permitido);
+                respuesta = error(405, e.getMessage());
+            } catch (NoSuchElementException e) {
+                respuesta = error(404, e.getMessage());
+            } catch (IllegalStateException e) {
+                respuesta = error(409, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                respuesta = error(400, e.getMessage());
+            } catch (UncheckedIOException e) {
+                // El cambio se pidió con escritura inmediata y no llegó a disco
+                System.err.println("Error API " + ex.getRequestURI() + ": " + e.getMessage());
+                respuesta = error(503, "No se pudo guardar: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Error API " + ex.getRequestURI() + ": " + e);
+                respuesta = error(500, "Error interno.");
+            }
+
+            // Cabeceras ya decididas; el cuerpo va en trozos según se escribe
+            ex.getResponseHeaders().set("Content-Type", respuesta.tipo());
+            ex.sendResponseHeaders(respuesta.estado(), 0);
+            try (EscritorJson json = new EscritorJson(ex.getResponseBody())) {
+                respuesta.contenido().escribir(json);
+            }
+        }
+    }
+
+    private static Respuesta error(int estado, String mensaje) {
+        return new Respuesta(estado, json -> json.inicioObjeto()
+                .campo("error", mensaje).finObjeto());
+    }
+
+    // "/12/factura" -> [12, factura]; también rechaza lo que no es del contexto
+    private static List<String> segmentos(String resto) {
+        List<String> segmentos = new ArrayList<>();
+        if (!resto.isEmpty() && resto.charAt(0) != '/') {
+            throw new NoSuchElementException("Ruta no encontrada.");
+        }
+        for (String s : resto.split("/")) {
+            if (!s.isEmpty()) segmentos.add(URLDecoder.decode(s, StandardCharsets.UTF_8));
+        }
+        return segmentos;
+    }
+
+    // Query y, en los POST de formulario, también el cuerpo (que prevalece)
+    private static Map<String, String> parametros(HttpExchange ex) throws IOException {
+        Map<String, String> parametros = new HashMap<>();
+        decodificar(ex.getRequestURI().getRawQuery(), parametros);
+        String tipo = ex.getRequestHeaders().getFirst("Content-Type");
+        if (tipo != null && tipo.startsWith("application/x-www-form-urlencoded")) {
+            try (InputStream cuerpo = ex.getRequestBody()) {
+                decodificar(new String(cuerpo.readAllBytes(), StandardCharsets.UTF_8),
+                        parametros);
+            }
+        }
+        return parametros;
+    }
+
+    private static void decodificar(String texto, Map<String, String> destino) {
+        if (texto == null || texto.isEmpty()) return;
+        for (String par : texto.split("&")) {
+            if (par.isEmpty()) continue;
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            destino.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -4,9 +4,15 @@ import com.mycompany.sistemagestionhotel.*;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 public class HotelGUI extends JFrame {
 
@@ -28,6 +34,8 @@ public class HotelGUI extends JFrame {
 
     private DefaultTableModel habitacionesModel;
     private JTable habitacionesTable;
+    // La tabla muestra una búsqueda por fechas, no todas las habitaciones
+    private boolean habitacionesFiltradas;
 
     private DefaultTableModel reservasModel;
     private JTable reservasTable;
@@ -39,6 +47,12 @@ public class HotelGUI extends JFrame {
         setSize(1100, 650);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                sistema.cerrar();
+            }
+        });
 
         tabs = new JTabbedPane();
 
@@ -65,6 +79,11 @@ public class HotelGUI extends JFrame {
         refrescarTablaHabitaciones();
         refrescarTablaReservas();
 
+        // Los cambios (de esta ventana, la consola o la API) llegan por el bus
+        // de eventos y se aplican fila a fila en el hilo de Swing
+        sistema.getBusEventos().suscribir(evento -> 
+                SwingUtilities.invokeLater(() -> aplicarEvento(evento)));
+
         setVisible(true);
     }
 
@@ -204,7 +223,6 @@ public class HotelGUI extends JFrame {
 
                 Cliente nuevo = new Cliente(0, nombre, cedula, correo, telefono);
                 sistema.registrarCliente(nuevo);
-                refrescarTablaClientes();
 
                 ced.setText("");
                 nom.setText("");
@@ -285,12 +303,16 @@ public class HotelGUI extends JFrame {
     private void refrescarTablaClientes() {
         clientesModel.setRowCount(0);
         for (Cliente c : sistema.getClientes()) {
-            clientesModel.addRow(new Object[]{
-                    c.getCedula(), c.getNombre(), c.getEmail(), c.getTelefono()
-            });
+            clientesModel.addRow(filaCliente(c));
         }
     }
 
+    private static Object[] filaCliente(Cliente c) {
+        return new Object[]{
+                c.getCedula(), c.getNombre(), c.getEmail(), c.getTelefono()
+        };
+    }
+
     // =============================
     // PANEL HABITACIONES (lista + creación de reservas)
     // =============================
@@ -350,11 +372,9 @@ public class HotelGUI extends JFrame {
                     throw new IllegalArgumentException("Habitación no encontrada");
                 }
 
-                Reserva r = sistema.getGestionReservas().crearReserva(
+                sistema.getGestionReservas().crearReserva(
                         fi, ff, habitacion, metodoPago, cliente.getCedula());
 
-                refrescarTablaReservas();
-
                 hab.setText("");
                 inicio.setText("");
                 fin.setText("");
@@ -365,21 +385,53 @@ public class HotelGUI extends JFrame {
             } catch (DateTimeParseException ex) {
                 JOptionPane.showMessageDialog(this, "Formato de fecha inválido (use YYYY-MM-DD)",
                         "Error", JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalStateException ex) {
+                // Sin sesión no se llegó a consultar la habitación
+                String alternativas = clienteActual == null ? "" 
+                        : textoAlternativas(hab.getText(), inicio.getText(), fin.getText());
+                JOptionPane.showMessageDialog(this, ex.getMessage() + alternativas,
+                        "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
                         "Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
-        // --- Listar habitaciones disponibles (todas) ---
+        // --- Listar habitaciones disponibles (todas o libres en unas fechas) ---
         JPanel dispPanel = new JPanel();
         dispPanel.setBorder(BorderFactory.createTitledBorder("Habitaciones disponibles"));
+        JTextField dispDesde = new JTextField(8);
+        JTextField dispHasta = new JTextField(8);
         JButton btnDisp = new JButton("Refrescar lista de habitaciones");
+        JLabel lblLibres = new JLabel(" ");
+        dispPanel.add(new JLabel("Desde:")); dispPanel.add(dispDesde);
+        dispPanel.add(new JLabel("Hasta:")); dispPanel.add(dispHasta);
         dispPanel.add(btnDisp);
+        dispPanel.add(lblLibres);
 
         btnDisp.addActionListener(e -> {
             try {
-                refrescarTablaHabitaciones();
+                String desde = dispDesde.getText().trim();
+                String hasta = dispHasta.getText().trim();
+                if (desde.isEmpty() || hasta.isEmpty()) {
+                    refrescarTablaHabitaciones();
+                    lblLibres.setText(" ");
+                    return;
+                }
+                LocalDate fi = LocalDate.parse(desde);
+                LocalDate ff = LocalDate.parse(hasta);
+                refrescarTablaHabitaciones(sistema.getGestionHabitaciones()
+                        .buscarHabitacionesDisponibles(fi, ff));
+                habitacionesFiltradas = true;
+                int[] libres = sistema.getGestionHabitaciones()
+                        .contarHabitacionesLibresPorDia(fi, ff);
+                int minimo = Integer.MAX_VALUE;
+                for (int n : libres) minimo = Math.min(minimo, n);
+                lblLibres.setText(libres.length == 0 ? " " 
+                        : "Mínimo libres por noche: " + minimo);
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(this, "Formato de fecha inválido (use YYYY-MM-DD)",
+                        "Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
                         "Error", JOptionPane.ERROR_MESSAGE);
@@ -423,7 +475,6 @@ public class HotelGUI extends JFrame {
                 int id = Integer.parseInt(idCheckIn.getText().trim());
                 String cedula = cedCheckIn.getText().trim();
                 sistema.getGestionReservas().realizarCheckIn(id, cedula);
-                refrescarTablaReservas();
                 JOptionPane.showMessageDialog(this, "Check-in exitoso");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -443,7 +494,6 @@ public class HotelGUI extends JFrame {
             try {
                 int id = Integer.parseInt(idCheckOut.getText().trim());
                 sistema.getGestionReservas().realizarCheckOut(id);
-                refrescarTablaReservas();
                 JOptionPane.showMessageDialog(this, "Check-out exitoso");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -468,7 +518,6 @@ public class HotelGUI extends JFrame {
                     throw new IllegalStateException("Solo se puede cancelar una reserva CONFIRMADA sin check-in.");
                 }
                 sistema.getGestionReservas().cancelarReserva(id);
-                refrescarTablaReservas();
                 JOptionPane.showMessageDialog(this, "Reserva cancelada");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -498,12 +547,11 @@ public class HotelGUI extends JFrame {
                     throw new IllegalStateException("Para pagar, la reserva debe tener check-in realizado.");
                 }
 
-                Factura f = sistema.generarFactura(r, iva);
+                // Si ya se facturó (consola, API) se paga esa misma factura
+                Factura f = sistema.getFacturaDeReserva(id);
+                if (f == null) f = sistema.generarFactura(r, iva);
                 sistema.marcarFacturaComoPagada(id);
 
-                // Actualizar tabla para reflejar estado PENDIENTE PAGO / PAGADA
-                refrescarTablaReservas();
-
                 StringBuilder sb = new StringBuilder();
                 sb.append("Factura ID: ").append(f.getId()).append("\n");
                 sb.append("Fecha: ").append(f.getFecha()).append("\n");
@@ -546,36 +594,132 @@ public class HotelGUI extends JFrame {
         }
         for (Reserva r : sistema.getGestionReservas()
                 .getReservasDeClientePorCedula(clienteActual.getCedula())) {
-            // Determinar texto de estado considerando pago
-            String estadoTexto = r.getEstado().toString();
-            boolean pagada = sistema.getFacturas().stream()
-                    .anyMatch(f -> f.getReserva().getId() == r.getId() && f.estaPagada());
-            if (!pagada && r.getEstado() == EstadoReserva.CHECK_IN_REALIZADO) {
-                estadoTexto += " (PENDIENTE PAGO)";
-            } else if (pagada && r.getEstado() == EstadoReserva.FINALIZADA) {
-                estadoTexto += " (PAGADA)";
-            }
-
-            reservasModel.addRow(new Object[]{
-                    r.getId(),
-                    clienteActual.getNombre(),
-                    r.getHabitacion().getNumero(),
-                    r.getFechaInicio(),
-                    r.getFechaFin(),
-                    estadoTexto,
-                    r.calcularTotal()
-            });
+            reservasModel.addRow(filaReserva(r));
         }
     }
 
+    private Object[] filaReserva(Reserva r) {
+        // Determinar texto de estado considerando pago
+        String estadoTexto = r.getEstado().toString();
+        Factura factura = sistema.getFacturaDeReserva(r.getId());
+        boolean pagada = factura != null && factura.estaPagada();
+        if (!pagada && r.getEstado() == EstadoReserva.CHECK_IN_REALIZADO) {
+            estadoTexto += " (PENDIENTE PAGO)";
+        } else if (pagada && r.getEstado() == EstadoReserva.FINALIZADA) {
+            estadoTexto += " (PAGADA)";
+        }
+
+        return new Object[]{
+                r.getId(),
+                clienteActual.getNombre(),
+                r.getHabitacion().getNumero(),
+                r.getFechaInicio(),
+                r.getFechaFin(),
+                estadoTexto,
+                r.calcularTotal()
+        };
+    }
+
+
+    // Fechas cercanas y habitaciones parecidas cuando la pedida está ocupada
+    private String textoAlternativas(String numero, String inicio, String fin) {
+        GestionHabitaciones gh = sistema.getGestionHabitaciones();
+        Habitacion h = gh.buscarHabitacionPorNumero(Integer.parseInt(numero.trim()));
+        LocalDate fi = LocalDate.parse(inicio.trim());
+        LocalDate ff = LocalDate.parse(fin.trim());
+        if (h == null || !ff.isAfter(fi)) return "";
+
+        StringBuilder texto = new StringBuilder();
+        for (AlternativaReserva a : gh.buscarFechasAlternativas(h.getTipo(), fi, ff, 3)) {
+            texto.append("\n - ").append(a);
+        }
+        for (AlternativaReserva a : gh.buscarHabitacionesSimilares(h, fi, ff, 3)) {
+            texto.append("\n - ").append(a);
+        }
+        return texto.length() == 0 ? "" : "\n\nAlternativas:" + texto;
+    }
     private void refrescarTablaHabitaciones() {
+        refrescarTablaHabitaciones(sistema.getGestionHabitaciones().getTodasHabitaciones());
+        habitacionesFiltradas = false;
+    }
+
+    private void refrescarTablaHabitaciones(List<Habitacion> habitaciones) {
         if (habitacionesModel == null) return;
         habitacionesModel.setRowCount(0);
-        for (Habitacion h : sistema.getGestionHabitaciones().getTodasHabitaciones()) {
-            habitacionesModel.addRow(new Object[]{
-                    h.getNumero(), h.getTipo(), h.getPrecio(), h.getEstado()
-            });
+        for (Habitacion h : habitaciones) {
+            habitacionesModel.addRow(filaHabitacion(h));
+        }
+    }
+
+    private static Object[] filaHabitacion(Habitacion h) {
+        return new Object[]{
+                h.getNumero(), h.getTipo(), h.getPrecio(), h.getEstado()
+        };
+    }
+
+    // =============================
+    // CAMBIOS RECIBIDOS DEL BUS DE EVENTOS
+    // =============================
+    private void aplicarEvento(EventoHotel evento) {
+        switch (evento.getTipo()) {
+            case RESERVA_CREADA, RESERVA_MODIFICADA -> actualizarFilaReserva(evento.getReserva());
+            case RESERVA_BORRADA -> {
+                if (esDelClienteActual(evento.getReserva())) {
+                    quitarFila(reservasModel, evento.getReserva().getId());
+                }
+            }
+            // El estado de pago se muestra en la fila de la reserva
+            case FACTURA_CREADA, FACTURA_MODIFICADA, FACTURA_BORRADA -> 
+                    actualizarFilaReserva(evento.getFactura().getReserva());
+            case HABITACION_AGREGADA, HABITACION_MODIFICADA -> {
+                Habitacion h = evento.getHabitacion();
+                // Con una búsqueda en pantalla solo se actualizan sus filas
+                reemplazarFila(habitacionesModel, h.getNumero(), filaHabitacion(h), 
+                        !habitacionesFiltradas);
+            }
+            case CLIENTE_REGISTRADO, CLIENTE_MODIFICADO -> {
+                Cliente c = evento.getCliente();
+                reemplazarFila(clientesModel, c.getCedula(), filaCliente(c), true);
+            }
+            case CLIENTE_BORRADO -> quitarFila(clientesModel, evento.getCliente().getCedula());
+        }
+    }
+
+    private void actualizarFilaReserva(Reserva r) {
+        if (esDelClienteActual(r) && sistema.getGestionReservas()
+                .buscarReservaPorId(r.getId()) == r) {
+            reemplazarFila(reservasModel, r.getId(), filaReserva(r), true);
+        }
+    }
+
+    private boolean esDelClienteActual(Reserva r) {
+        return clienteActual != null 
+                && r.getCedulaCheckIn().equalsIgnoreCase(clienteActual.getCedula());
+    }
+
+    // Sustituye la fila cuya primera columna es la clave (o la añade)
+    private static void reemplazarFila(DefaultTableModel modelo, Object clave, 
+            Object[] fila, boolean agregarSiFalta) {
+        int i = buscarFila(modelo, clave);
+        if (i < 0) {
+            if (agregarSiFalta) modelo.addRow(fila);
+            return;
         }
+        for (int col = 0; col < fila.length; col++) {
+            modelo.setValueAt(fila[col], i, col);
+        }
+    }
+
+    private static void quitarFila(DefaultTableModel modelo, Object clave) {
+        int i = buscarFila(modelo, clave);
+        if (i >= 0) modelo.removeRow(i);
+    }
+
+    private static int buscarFila(DefaultTableModel modelo, Object clave) {
+        for (int i = 0; i < modelo.getRowCount(); i++) {
+            if (clave.equals(modelo.getValueAt(i, 0))) return i;
+        }
+        return -1;
     }
 
     // =============================
@@ -605,26 +749,28 @@ public class HotelGUI extends JFrame {
         JButton btnListarTodo = new JButton("Listar todo (Hab/Res/Fact)");
         btnListarTodo.setEnabled(false);
         btnListarTodo.addActionListener(e -> {
+            // Sobre una instantánea: las listas no cambian mientras se recorren
+            InstantaneaDatos foto = sistema.tomarInstantanea();
             StringBuilder sb = new StringBuilder();
             sb.append("--- Clientes ---\n");
-            for (Cliente c : sistema.getClientes()) {
+            for (Cliente c : foto.getClientes()) {
                 sb.append(c.getCedula()).append(" - ").append(c.getNombre()).append("\n");
             }
             sb.append("\n--- Habitaciones ---\n");
-            for (Habitacion h : sistema.getGestionHabitaciones().getTodasHabitaciones()) {
+            for (Habitacion h : foto.getHabitaciones()) {
                 sb.append(h.getNumero()).append(" ").append(h.getEstado())
                         .append(" ").append(h.getTipo()).append(" $")
                         .append(h.getPrecio()).append("\n");
             }
             sb.append("\n--- Reservas ---\n");
-            for (Reserva r : sistema.getReservas()) {
+            for (Reserva r : foto.getReservas()) {
                 sb.append("ID ").append(r.getId())
                         .append(" Estado: ").append(r.getEstado())
                         .append(" Hab: ").append(r.getHabitacion().getNumero())
                         .append("\n");
             }
             sb.append("\n--- Facturas ---\n");
-            for (Factura f : sistema.getFacturas()) {
+            for (Factura f : foto.getFacturas()) {
                 sb.append("ID ").append(f.getId())
                         .append(" Total: ").append(f.getTotal())
                         .append(" Pagada: ").append(f.estaPagada())
@@ -646,7 +792,6 @@ public class HotelGUI extends JFrame {
             try {
                 String cedula = cedBorrar.getText().trim();
                 sistema.getGestionClientes().borrarCliente(cedula);
-                refrescarTablaClientes();
                 JOptionPane.showMessageDialog(this, "Cliente borrado");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -661,24 +806,41 @@ public class HotelGUI extends JFrame {
         JTextField nomEditar = new JTextField(10);
         JTextField emailEditar = new JTextField(12);
         JTextField telEditar = new JTextField(8);
+        JButton btnCargarCliente = new JButton("Cargar");
         JButton btnEditarCliente = new JButton("Guardar cambios");
+        btnCargarCliente.setEnabled(false);
         btnEditarCliente.setEnabled(false);
+        // Versión leída al cargar: si otro la cambia antes de guardar, se rechaza
+        long[] versionCliente = {-1};
         editarClientePanel.add(new JLabel("Cédula:")); editarClientePanel.add(cedEditar);
+        editarClientePanel.add(btnCargarCliente);
         editarClientePanel.add(new JLabel("Nombre:")); editarClientePanel.add(nomEditar);
         editarClientePanel.add(new JLabel("Email:")); editarClientePanel.add(emailEditar);
         editarClientePanel.add(new JLabel("Teléfono:")); editarClientePanel.add(telEditar);
         editarClientePanel.add(btnEditarCliente);
 
+        btnCargarCliente.addActionListener(e -> {
+            Cliente c = sistema.buscarClientePorCedula(cedEditar.getText().trim());
+            if (c == null) {
+                JOptionPane.showMessageDialog(this, "Cliente no encontrado",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            versionCliente[0] = c.getVersion();
+            nomEditar.setText(c.getNombre());
+            emailEditar.setText(c.getEmail());
+            telEditar.setText(c.getTelefono());
+        });
+
         btnEditarCliente.addActionListener(e -> {
             try {
-                String cedula = cedEditar.getText().trim();
-                Cliente c = sistema.buscarClientePorCedula(cedula);
-                if (c == null) throw new IllegalArgumentException("Cliente no encontrado");
-                if (!nomEditar.getText().trim().isEmpty()) c.setNombre(nomEditar.getText().trim());
-                if (!emailEditar.getText().trim().isEmpty()) c.setEmail(emailEditar.getText().trim());
-                if (!telEditar.getText().trim().isEmpty()) c.setTelefono(telEditar.getText().trim());
-                sistema.guardarClientes();
-                refrescarTablaClientes();
+                if (versionCliente[0] < 0) {
+                    throw new IllegalStateException("Pulse Cargar antes de guardar.");
+                }
+                sistema.editarCliente(cedEditar.getText().trim(), versionCliente[0],
+                        textoOpcional(nomEditar), textoOpcional(emailEditar),
+                        textoOpcional(telEditar));
+                versionCliente[0] = -1;
                 JOptionPane.showMessageDialog(this, "Cliente actualizado");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -700,7 +862,6 @@ public class HotelGUI extends JFrame {
             try {
                 int id = Integer.parseInt(idBorrarReserva.getText().trim());
                 sistema.getGestionReservas().borrarReserva(id);
-                refrescarTablaReservas();
                 JOptionPane.showMessageDialog(this, "Reserva borrada");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -727,27 +888,42 @@ public class HotelGUI extends JFrame {
         JTextField numHabEdit = new JTextField(5);
         JTextField precioHabEdit = new JTextField(7);
         JComboBox<EstadoHabitacion> estadoHabEdit = new JComboBox<>(EstadoHabitacion.values());
+        JButton btnCargarHab = new JButton("Cargar");
         JButton btnEditarHab = new JButton("Guardar cambios");
+        btnCargarHab.setEnabled(false);
         btnEditarHab.setEnabled(false);
+        long[] versionHab = {-1};
         editarHabPanel.add(new JLabel("Número:")); editarHabPanel.add(numHabEdit);
+        editarHabPanel.add(btnCargarHab);
         editarHabPanel.add(new JLabel("Nuevo precio:")); editarHabPanel.add(precioHabEdit);
         editarHabPanel.add(new JLabel("Estado:")); editarHabPanel.add(estadoHabEdit);
         editarHabPanel.add(btnEditarHab);
 
-        btnEditarHab.addActionListener(e -> {
+        btnCargarHab.addActionListener(e -> {
             try {
                 int num = Integer.parseInt(numHabEdit.getText().trim());
                 Habitacion h = sistema.getGestionHabitaciones().buscarHabitacionPorNumero(num);
                 if (h == null) throw new IllegalArgumentException("Habitación no encontrada");
-                if (!precioHabEdit.getText().trim().isEmpty()) {
-                    double precio = Double.parseDouble(precioHabEdit.getText().trim());
-                    h.setPrecio(precio);
-                }
-                if (estadoHabEdit.getSelectedItem() != null) {
-                    h.setEstado((EstadoHabitacion) estadoHabEdit.getSelectedItem());
+                versionHab[0] = h.getVersion();
+                precioHabEdit.setText(String.valueOf(h.getPrecio()));
+                estadoHabEdit.setSelectedItem(h.getEstado());
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        btnEditarHab.addActionListener(e -> {
+            try {
+                if (versionHab[0] < 0) {
+                    throw new IllegalStateException("Pulse Cargar antes de guardar.");
                 }
-                sistema.guardarHabitaciones();
-                refrescarTablaHabitaciones();
+                int num = Integer.parseInt(numHabEdit.getText().trim());
+                String precio = textoOpcional(precioHabEdit);
+                sistema.editarHabitacion(num, versionHab[0],
+                        precio == null ? null : Double.valueOf(precio),
+                        (EstadoHabitacion) estadoHabEdit.getSelectedItem());
+                versionHab[0] = -1;
                 JOptionPane.showMessageDialog(this, "Habitación actualizada");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -777,15 +953,38 @@ public class HotelGUI extends JFrame {
         JComboBox<String> estadoPagoCombo = new JComboBox<>(new String[]{
                 "Sin cambios", "PENDIENTE", "PAGADA"
         });
+        JButton btnCargarFactura = new JButton("Cargar");
         JButton btnEditarFactura = new JButton("Guardar cambios");
+        btnCargarFactura.setEnabled(false);
         btnEditarFactura.setEnabled(false);
+        long[] versionFactura = {-1};
         editarFacturaPanel.add(new JLabel("ID Factura:")); editarFacturaPanel.add(idFactura);
+        editarFacturaPanel.add(btnCargarFactura);
         editarFacturaPanel.add(new JLabel("Nuevo método pago:")); editarFacturaPanel.add(metodoPagoField);
         editarFacturaPanel.add(new JLabel("Estado pago:")); editarFacturaPanel.add(estadoPagoCombo);
         editarFacturaPanel.add(btnEditarFactura);
 
+        btnCargarFactura.addActionListener(e -> {
+            try {
+                int id = Integer.parseInt(idFactura.getText().trim());
+                Factura f = sistema.buscarFacturaPorId(id);
+                if (f == null) {
+                    throw new IllegalArgumentException("No se encontró factura con ID " + id);
+                }
+                versionFactura[0] = f.getVersion();
+                metodoPagoField.setText(f.getMetodoPago());
+                estadoPagoCombo.setSelectedIndex(f.estaPagada() ? 2 : 1);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
         btnEditarFactura.addActionListener(e -> {
             try {
+                if (versionFactura[0] < 0) {
+                    throw new IllegalStateException("Pulse Cargar antes de guardar.");
+                }
                 int id = Integer.parseInt(idFactura.getText().trim());
 
                 String nuevoMetodo = metodoPagoField.getText().trim();
@@ -797,7 +996,8 @@ public class HotelGUI extends JFrame {
                     pagada = true;
                 }
 
-                sistema.editarFactura(id, nuevoMetodo, pagada);
+                sistema.editarFactura(id, versionFactura[0], nuevoMetodo, pagada);
+                versionFactura[0] = -1;
                 JOptionPane.showMessageDialog(this, "Factura actualizada correctamente");
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(),
@@ -845,6 +1045,65 @@ public class HotelGUI extends JFrame {
             }
         });
 
+        // Informe de ocupación / ADR / RevPAR (solo admin)
+        JPanel informePanel = new JPanel();
+        informePanel.setBorder(BorderFactory.createTitledBorder("Informe de ocupación"));
+        JTextField desdeInforme = new JTextField(LocalDate.now().toString(), 8);
+        JTextField hastaInforme = new JTextField(LocalDate.now().plusDays(30).toString(), 8);
+        JCheckBox porTipoInforme = new JCheckBox("Por tipo");
+        JButton btnInforme = new JButton("Generar");
+        JButton btnExportarInforme = new JButton("Exportar CSV");
+        btnInforme.setEnabled(false);
+        btnExportarInforme.setEnabled(false);
+        informePanel.add(new JLabel("Desde:")); informePanel.add(desdeInforme);
+        informePanel.add(new JLabel("Hasta:")); informePanel.add(hastaInforme);
+        informePanel.add(porTipoInforme);
+        informePanel.add(btnInforme);
+        informePanel.add(btnExportarInforme);
+
+        btnInforme.addActionListener(e -> {
+            try {
+                InformeOcupacion informe = sistema.generarInformeOcupacion(
+                        LocalDate.parse(desdeInforme.getText().trim()),
+                        LocalDate.parse(hastaInforme.getText().trim()),
+                        porTipoInforme.isSelected());
+                StringBuilder sb = new StringBuilder("--- Ocupación ---\n");
+                for (InformeOcupacion.Fila f : informe.getFilas()) {
+                    sb.append(String.format("%s  %-10s  %d/%d  %.1f%%  ADR %.2f  RevPAR %.2f%n",
+                            f.getFecha(), f.getTipo(), f.getOcupadas(), f.getHabitaciones(),
+                            f.getOcupacion() * 100, f.getAdr(), f.getRevpar()));
+                }
+                salidaArea.setText(sb.toString());
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(this, "Formato de fecha inválido (use YYYY-MM-DD)",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        btnExportarInforme.addActionListener(e -> {
+            try {
+                InformeOcupacion informe = sistema.generarInformeOcupacion(
+                        LocalDate.parse(desdeInforme.getText().trim()),
+                        LocalDate.parse(hastaInforme.getText().trim()),
+                        porTipoInforme.isSelected());
+                JFileChooser selector = new JFileChooser();
+                selector.setSelectedFile(new File("informe_ocupacion_"
+                        + informe.getDesde() + "_" + informe.getHasta() + ".csv"));
+                if (selector.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+                informe.exportarCsv(selector.getSelectedFile().toPath());
+                JOptionPane.showMessageDialog(this, "Informe exportado");
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(this, "Formato de fecha inválido (use YYYY-MM-DD)",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
         accionesPanel.add(btnListarTodo);
         accionesPanel.add(borrarClientePanel);
         accionesPanel.add(editarClientePanel);
@@ -854,6 +1113,7 @@ public class HotelGUI extends JFrame {
         accionesPanel.add(editarFacturaPanel);
         accionesPanel.add(borrarFacturaPanel);
         accionesPanel.add(pagarPanel);
+        accionesPanel.add(informePanel);
 
         // Login habilita las acciones
         btnLogin.addActionListener(e -> {
@@ -867,13 +1127,18 @@ public class HotelGUI extends JFrame {
             }
             btnListarTodo.setEnabled(true);
             btnBorrarCliente.setEnabled(true);
+            btnCargarCliente.setEnabled(true);
             btnEditarCliente.setEnabled(true);
             btnBorrarReserva.setEnabled(true);
             btnAgregarHab.setEnabled(true);
+            btnCargarHab.setEnabled(true);
             btnEditarHab.setEnabled(true);
+            btnCargarFactura.setEnabled(true);
             btnEditarFactura.setEnabled(true);
             btnBorrarFactura.setEnabled(true);
             btnPagar.setEnabled(true);
+            btnInforme.setEnabled(true);
+            btnExportarInforme.setEnabled(true);
             JOptionPane.showMessageDialog(this, "Acceso de administrador concedido");
         });
 
@@ -884,12 +1149,29 @@ public class HotelGUI extends JFrame {
         return panel;
     }
 
+    // Texto del campo, o null si está vacío (= no cambiar)
+    private static String textoOpcional(JTextField campo) {
+        String texto = campo.getText().trim();
+        return texto.isEmpty() ? null : texto;
+    }
+
     // =============================
     // MÉTODO MAIN PARA LANZAR LA GUI
     // =============================
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            SistemaGestionHotel sistema = new SistemaGestionHotel();
+            // Sin argumentos, el hotel de "datos"; con un id, esa propiedad del grupo
+            SistemaGestionHotel sistema;
+            try {
+                sistema = GrupoHoteles.abrir(args);
+            } catch (IOException | NoSuchElementException e) {
+                JOptionPane.showMessageDialog(null, e.getMessage(), "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // Si la JVM termina sin pasar por cerrar(), no perder lo pendiente
+            Runtime.getRuntime().addShutdownHook(new Thread(sistema::flush, 
+                    "flush-al-salir"));
             new HotelGUI(sistema);
         });
     }
@@ -0,0 +1,91 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Modo diario: facturar no reescribe el histórico y sobrevive al reinicio. */
+class DiarioFacturasTest {
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void activarDiario() {
+        System.setProperty("hotel.diario", "true");
+    }
+
+    @AfterEach
+    void desactivarDiario() {
+        System.clearProperty("hotel.diario");
+    }
+
+    @Test
+    void checkInFacturaYCheckOutSoloAnexanAlDiario() throws Exception {
+        SistemaGestionHotel sistema = new SistemaGestionHotel(directorio);
+        sistema.agregarHabitacion(new Habitacion(101, "Doble", 80, EstadoHabitacion.DISPONIBLE));
+        sistema.registrarCliente(new Cliente(0, "Ana", "C-1", "ana@hotel.com", "300"));
+        sistema.flush();
+        // Deja los CSV al día y el diario vacío antes del ciclo
+        assertTrue(sistema.compactarDiario());
+        List<Path> antes = instantaneas();
+        long[] fechas = modificados(antes);
+
+        GestionReservas reservas = sistema.getGestionReservas();
+        LocalDate hoy = LocalDate.now();
+        Reserva r = reservas.crearReserva(hoy, hoy.plusDays(2),
+                sistema.getGestionHabitaciones().buscarHabitacionPorNumero(101), "Efectivo", "C-1");
+        reservas.realizarCheckIn(r.getId(), "C-1");
+        Factura f = sistema.generarFactura(r, 0.19);
+        sistema.marcarFacturaComoPagada(r.getId());
+        reservas.realizarCheckOut(r.getId());
+        sistema.flush();
+
+        assertEquals(antes, instantaneas());
+        for (int i = 0; i < antes.size(); i++) {
+            assertEquals(fechas[i], Files.getLastModifiedTime(antes.get(i)).toMillis(),
+                    "Se reescribió " + antes.get(i).getFileName());
+        }
+        List<String> diario = Files.readAllLines(directorio.resolve("diario.log"));
+        assertTrue(diario.stream().anyMatch(l -> l.startsWith("FC;" + f.getId() + ";")),
+                diario.toString());
+
+        // Otro arranque sobre los mismos archivos reproduce la factura pagada
+        SistemaGestionHotel reabierto = new SistemaGestionHotel(directorio);
+        try {
+            assertEquals(1, reabierto.getFacturas().size());
+            Factura cargada = reabierto.getFacturas().get(0);
+            assertEquals(f.getId(), cargada.getId());
+            assertEquals(f.getTotal(), cargada.getTotal());
+            assertTrue(cargada.estaPagada());
+            assertEquals(EstadoReserva.FINALIZADA, cargada.getReserva().getEstado());
+        } finally {
+            reabierto.cerrar();
+            sistema.cerrar();
+        }
+    }
+
+    private List<Path> instantaneas() throws Exception {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(p -> p.getFileName().toString().endsWith(".csv")
+                    && !p.getFileName().toString().equals("ids.csv")).sorted().toList();
+        }
+    }
+
+    private static long[] modificados(List<Path> archivos) throws Exception {
+        long[] fechas = new long[archivos.size()];
+        for (int i = 0; i < fechas.length; i++) {
+            fechas[i] = Files.getLastModifiedTime(archivos.get(i)).toMillis();
+        }
+        return fechas;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Grupos de varios archivos: todos del mismo momento aunque se corten. */
+class EscrituraAtomicaTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void unRenombradoFallidoSeCompletaAlRecuperar() throws Exception {
+        Path reservas = dir.resolve("clientes_reservas.csv");
+        Path facturas = dir.resolve("facturas-0001.csv");
+        Files.write(reservas, List.of("reservas-v1"));
+        // Un directorio no vacío en el destino hace fallar el segundo renombrado
+        Files.createDirectories(facturas.resolve("estorbo"));
+
+        try (EscrituraAtomica grupo = new EscrituraAtomica()) {
+            grupo.agregar(reservas, List.of("reservas-v2"));
+            grupo.agregar(facturas, List.of("facturas-v2"));
+            assertThrows(IOException.class, grupo::confirmar);
+        }
+        assertEquals(List.of("reservas-v2"), Files.readAllLines(reservas));
+        assertTrue(Files.exists(dir.resolve(EscrituraAtomica.MANIFIESTO)));
+
+        // En la siguiente carga el grupo se termina, no se deshace a medias
+        Files.delete(facturas.resolve("estorbo"));
+        Files.delete(facturas);
+        EscrituraAtomica.recuperar(dir);
+        assertEquals(List.of("facturas-v2"), Files.readAllLines(facturas));
+        assertFalse(Files.exists(dir.resolve(EscrituraAtomica.MANIFIESTO)));
+        try (var archivos = Files.list(dir)) {
+            assertEquals(0, archivos.filter(p -> p.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void unFalloAntesDeConfirmarNoReemplazaNada() throws Exception {
+        Path reservas = dir.resolve("clientes_reservas.csv");
+        Files.write(reservas, List.of("reservas-v1"));
+        try (EscrituraAtomica grupo = new EscrituraAtomica()) {
+            grupo.agregar(reservas, List.of("reservas-v2"));
+            assertThrows(IOException.class, () -> grupo.agregar(dir.resolve("facturas-0001.csv"),
+                    salida -> { throw new IOException("lista cambiada"); }));
+        }
+        assertEquals(List.of("reservas-v1"), Files.readAllLines(reservas));
+        assertFalse(Files.exists(dir.resolve(EscrituraAtomica.MANIFIESTO)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Volcados de la escritura diferida como una sola unidad. */
+class EscrituraDiferidaTest {
+
+    @Test
+    void unFalloDeshaceElVolcadoEnteroYSeReintenta() {
+        // Lo escrito dentro del grupo solo cuenta si el grupo termina sin error
+        List<String> confirmados = new ArrayList<>();
+        List<String> enCurso = new ArrayList<>();
+        AtomicInteger fallosReservas = new AtomicInteger(1);
+
+        Map<EscrituraDiferida.Conjunto, EscrituraDiferida.Escritor> escritores =
+                new EnumMap<>(EscrituraDiferida.Conjunto.class);
+        escritores.put(EscrituraDiferida.Conjunto.CLIENTES, () -> enCurso.add("clientes"));
+        escritores.put(EscrituraDiferida.Conjunto.RESERVAS, () -> {
+            enCurso.add("reservas-a-medias");
+            if (fallosReservas.getAndDecrement() > 0) throw new IOException("lote fallido");
+        });
+        EscrituraDiferida escritura = new EscrituraDiferida(escritores, volcado -> {
+            enCurso.clear();
+            volcado.escribir();
+            confirmados.addAll(enCurso);
+        }, 60_000, 100);
+
+        escritura.marcar(EscrituraDiferida.Conjunto.CLIENTES, Durabilidad.DIFERIDA);
+        escritura.marcar(EscrituraDiferida.Conjunto.RESERVAS, Durabilidad.DIFERIDA);
+        assertThrows(UncheckedIOException.class, escritura::flush);
+        assertTrue(confirmados.isEmpty(), "Se confirmó un volcado fallido: " + confirmados);
+
+        // Los dos conjuntos quedaron marcados otra vez y el reintento los escribe
+        escritura.flush();
+        assertEquals(List.of("clientes", "reservas-a-medias"), confirmados);
+        escritura.cerrar();
+    }
+
+    @Test
+    void unaEscrituraInmediataFallidaSeInformaAQuienLlama() {
+        AtomicInteger fallos = new AtomicInteger(1);
+        AtomicInteger escritas = new AtomicInteger();
+        Map<EscrituraDiferida.Conjunto, EscrituraDiferida.Escritor> escritores =
+                new EnumMap<>(EscrituraDiferida.Conjunto.class);
+        escritores.put(EscrituraDiferida.Conjunto.FACTURAS, () -> {
+            if (fallos.getAndDecrement() > 0) throw new IOException("disco lleno");
+            escritas.incrementAndGet();
+        });
+        EscrituraDiferida escritura = new EscrituraDiferida(escritores, 
+                EscrituraDiferida.Escritor::escribir, 60_000, 100);
+
+        UncheckedIOException error = assertThrows(UncheckedIOException.class, () ->
+                escritura.marcar(EscrituraDiferida.Conjunto.FACTURAS, Durabilidad.INMEDIATA));
+        assertTrue(error.getMessage().contains("disco lleno"), error.getMessage());
+        assertEquals(0, escritas.get());
+
+        // Sigue marcada: el siguiente volcado la escribe
+        escritura.flush();
+        assertEquals(1, escritas.get());
+        escritura.cerrar();
+    }
+}
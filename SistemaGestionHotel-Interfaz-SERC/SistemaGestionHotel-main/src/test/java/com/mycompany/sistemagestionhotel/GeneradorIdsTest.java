@@ -0,0 +1,50 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/** Ids por encima de la marca guardada. */
+class GeneradorIdsTest {
+
+    @Test
+    void sinMarcaGuardadaNoSeEntreganIdsPorEncima() {
+        AtomicInteger guardada = new AtomicInteger();
+        AtomicBoolean falla = new AtomicBoolean();
+        GeneradorIds ids = new GeneradorIds("pruebas");
+        ids.iniciar(1, marca -> {
+            if (falla.get()) throw new IOException("disco lleno");
+            guardada.set(marca);
+        });
+
+        int primero = ids.tomar(1);
+        assertTrue(primero < guardada.get());
+        // Agota la marca guardada con el disco fallando
+        int marcaAnterior = guardada.get();
+        falla.set(true);
+        int ultimo = primero;
+        UncheckedIOException error = null;
+        while (error == null) {
+            try {
+                ultimo = ids.tomar(1);
+                assertTrue(ultimo < marcaAnterior, "Id " + ultimo + " sobre la marca "
+                        + marcaAnterior);
+            } catch (UncheckedIOException e) {
+                error = e;
+            }
+        }
+        assertEquals(marcaAnterior, guardada.get());
+        assertThrows(UncheckedIOException.class, () -> ids.tomar(1));
+
+        // Al volver el disco se sigue sin huecos ni repetidos
+        falla.set(false);
+        assertEquals(ultimo + 1, ids.tomar(1));
+        assertTrue(guardada.get() > marcaAnterior);
+    }
+}
@@ -0,0 +1,121 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mycompany.sistemagestionhotel.api.ServidorApi;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Varias propiedades en una JVM: enrutado, aislamiento y consultas del grupo. */
+@Timeout(120)
+class GrupoHotelesTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2032, 5, 1);
+    private static final LocalDate HASTA = LocalDate.of(2032, 5, 4);
+
+    @TempDir
+    Path raiz;
+
+    private GrupoHoteles grupo;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        grupo = new GrupoHoteles(raiz);
+        for (String id : List.of("centro", "playa")) {
+            SistemaGestionHotel hotel = grupo.agregarHotel(id);
+            hotel.agregarHabitacion(new Habitacion(101, "Doble", 90, EstadoHabitacion.DISPONIBLE));
+            hotel.agregarHabitacion(new Habitacion(102, "Suite", 150, EstadoHabitacion.DISPONIBLE));
+            hotel.registrarCliente(new Cliente(0, "Ana", "C-1", "ana@hotel.com", "300"));
+        }
+    }
+
+    @AfterEach
+    void cerrar() {
+        grupo.cerrar();
+    }
+
+    @Test
+    void cadaPropiedadTieneSusPropiosDatos() {
+        assertEquals(Set.of("centro", "playa"), grupo.getIdsHoteles());
+        SistemaGestionHotel centro = grupo.hotel("centro");
+        centro.getGestionReservas().crearReserva(DESDE, HASTA,
+                centro.getGestionHabitaciones().buscarHabitacionPorNumero(101), "Efectivo", "C-1");
+
+        assertEquals(1, centro.getReservas().size());
+        assertTrue(grupo.hotel("playa").getReservas().isEmpty());
+        assertThrows(NoSuchElementException.class, () -> grupo.hotel("montaña"));
+        assertThrows(IllegalArgumentException.class, () -> grupo.agregarHotel("centro"));
+        assertThrows(IllegalArgumentException.class, () -> grupo.agregarHotel("../fuera"));
+    }
+
+    @Test
+    void consultasDeTodoElGrupo() {
+        SistemaGestionHotel playa = grupo.hotel("playa");
+        playa.getGestionReservas().crearReserva(DESDE, HASTA,
+                playa.getGestionHabitaciones().buscarHabitacionPorNumero(102), "Tarjeta", "C-1");
+
+        Map<String, List<Habitacion>> libres = grupo.buscarDisponibilidad(DESDE, HASTA);
+        assertEquals(List.of("centro", "playa"), List.copyOf(libres.keySet()));
+        assertEquals(2, libres.get("centro").size());
+        assertEquals(1, libres.get("playa").size());
+
+        Map<String, List<Reserva>> estancias = grupo.reservasDeCliente("C-1");
+        assertEquals(Set.of("playa"), estancias.keySet());
+    }
+
+    @Test
+    void laApiEnrutaPorHotel() throws Exception {
+        grupo.cerrar();
+        // Como al arrancar: el grupo se descubre de los directorios
+        grupo = new GrupoHoteles(raiz);
+        ServidorApi api = new ServidorApi(grupo, "127.0.0.1", 0, "secreto");
+        api.iniciar();
+        String base = "http://127.0.0.1:" + api.getPuerto() + "/api";
+        try (HttpClient http = HttpClient.newHttpClient()) {
+            assertEquals("[\"centro\",\"playa\"]", get(http, base + "/hoteles").body());
+
+            HttpResponse<String> creada = http.send(HttpRequest.newBuilder(
+                    URI.create(base + "/hoteles/playa/reservas"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .header("Authorization", "Bearer secreto")
+                    .POST(HttpRequest.BodyPublishers.ofString("habitacion=101&desde=" + DESDE
+                            + "&hasta=" + HASTA + "&cedula=C-1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, creada.statusCode(), creada.body());
+            assertEquals(1, grupo.hotel("playa").getReservas().size());
+            assertTrue(grupo.hotel("centro").getReservas().isEmpty());
+
+            assertEquals(200, get(http, base + "/hoteles/centro/habitaciones/101").statusCode());
+            assertEquals(404, get(http, base + "/hoteles/montaña/habitaciones").statusCode());
+            assertEquals(404, get(http, base + "/hoteles/centro/nada").statusCode());
+
+            String estancias = get(http, base + "/grupo/reservas?cedula=C-1").body();
+            assertTrue(estancias.startsWith("{\"playa\":[{\"id\":"), estancias);
+            String libres = get(http, base + "/grupo/disponibilidad?desde=" + DESDE
+                    + "&hasta=" + HASTA).body();
+            assertTrue(libres.contains("\"centro\":[") && libres.contains("\"playa\":["), libres);
+        } finally {
+            api.detener();
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient http, String url) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url.replace("ñ", "%C3%B1"))).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,90 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Lectura de CSV y ida y vuelta de los textos que se guardan. */
+class LectorCsvTest {
+
+    // Textos que rompían la carga: comillas, ';' y saltos de línea
+    private static final String NOMBRE = "Ana \"la jefa\" Pérez";
+    private static final String TIPO = "Suite; vista \"mar\"";
+    private static final String METODO = "Tarjeta\n\"VISA\"";
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void comillaEnMedioDeCampoNoAbreComillas() throws Exception {
+        String csv = "1;Ana \"la jefa;c1\n2;Luis;c2\n";
+        try (LectorCsv lector = new LectorCsv(new StringReader(csv))) {
+            assertTrue(lector.siguiente());
+            assertEquals(3, lector.numCampos());
+            assertEquals("Ana \"la jefa", lector.texto(1));
+            assertTrue(lector.siguiente());
+            assertEquals("Luis", lector.texto(1));
+            assertFalse(lector.siguiente());
+        }
+    }
+
+    @Test
+    void campoEntrecomilladoConSeparadoresYSaltos() throws Exception {
+        String csv = "\"a;b\";\"x\"\"y\";\"l1\nl2\"\n";
+        try (LectorCsv lector = new LectorCsv(new StringReader(csv))) {
+            assertTrue(lector.siguiente());
+            assertEquals("a;b", lector.texto(0));
+            assertEquals("x\"y", lector.texto(1));
+            assertEquals("l1\nl2", lector.texto(2));
+            assertFalse(lector.siguiente());
+        }
+    }
+
+    @Test
+    void idaYVueltaDeTextosConComillas() throws Exception {
+        PersistenciaDatos persistencia = new PersistenciaDatos(directorio);
+        Hotel hotel = new Hotel("Hotel \"Paraíso\"", "Calle 1; local 2", "555");
+        Habitacion h = new Habitacion(101, TIPO, 80.5, EstadoHabitacion.DISPONIBLE);
+        Habitacion otra = new Habitacion(102, "Doble", 60, EstadoHabitacion.DISPONIBLE);
+        Cliente c = new Cliente(1, NOMBRE, "123", "ana@x.com", "\"300\"");
+        Cliente siguiente = new Cliente(2, "Luis", "456", "luis@x.com", "301");
+        Reserva r = new Reserva(7, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 3),
+                EstadoReserva.CONFIRMADA, h, "123", METODO);
+        Factura f = new Factura(9, LocalDate.of(2025, 1, 3), 161, 30.59, 191.59, METODO, r);
+
+        persistencia.guardarHotel(hotel);
+        persistencia.guardarHabitaciones(List.of(h, otra));
+        persistencia.guardarClientes(List.of(c, siguiente));
+        persistencia.guardarReservasUnificado(List.of(c, siguiente), List.of(r));
+        persistencia.guardarFacturas(List.of(f));
+
+        Hotel hotelLeido = persistencia.cargarHotel();
+        assertEquals(hotel.getNombre(), hotelLeido.getNombre());
+        assertEquals(hotel.getDireccion(), hotelLeido.getDireccion());
+
+        List<Habitacion> habitaciones = persistencia.cargarHabitaciones();
+        assertEquals(2, habitaciones.size());
+        assertEquals(TIPO, habitaciones.get(0).getTipo());
+
+        List<Cliente> clientes = persistencia.cargarClientes();
+        assertEquals(2, clientes.size());
+        assertEquals(NOMBRE, clientes.get(0).getNombre());
+        assertEquals("\"300\"", clientes.get(0).getTelefono());
+        assertEquals("Luis", clientes.get(1).getNombre());
+
+        List<Reserva> reservas = persistencia.cargarReservas(habitaciones, clientes);
+        assertEquals(1, reservas.size());
+        assertEquals(METODO, reservas.get(0).getMetodoPago());
+
+        List<Factura> facturas = persistencia.cargarFacturas(reservas);
+        assertEquals(1, facturas.size());
+        assertEquals(METODO, facturas.get(0).getMetodoPago());
+    }
+}
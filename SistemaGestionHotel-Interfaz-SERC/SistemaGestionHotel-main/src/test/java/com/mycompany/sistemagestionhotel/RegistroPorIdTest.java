@@ -0,0 +1,72 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/** Registro de solo anexar con índices por id. */
+class RegistroPorIdTest {
+
+    private record Fila(int id, int grupo) { }
+
+    @Test
+    void agregarDesdeVariosHilosNoPierdeNiRepite() throws Exception {
+        RegistroPorId<Fila> registro = new RegistroPorId<>(Fila::id, Fila::grupo);
+        int hilos = 4;
+        int porHilo = 5_000;
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(hilos)) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int t = 0; t < hilos; t++) {
+                int base = t * porHilo;
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        registro.add(new Fila(base + i, (base + i) / 10));
+                        // Recorrer mientras otros agregan no falla
+                        if (i % 1000 == 0) registro.stream().count();
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) tarea.get();
+        }
+
+        assertEquals(hilos * porHilo, registro.size());
+        Set<Integer> ids = new HashSet<>();
+        for (Fila f : registro) ids.add(f.id());
+        assertEquals(hilos * porHilo, ids.size());
+        assertEquals(12_345, registro.buscar(12_345).id());
+        assertEquals(1_230, registro.buscarPorSecundaria(123).id());
+    }
+
+    @Test
+    void borrarMantieneIndicesYNoAfectaAUnRecorridoEnCurso() {
+        RegistroPorId<Fila> registro = new RegistroPorId<>(Fila::id, Fila::grupo);
+        Fila a = new Fila(1, 7);
+        Fila b = new Fila(2, 7);
+        Fila c = new Fila(3, 8);
+        registro.addAll(List.of(a, b, c));
+        assertSame(a, registro.buscarPorSecundaria(7));
+
+        Iterator<Fila> enCurso = registro.iterator();
+        registro.remove(a);
+        registro.add(new Fila(4, 9));
+
+        assertEquals(List.of(b, c, new Fila(4, 9)), List.copyOf(registro));
+        assertNull(registro.buscar(1));
+        // Quedaba otra con la misma clave secundaria
+        assertSame(b, registro.buscarPorSecundaria(7));
+
+        List<Fila> vistas = new ArrayList<>();
+        enCurso.forEachRemaining(vistas::add);
+        assertEquals(List.of(a, b, c), vistas);
+    }
+}
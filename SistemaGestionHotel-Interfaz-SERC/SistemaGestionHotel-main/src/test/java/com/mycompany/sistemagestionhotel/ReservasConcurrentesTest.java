@@ -0,0 +1,237 @@
+package com.mycompany.sistemagestionhotel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Prueba de estrés de los cerrojos por habitación: muchos hilos reservando y
+ * cancelando a la vez nunca dejan dos estancias activas solapadas en una
+ * misma habitación, ni repiten ids, ni facturan dos veces una reserva.
+ * También comprueba que editar una habitación no se intercala con una
+ * reserva de ella y que el rendimiento crece con los hilos cuando hay
+ * varios procesadores.
+ */
+@Timeout(120)
+class ReservasConcurrentesTest {
+
+    private static final int HABITACIONES = 40;
+    private static final LocalDate HOY = LocalDate.now();
+
+    @TempDir
+    Path directorio;
+
+    private SistemaGestionHotel sistema;
+    private final List<Habitacion> habitaciones = new ArrayList<>();
+    private String cedula;
+
+    @BeforeEach
+    void preparar() {
+        sistema = new SistemaGestionHotel(directorio);
+        for (int i = 0; i < HABITACIONES; i++) {
+            Habitacion h = new Habitacion(900 + i, "Doble", 100, EstadoHabitacion.DISPONIBLE);
+            sistema.agregarHabitacion(h);
+            habitaciones.add(h);
+        }
+        cedula = sistema.registrarCliente(
+                new Cliente(0, "Estrés", "E-1", "e@hotel.com", "300")).getCedula();
+    }
+
+    @AfterEach
+    void cerrar() {
+        sistema.cerrar();
+    }
+
+    @Test
+    void sinDoblesReservasNiIdsRepetidosBajoContencion() throws Exception {
+        // Pocas habitaciones y pocas fechas: casi todas las peticiones chocan
+        List<Habitacion> disputadas = habitaciones.subList(0, 5);
+        AtomicInteger creadas = new AtomicInteger();
+        ejecutar(8, 1500, rnd -> {
+            Habitacion h = disputadas.get(rnd.nextInt(disputadas.size()));
+            LocalDate inicio = HOY.plusDays(rnd.nextInt(20));
+            try {
+                Reserva r = sistema.getGestionReservas().crearReserva(inicio,
+                        inicio.plusDays(1 + rnd.nextInt(4)), h, "Efectivo", cedula);
+                creadas.incrementAndGet();
+                if (rnd.nextInt(4) == 0) sistema.getGestionReservas().cancelarReserva(r.getId());
+            } catch (IllegalStateException ocupada) {
+                // Esperado: la habitación ya estaba tomada en esas fechas
+            }
+        });
+
+        assertTrue(creadas.get() > 0, "No se creó ninguna reserva");
+        comprobarSinSolapes();
+        comprobarIdsUnicos();
+    }
+
+    @Test
+    void facturarLaMismaReservaALaVezDejaUnaSolaFactura() throws Exception {
+        Reserva r = sistema.getGestionReservas().crearReserva(HOY, HOY.plusDays(2),
+                habitaciones.get(0), "Efectivo", cedula);
+        sistema.getGestionReservas().realizarCheckIn(r.getId(), cedula);
+        AtomicInteger rechazadas = new AtomicInteger();
+        ejecutar(8, 1, rnd -> {
+            try {
+                sistema.generarFactura(r, 0.19);
+            } catch (IllegalStateException yaFacturada) {
+                rechazadas.incrementAndGet();
+            }
+        });
+
+        assertEquals(7, rechazadas.get());
+        assertEquals(1, sistema.getFacturas().stream()
+                .filter(f -> f.getReserva().getId() == r.getId()).count());
+    }
+
+    @Test
+    void editarUnaHabitacionEsperaALaReservaEnCurso() throws Exception {
+        GestionHabitaciones gestion = sistema.getGestionHabitaciones();
+        Habitacion h = habitaciones.get(0);
+        long version = h.sello();
+        // Una reserva de esa habitación tiene su cerrojo tomado
+        Lock cerrojo = gestion.getBloqueos().de(h.getNumero());
+        cerrojo.lock();
+        Thread edicion;
+        try {
+            edicion = new Thread(() -> gestion.actualizarHabitacion(h.getNumero(),
+                    version, null, EstadoHabitacion.MANTENIMIENTO));
+            edicion.start();
+            edicion.join(200);
+            assertTrue(edicion.isAlive(), "La edición no esperó al cerrojo");
+            assertEquals(EstadoHabitacion.DISPONIBLE, h.getEstado());
+        } finally {
+            cerrojo.unlock();
+        }
+        edicion.join();
+
+        // Ya editada, una reserva posterior la ve en mantenimiento
+        assertEquals(EstadoHabitacion.MANTENIMIENTO, h.getEstado());
+        assertThrows(IllegalStateException.class, () -> sistema.getGestionReservas()
+                .crearReserva(HOY, HOY.plusDays(1), h, "Efectivo", cedula));
+        assertEquals(EstadoHabitacion.MANTENIMIENTO, h.getEstado());
+    }
+
+    @Test
+    void elRendimientoCreceConLosHilos() throws Exception {
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(procesadores >= 2, "Con un solo procesador no hay escalado que medir");
+        int hilos = Math.min(4, procesadores);
+
+        // Una ronda de calentamiento para que el JIT no cuente en la medida
+        operacionesPorSegundo(1, 0);
+        double uno = operacionesPorSegundo(1, 1);
+        double varios = operacionesPorSegundo(hilos, 2);
+
+        // Casi lineal con margen para el ruido de la máquina: al menos la 
+        // mitad del ideal (con cerrojos globales se quedaría cerca de 1x)
+        double escalado = varios / uno;
+        assertTrue(escalado >= hilos * 0.5, String.format(
+                "Con %d hilos %.0f op/s frente a %.0f con uno (x%.2f)",
+                hilos, varios, uno, escalado));
+        comprobarSinSolapes();
+        comprobarIdsUnicos();
+    }
+
+    // Reservar y cancelar sobre todo el hotel; cada ronda en su propio rango
+    // de fechas para no chocar con las demás
+    private double operacionesPorSegundo(int hilos, int ronda) throws Exception {
+        int operacionesPorHilo = 4000;
+        int desplazamiento = ronda * 400;
+        long inicio = System.nanoTime();
+        ejecutar(hilos, operacionesPorHilo, rnd -> {
+            Habitacion h = habitaciones.get(rnd.nextInt(habitaciones.size()));
+            LocalDate dia = HOY.plusDays(desplazamiento + rnd.nextInt(365));
+            try {
+                Reserva r = sistema.getGestionReservas().crearReserva(dia,
+                        dia.plusDays(2), h, "Tarjeta", cedula);
+                sistema.getGestionReservas().cancelarReserva(r.getId());
+            } catch (IllegalStateException ocupada) {
+                // Esperado con varias reservas sobre la misma fecha
+            }
+        });
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+        return (double) hilos * operacionesPorHilo * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private interface Operacion {
+        void ejecutar(ThreadLocalRandom rnd) throws Exception;
+    }
+
+    // Lanza los hilos a la vez y relanza el primer error inesperado
+    private void ejecutar(int hilos, int operacionesPorHilo, Operacion operacion)
+            throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < hilos; t++) {
+            tareas.add(ejecutor.submit(() -> {
+                salida.await();
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < operacionesPorHilo; i++) operacion.ejecutar(rnd);
+                return null;
+            }));
+        }
+        salida.countDown();
+        try {
+            for (Future<?> tarea : tareas) tarea.get();
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private void comprobarSinSolapes() {
+        Map<Integer, List<Reserva>> activasPorHabitacion = new HashMap<>();
+        for (Reserva r : sistema.getReservas()) {
+            if (r.getEstado() == EstadoReserva.CONFIRMADA
+                    || r.getEstado() == EstadoReserva.CHECK_IN_REALIZADO) {
+                activasPorHabitacion.computeIfAbsent(r.getHabitacion().getNumero(),
+                        n -> new ArrayList<>()).add(r);
+            }
+        }
+        for (Map.Entry<Integer, List<Reserva>> e : activasPorHabitacion.entrySet()) {
+            List<Reserva> activas = e.getValue();
+            for (int i = 0; i < activas.size(); i++) {
+                for (int j = i + 1; j < activas.size(); j++) {
+                    Reserva a = activas.get(i);
+                    Reserva b = activas.get(j);
+                    boolean solapan = a.getFechaInicio().isBefore(b.getFechaFin())
+                            && b.getFechaInicio().isBefore(a.getFechaFin());
+                    assertTrue(!solapan, "Habitación " + e.getKey() + " con dos estancias"
+                            + " activas: reservas " + a.getId() + " y " + b.getId());
+                }
+            }
+        }
+    }
+
+    private void comprobarIdsUnicos() {
+        Set<Integer> ids = new HashSet<>();
+        for (Reserva r : sistema.getReservas()) {
+            assertTrue(ids.add(r.getId()), "Id de reserva repetido: " + r.getId());
+        }
+        assertEquals(sistema.getReservas().size(), ids.size());
+    }
+}
@@ -0,0 +1,165 @@
+package com.mycompany.sistemagestionhotel.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mycompany.sistemagestionhotel.Cliente;
+import com.mycompany.sistemagestionhotel.EstadoHabitacion;
+import com.mycompany.sistemagestionhotel.Habitacion;
+import com.mycompany.sistemagestionhotel.Reserva;
+import com.mycompany.sistemagestionhotel.SistemaGestionHotel;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * API HTTP sobre un hotel en un directorio temporal: acceso (solo local,
+ * token para modificar) y una prueba de carga de 10.000 peticiones.
+ */
+@Timeout(300)
+class ServidorApiTest {
+
+    private static final String CEDULA = "A-100";
+    private static final int HABITACIONES = 20;
+
+    @TempDir
+    Path directorio;
+
+    private SistemaGestionHotel sistema;
+    private ServidorApi api;
+    private HttpClient cliente;
+    private String base;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        sistema = new SistemaGestionHotel(directorio);
+        for (int i = 0; i < HABITACIONES; i++) {
+            sistema.agregarHabitacion(new Habitacion(100 + i, i % 2 == 0 ? "Doble" : "Suite",
+                    100 + i, EstadoHabitacion.DISPONIBLE));
+        }
+        sistema.registrarCliente(new Cliente(0, "Ana", CEDULA, "ana@hotel.com", "300"));
+        api = new ServidorApi(sistema, 0);
+        api.iniciar();
+        base = "http://" + api.getHost() + ":" + api.getPuerto() + "/api";
+        cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    }
+
+    @AfterEach
+    void detener() {
+        cliente.close();
+        api.detener();
+        sistema.cerrar();
+    }
+
+    @Test
+    void escuchaSoloEnLaInterfazLocalPorDefecto() throws Exception {
+        assertTrue(InetAddress.getByName(api.getHost()).isLoopbackAddress(),
+                "Escucha en " + api.getHost());
+    }
+
+    @Test
+    void modificarExigeElToken() throws Exception {
+        String reserva = "habitacion=100&desde=2030-01-01&hasta=2030-01-03&cedula=" + CEDULA;
+        assertEquals(401, enviar(post("/reservas", reserva, null)).statusCode());
+        assertEquals(401, enviar(post("/reservas", reserva, "otro")).statusCode());
+        assertTrue(sistema.getReservas().isEmpty());
+
+        // Leer no lo necesita; con el token correcto sí se reserva
+        assertEquals(200, enviar(get("/habitaciones/100")).statusCode());
+        assertEquals(201, enviar(post("/reservas", reserva, api.getToken())).statusCode());
+        assertEquals(1, sistema.getReservas().size());
+    }
+
+    @Test
+    void cargaDeDiezMilPeticiones() throws Exception {
+        int total = 10_000;
+        // Hasta 256 en vuelo, por debajo de la cola de conexiones (hotel.api.cola)
+        Semaphore enVuelo = new Semaphore(256);
+        Map<Integer, AtomicInteger> porEstado = new ConcurrentHashMap<>();
+        long inicio = System.nanoTime();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                HttpRequest peticion = peticionDeCarga(i);
+                tareas.add(hilos.submit(() -> {
+                    enVuelo.acquire();
+                    try {
+                        int estado = enviar(peticion).statusCode();
+                        porEstado.computeIfAbsent(estado, e -> new AtomicInteger())
+                                .incrementAndGet();
+                    } finally {
+                        enVuelo.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) tarea.get();
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println("Carga API: " + total + " peticiones en " + ms + " ms " + porEstado);
+
+        int respondidas = 0;
+        for (Map.Entry<Integer, AtomicInteger> e : porEstado.entrySet()) {
+            int estado = e.getKey();
+            assertTrue(estado == 200 || estado == 201 || estado == 409,
+                    "Estado inesperado " + estado + ": " + porEstado);
+            respondidas += e.getValue().get();
+        }
+        assertEquals(total, respondidas);
+
+        // Todas piden las mismas fechas: una sola reserva por habitación
+        Map<Integer, Integer> reservasPorHabitacion = new ConcurrentHashMap<>();
+        for (Reserva r : sistema.getReservas()) {
+            reservasPorHabitacion.merge(r.getHabitacion().getNumero(), 1, Integer::sum);
+        }
+        assertEquals(HABITACIONES, reservasPorHabitacion.size());
+        reservasPorHabitacion.forEach((numero, n) ->
+                assertEquals(1, n.intValue(), "Habitación " + numero + " reservada "
+                        + n + " veces"));
+    }
+
+    // 10 % reservas (casi todas chocan), 30 % clientes, 60 % disponibilidad
+    private HttpRequest peticionDeCarga(int i) {
+        if (i % 10 == 0) {
+            return post("/reservas", "habitacion=" + (100 + (i / 10) % HABITACIONES)
+                    + "&desde=2031-03-01&hasta=2031-03-04&cedula=" + CEDULA, api.getToken());
+        }
+        if (i % 10 < 4) return get("/clientes?cedula=" + CEDULA);
+        int mes = 1 + i % 9;
+        return get("/habitaciones?desde=2031-0" + mes + "-10&hasta=2031-0" + mes + "-15");
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).build();
+    }
+
+    private HttpRequest post(String ruta, String formulario, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario));
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        return b.build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest peticion) throws Exception {
+        return cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+    }
+}